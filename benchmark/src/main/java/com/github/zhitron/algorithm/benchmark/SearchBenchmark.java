@@ -0,0 +1,251 @@
+package com.github.zhitron.algorithm.benchmark;
+
+import com.github.zhitron.algorithm.ByteKMP;
+import com.github.zhitron.algorithm.ByteWildcardPattern;
+import com.github.zhitron.algorithm.IntKMP;
+import com.github.zhitron.algorithm.KMP;
+import com.github.zhitron.algorithm.MatcherEngine;
+import com.github.zhitron.algorithm.MatcherPlanner;
+import com.github.zhitron.algorithm.PatternMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 覆盖各个of(...)重载和查找路径的吞吐量基准测试。
+ * <p>
+ * 运行方式：{@code java -jar benchmark/target/benchmarks.jar SearchBenchmark -prof gc}，
+ * gc分析器会同时报告每次操作的分配量（gc.alloc.rate.norm），用于发现装箱和临时数组的回归。
+ * </p>
+ *
+ * @author zhitron
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    private ByteKMP compiled;
+    private ByteKMP automaton;
+    private ByteWildcardPattern wildcard;
+    private IntKMP intCompiled;
+    private KMP<Byte> boxedSearch;
+    private KMP<Byte> boxedPooled;
+    private int[] workspace;
+    private PatternMatcher twoWay;
+    private PatternMatcher rabinKarp;
+    private PatternMatcher planned;
+
+    @Setup
+    public void setup(SearchState state) {
+        compiled = ByteKMP.compile(state.byteTarget);
+        automaton = compiled.withDfa();
+        // 每四个位置中有一个通配符，与确定模式的吞吐量对比
+        byte[] mask = new byte[state.byteTarget.length];
+        for (int i = 0; i < mask.length; i++) mask[i] = (byte) (i % 4 == 1 ? 0 : 0xff);
+        wildcard = ByteWildcardPattern.compile(state.byteTarget, mask);
+        intCompiled = IntKMP.compile(state.intTarget);
+        // 复用同一个实例，分配量中只剩下每次查找生成的next数组，用于对比工作数组和线程缓冲区
+        boxedSearch = KMP.of(state.boxedInput, state.boxedTarget);
+        boxedPooled = KMP.of(state.boxedInput, state.boxedTarget).setThreadLocalWorkspace(true);
+        workspace = new int[state.boxedTarget.length + 1];
+        // 同一份输入和模式上的其它算法，以及按规则选择的算法
+        twoWay = MatcherPlanner.create(MatcherEngine.TWO_WAY, state.byteInput, state.byteTarget);
+        rabinKarp = MatcherPlanner.create(MatcherEngine.RABIN_KARP, state.byteInput, state.byteTarget);
+        planned = MatcherPlanner.plan(state.byteInput, state.byteTarget);
+    }
+
+    @Benchmark
+    public int ofByteIndexOf(SearchState state) {
+        return KMP.of(state.byteInput, state.byteTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofByteLastIndexOf(SearchState state) {
+        return KMP.of(state.byteInput, state.byteTarget).lastIndexOf(state.inputSize);
+    }
+
+    @Benchmark
+    public int ofCharIndexOf(SearchState state) {
+        return KMP.of(state.charInput, state.charTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofShortIndexOf(SearchState state) {
+        return KMP.of(state.shortInput, state.shortTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofIntIndexOf(SearchState state) {
+        return KMP.of(state.intInput, state.intTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofLongIndexOf(SearchState state) {
+        return KMP.of(state.longInput, state.longTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofFloatIndexOf(SearchState state) {
+        return KMP.of(state.floatInput, state.floatTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofDoubleIndexOf(SearchState state) {
+        return KMP.of(state.doubleInput, state.doubleTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofBooleanIndexOf(SearchState state) {
+        return KMP.of(state.booleanInput, state.booleanTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofBoxedArrayIndexOf(SearchState state) {
+        return KMP.of(state.boxedInput, state.boxedTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int ofBoxedArrayLastIndexOf(SearchState state) {
+        return KMP.of(state.boxedInput, state.boxedTarget).lastIndexOf(state.inputSize);
+    }
+
+    @Benchmark
+    public int boxedReusedIndexOf() {
+        return boxedSearch.indexOf(0);
+    }
+
+    @Benchmark
+    public int boxedWorkspaceIndexOf(SearchState state) {
+        return boxedSearch.indexOf(0, state.inputSize, workspace);
+    }
+
+    @Benchmark
+    public int boxedThreadLocalIndexOf() {
+        return boxedPooled.indexOf(0);
+    }
+
+    @Benchmark
+    public int ofListIndexOf(SearchState state) {
+        return KMP.of(state.listInput, state.listTarget).indexOf(0);
+    }
+
+    @Benchmark
+    public int compiledByteIndexOf(SearchState state) {
+        return compiled.indexOf(state.byteInput);
+    }
+
+    @Benchmark
+    public int twoWayByteIndexOf() {
+        return twoWay.indexOf(0);
+    }
+
+    @Benchmark
+    public int rabinKarpByteIndexOf() {
+        return rabinKarp.indexOf(0);
+    }
+
+    @Benchmark
+    public int plannedByteIndexOf() {
+        return planned.indexOf(0);
+    }
+
+    @Benchmark
+    public int dfaByteIndexOf(SearchState state) {
+        return automaton.indexOf(state.byteInput);
+    }
+
+    @Benchmark
+    public int dfaByteCount(SearchState state) {
+        return automaton.count(state.byteInput, true);
+    }
+
+    @Benchmark
+    public int wildcardByteIndexOf(SearchState state) {
+        return wildcard.indexOf(state.byteInput);
+    }
+
+    @Benchmark
+    public int wildcardByteCount(SearchState state) {
+        return wildcard.count(state.byteInput, true);
+    }
+
+    @Benchmark
+    public int[] approximateIntFindAll(SearchState state) {
+        return intCompiled.findAllApproximate(state.intInput, 2);
+    }
+
+    @Benchmark
+    public int naiveIntApproximate(SearchState state) {
+        int[] input = state.intInput;
+        int[] target = state.intTarget;
+        int count = 0;
+        for (int i = 0, last = input.length - target.length; i <= last; i++) {
+            int mismatches = 0;
+            for (int j = 0; j < target.length && mismatches <= 2; j++) {
+                if (input[i + j] != target[j]) mismatches++;
+            }
+            if (mismatches <= 2) count++;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int compiledByteLastIndexOf(SearchState state) {
+        return compiled.lastIndexOf(state.byteInput);
+    }
+
+    @Benchmark
+    public int compiledByteCount(SearchState state) {
+        return compiled.count(state.byteInput, true);
+    }
+
+    @Benchmark
+    public int stringIndexOf(SearchState state) {
+        return state.stringInput.indexOf(state.stringTarget);
+    }
+
+    @Benchmark
+    public int stringLastIndexOf(SearchState state) {
+        return state.stringInput.lastIndexOf(state.stringTarget);
+    }
+
+    @Benchmark
+    public int naiveByteLastIndexOf(SearchState state) {
+        byte[] input = state.byteInput;
+        byte[] target = state.byteTarget;
+        outer:
+        for (int i = input.length - target.length; i >= 0; i--) {
+            for (int j = 0; j < target.length; j++) {
+                if (input[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public int naiveByteIndexOf(SearchState state) {
+        byte[] input = state.byteInput;
+        byte[] target = state.byteTarget;
+        outer:
+        for (int i = 0, last = input.length - target.length; i <= last; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (input[i + j] != target[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.zhitron.algorithm.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试的输入数据。
+ * <p>
+ * 同一组元素值被转换成各种元素类型，保证不同of(...)重载之间的结果可以直接比较。
+ * </p>
+ *
+ * @author zhitron
+ */
+@State(Scope.Benchmark)
+public class SearchState {
+    /**
+     * 模式长度
+     */
+    @Param({"4", "16", "64"})
+    public int patternLength;
+    /**
+     * 字母表大小，元素取值范围为[0, alphabet)
+     */
+    @Param({"4", "256"})
+    public int alphabet;
+    /**
+     * 输入长度
+     */
+    @Param({"65536"})
+    public int inputSize;
+    /**
+     * 每个输入元素上植入一个匹配的概率
+     */
+    @Param({"0", "0.001"})
+    public double density;
+    /**
+     * 输入形态：random为随机输入；worst为形如aaaa…a的输入配合aaa…ab的模式，是朴素正向查找的最坏情况；
+     * worstReverse为同样的输入配合baa…a的模式，是从右向左比较元素的查找的最坏情况
+     */
+    @Param({"random", "worst", "worstReverse"})
+    public String shape;
+
+    public int[] values;
+    public int[] pattern;
+
+    public byte[] byteInput;
+    public byte[] byteTarget;
+    public char[] charInput;
+    public char[] charTarget;
+    public short[] shortInput;
+    public short[] shortTarget;
+    public int[] intInput;
+    public int[] intTarget;
+    public long[] longInput;
+    public long[] longTarget;
+    public float[] floatInput;
+    public float[] floatTarget;
+    public double[] doubleInput;
+    public double[] doubleTarget;
+    public boolean[] booleanInput;
+    public boolean[] booleanTarget;
+    public Byte[] boxedInput;
+    public Byte[] boxedTarget;
+    public List<Byte> listInput;
+    public List<Byte> listTarget;
+    public String stringInput;
+    public String stringTarget;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(20240601L);
+        values = new int[inputSize];
+        pattern = new int[patternLength];
+        if ("worst".equals(shape)) {
+            Arrays.fill(pattern, 0);
+            pattern[patternLength - 1] = 1;
+        } else if ("worstReverse".equals(shape)) {
+            Arrays.fill(pattern, 0);
+            pattern[0] = 1;
+        } else {
+            for (int i = 0; i < inputSize; i++) values[i] = random.nextInt(alphabet);
+            for (int i = 0; i < patternLength; i++) pattern[i] = random.nextInt(alphabet);
+        }
+        // 按密度植入互不重叠的匹配
+        int planted = (int) (inputSize * density);
+        for (int k = 0; k < planted; k++) {
+            int at = random.nextInt(inputSize - patternLength + 1);
+            System.arraycopy(pattern, 0, values, at, patternLength);
+        }
+
+        byteInput = new byte[inputSize];
+        charInput = new char[inputSize];
+        shortInput = new short[inputSize];
+        intInput = values.clone();
+        longInput = new long[inputSize];
+        floatInput = new float[inputSize];
+        doubleInput = new double[inputSize];
+        booleanInput = new boolean[inputSize];
+        boxedInput = new Byte[inputSize];
+        for (int i = 0; i < inputSize; i++) {
+            int v = values[i];
+            byteInput[i] = (byte) v;
+            charInput[i] = (char) v;
+            shortInput[i] = (short) v;
+            longInput[i] = v;
+            floatInput[i] = v;
+            doubleInput[i] = v;
+            booleanInput[i] = (v & 1) != 0;
+            boxedInput[i] = (byte) v;
+        }
+        byteTarget = new byte[patternLength];
+        charTarget = new char[patternLength];
+        shortTarget = new short[patternLength];
+        intTarget = pattern.clone();
+        longTarget = new long[patternLength];
+        floatTarget = new float[patternLength];
+        doubleTarget = new double[patternLength];
+        booleanTarget = new boolean[patternLength];
+        boxedTarget = new Byte[patternLength];
+        for (int i = 0; i < patternLength; i++) {
+            int v = pattern[i];
+            byteTarget[i] = (byte) v;
+            charTarget[i] = (char) v;
+            shortTarget[i] = (short) v;
+            longTarget[i] = v;
+            floatTarget[i] = v;
+            doubleTarget[i] = v;
+            booleanTarget[i] = (v & 1) != 0;
+            boxedTarget[i] = (byte) v;
+        }
+        listInput = new ArrayList<>(Arrays.asList(boxedInput));
+        listTarget = new ArrayList<>(Arrays.asList(boxedTarget));
+        stringInput = new String(charInput);
+        stringTarget = new String(charTarget);
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.consumer.TwiceConsumerInt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.IntFunction;
+
+/**
+ * 通用元素类型的多模式匹配器（Aho-Corasick自动机），不可变且线程安全。
+ * <p>
+ * 与{@link KMP#setCompare}一样，元素是否相等由可替换的比较器决定，
+ * 比较器必须满足自反、对称和传递性，否则字典树的合并和失配指针都没有意义。
+ * 由于元素只能比较相等性，每个状态的子节点按顺序线性查找。
+ * </p>
+ *
+ * @param <E> 元素类型
+ * @author zhitron
+ */
+public final class AhoCorasick<E> {
+    /**
+     * 每个模式的长度
+     */
+    private final int[] lengths;
+    /**
+     * 每个状态的子节点元素
+     */
+    private final Object[][] keys;
+    /**
+     * 每个状态的子节点编号，与keys一一对应
+     */
+    private final int[][] children;
+    /**
+     * 每个状态的失配指针
+     */
+    private final int[] fail;
+    /**
+     * 每个状态上结束的第一个模式编号，没有则为-1
+     */
+    private final int[] terminal;
+    /**
+     * 每个状态沿失配指针能到达的最近的结束状态，没有则为0
+     */
+    private final int[] output;
+    /**
+     * 与某个模式内容相同的下一个模式编号，没有则为-1
+     */
+    private final int[] sameNext;
+    /**
+     * 元素比较器，第一个参数为输入元素，第二个参数为模式元素
+     */
+    private final BiPredicate<E, E> compare;
+
+    /**
+     * 编译一组模式，使用Objects::equals比较元素。
+     *
+     * @param patterns 模式列表
+     * @param <E>      元素类型
+     * @return 编译后的多模式匹配器
+     */
+    public static <E> AhoCorasick<E> compile(List<? extends List<E>> patterns) {
+        return compile(patterns, Objects::equals);
+    }
+
+    /**
+     * 使用指定的比较器编译一组模式，空模式永远不会被匹配。
+     *
+     * @param patterns 模式列表
+     * @param compare  元素比较器
+     * @param <E>      元素类型
+     * @return 编译后的多模式匹配器
+     */
+    public static <E> AhoCorasick<E> compile(List<? extends List<E>> patterns, BiPredicate<E, E> compare) {
+        return new AhoCorasick<>(patterns, Objects.requireNonNull(compare, "compare"));
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param patterns 模式列表
+     * @param compare  元素比较器
+     */
+    @SuppressWarnings("unchecked")
+    private AhoCorasick(List<? extends List<E>> patterns, BiPredicate<E, E> compare) {
+        int count = patterns.size();
+        int capacity = 1;
+        for (List<E> pattern : patterns) {
+            capacity += pattern == null ? 0 : pattern.size();
+        }
+        Object[][] keys = new Object[capacity][];
+        int[][] children = new int[capacity][];
+        int[] degree = new int[capacity];
+        int[] terminal = new int[capacity];
+        int[] lengths = new int[count];
+        int[] sameNext = new int[count];
+        Arrays.fill(keys, new Object[0]);
+        Arrays.fill(children, new int[0]);
+        Arrays.fill(terminal, -1);
+        Arrays.fill(sameNext, -1);
+
+        // 构建字典树
+        int states = 1;
+        for (int p = 0; p < count; p++) {
+            List<E> pattern = patterns.get(p);
+            int length = pattern == null ? 0 : pattern.size();
+            lengths[p] = length;
+            if (length == 0) continue;
+            int s = 0;
+            for (E e : pattern) {
+                int k = 0;
+                while (k < degree[s] && !compare.test(e, (E) keys[s][k])) k++;
+                if (k < degree[s]) {
+                    s = children[s][k];
+                    continue;
+                }
+                if (degree[s] == keys[s].length) {
+                    int grown = Math.max(2, degree[s] << 1);
+                    keys[s] = Arrays.copyOf(keys[s], grown);
+                    children[s] = Arrays.copyOf(children[s], grown);
+                }
+                keys[s][k] = e;
+                children[s][k] = states;
+                degree[s]++;
+                s = states++;
+            }
+            if (terminal[s] < 0) {
+                terminal[s] = p;
+            } else {
+                int q = terminal[s];
+                while (sameNext[q] >= 0) q = sameNext[q];
+                sameNext[q] = p;
+            }
+        }
+        for (int s = 0; s < states; s++) {
+            keys[s] = Arrays.copyOf(keys[s], degree[s]);
+            children[s] = Arrays.copyOf(children[s], degree[s]);
+        }
+
+        this.compare = compare;
+        this.lengths = lengths;
+        this.keys = Arrays.copyOf(keys, states);
+        this.children = Arrays.copyOf(children, states);
+        this.terminal = Arrays.copyOf(terminal, states);
+        this.sameNext = sameNext;
+        this.fail = new int[states];
+        this.output = new int[states];
+
+        // 按广度优先顺序计算失配指针和输出链
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int s = queue[head++];
+            Object[] sk = this.keys[s];
+            int[] sc = this.children[s];
+            for (int k = 0; k < sk.length; k++) {
+                int t = sc[k];
+                int f = s == 0 ? 0 : step(fail[s], (E) sk[k]);
+                fail[t] = f;
+                output[t] = this.terminal[f] >= 0 ? f : output[f];
+                queue[tail++] = t;
+            }
+        }
+    }
+
+    /**
+     * 从指定状态读入一个元素后到达的状态
+     *
+     * @param s 当前状态
+     * @param e 输入元素
+     * @return 下一个状态
+     */
+    @SuppressWarnings("unchecked")
+    private int step(int s, E e) {
+        while (true) {
+            Object[] sk = keys[s];
+            for (int k = 0; k < sk.length; k++) {
+                if (compare.test(e, (E) sk[k])) return children[s][k];
+            }
+            if (s == 0) return 0;
+            s = fail[s];
+        }
+    }
+
+    /**
+     * 获取模式的数量
+     *
+     * @return 模式的数量
+     */
+    public int patternCount() {
+        return lengths.length;
+    }
+
+    /**
+     * 把所有模式在列表中的每次出现传给回调，允许重叠。
+     *
+     * @param input  要搜索的列表
+     * @param action 接收模式编号和匹配起始索引的回调
+     * @return 匹配的总次数
+     */
+    public int forEach(List<E> input, TwiceConsumerInt action) {
+        if (input == null) return 0;
+        return this.forEach(input::get, input.size(), 0, input.size(), action);
+    }
+
+    /**
+     * 把所有模式在输入序列指定范围内的每次出现传给回调，允许重叠。
+     * 回调按匹配结束位置升序调用，结束位置相同时较长的模式先报告。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收模式编号和匹配起始索引的回调，为null时只计数
+     * @return 匹配的总次数
+     */
+    public int forEach(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, TwiceConsumerInt action) {
+        if (startInclusive >= endExclusive) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+
+        int[] terminal = this.terminal;
+        int[] output = this.output;
+        int s = 0, count = 0;
+        for (int i = startInclusive; i < endExclusive; i++) {
+            s = step(s, inputAccessor.apply(i));
+            for (int t = terminal[s] >= 0 ? s : output[s]; t > 0; t = output[t]) {
+                for (int p = terminal[t]; p >= 0; p = sameNext[p]) {
+                    count++;
+                    if (action != null) action.accept(p, i + 1 - lengths[p]);
+                }
+            }
+        }
+        return count;
+    }
+}
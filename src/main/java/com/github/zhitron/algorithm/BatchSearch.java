@@ -0,0 +1,94 @@
+package com.github.zhitron.algorithm;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 批量查找的实现，用同一个预编译的模式依次查找一批输入。
+ * <p>
+ * 每个输入的查找结果直接写入调用者提供的数组，整个批次只创建一次查找函数，
+ * 不会为单个输入分配任何对象；指定线程池时按输入的编号切分成若干段并行处理。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class BatchSearch {
+    /**
+     * 每段输入的最小数量，批次小于该值时直接顺序查找
+     */
+    static final int MIN_BATCH = 64;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private BatchSearch() {
+    }
+
+    /**
+     * 批量查找每个输入中第一次出现的位置。
+     *
+     * @param size    输入的数量
+     * @param search  根据输入编号执行查找的函数
+     * @param results 接收结果的数组
+     * @param pool    线程池，为null时顺序查找
+     * @return 包含模式的输入数量
+     */
+    static int indexOfEach(int size, IntUnaryOperator search, int[] results, ForkJoinPool pool) {
+        if (results.length < size) {
+            throw new IllegalArgumentException("results.length < inputs: " + results.length + " < " + size);
+        }
+        if (pool == null || size <= MIN_BATCH) return run(search, results, 0, size);
+        int segment = Math.max(MIN_BATCH, size / (pool.getParallelism() << 2) + 1);
+        return pool.invoke(new EachTask(search, results, 0, size, segment));
+    }
+
+    /**
+     * 顺序查找指定编号范围内的输入
+     *
+     * @param search  根据输入编号执行查找的函数
+     * @param results 接收结果的数组
+     * @param from    起始编号（包含）
+     * @param to      结束编号（不包含）
+     * @return 包含模式的输入数量
+     */
+    private static int run(IntUnaryOperator search, int[] results, int from, int to) {
+        int found = 0;
+        for (int k = from; k < to; k++) {
+            int index = search.applyAsInt(k);
+            results[k] = index;
+            if (index >= 0) found++;
+        }
+        return found;
+    }
+
+    /**
+     * 批量查找的分段任务
+     */
+    private static final class EachTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final IntUnaryOperator search;
+        private final int[] results;
+        private final int from;
+        private final int to;
+        private final int segment;
+
+        EachTask(IntUnaryOperator search, int[] results, int from, int to, int segment) {
+            this.search = search;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= segment) return run(search, results, from, to);
+            int mid = (from + to) >>> 1;
+            EachTask right = new EachTask(search, results, mid, to, segment);
+            right.fork();
+            int left = new EachTask(search, results, from, mid, segment).compute();
+            return left + right.join();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.consumer.TwiceConsumerInt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 针对byte数组的多模式匹配器（Aho-Corasick自动机），不可变且线程安全。
+ * <p>
+ * 它把KMP的next数组推广到由所有模式组成的字典树上：每个状态的失配指针指向
+ * 同时是其后缀的最长前缀状态，这与{@link KMP#generateNext}在单个模式上的含义相同。
+ * 对byte这种只有256个取值的字母表，编译时会把失配指针展开成完整的状态转移表，
+ * 因此查找时每个输入字节只需要一次查表，所有模式在一次O(n + 匹配数)的扫描中完成匹配。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class ByteAhoCorasick {
+    /**
+     * 字母表大小
+     */
+    private static final int ALPHABET = 256;
+    /**
+     * 状态数量的上限，保证状态转移表的长度不超过int的范围
+     */
+    static final int MAX_STATES = Integer.MAX_VALUE / ALPHABET;
+    /**
+     * 状态转移表初始最多容纳的状态数量，之后随着状态的创建按需扩容
+     */
+    private static final int INITIAL_STATES = 1024;
+    /**
+     * 每个模式的长度
+     */
+    private final int[] lengths;
+    /**
+     * 状态转移表，下标为 状态 * 256 + 无符号字节值
+     */
+    private final int[] delta;
+    /**
+     * 每个状态上结束的第一个模式编号，没有则为-1
+     */
+    private final int[] terminal;
+    /**
+     * 每个状态沿失配指针能到达的最近的结束状态，没有则为0
+     */
+    private final int[] output;
+    /**
+     * 与某个模式内容相同的下一个模式编号，没有则为-1
+     */
+    private final int[] sameNext;
+
+    /**
+     * 编译一组模式，空模式永远不会被匹配。
+     *
+     * @param patterns 模式数组
+     * @return 编译后的多模式匹配器
+     */
+    public static ByteAhoCorasick compile(byte[]... patterns) {
+        return new ByteAhoCorasick(patterns);
+    }
+
+    /**
+     * 编译一组模式，空模式永远不会被匹配。
+     *
+     * @param patterns 模式列表
+     * @return 编译后的多模式匹配器
+     */
+    public static ByteAhoCorasick compile(List<byte[]> patterns) {
+        return new ByteAhoCorasick(patterns.toArray(new byte[0][]));
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param patterns 模式数组
+     */
+    private ByteAhoCorasick(byte[][] patterns) {
+        int count = patterns.length;
+        long total = 1;
+        for (byte[] pattern : patterns) {
+            total += pattern == null ? 0 : pattern.length;
+        }
+        // 状态数量不超过所有模式的长度之和加一，但共享前缀时通常少得多，因此只预留较小的空间，按需扩容
+        int capacity = (int) Math.min(total, INITIAL_STATES);
+        int[] delta = new int[capacity * ALPHABET];
+        int[] terminal = new int[capacity];
+        int[] lengths = new int[count];
+        int[] sameNext = new int[count];
+        Arrays.fill(delta, -1);
+        Arrays.fill(terminal, -1);
+        Arrays.fill(sameNext, -1);
+
+        // 构建字典树
+        int states = 1;
+        for (int p = 0; p < count; p++) {
+            byte[] pattern = patterns[p];
+            int length = pattern == null ? 0 : pattern.length;
+            lengths[p] = length;
+            if (length == 0) continue;
+            int s = 0;
+            for (byte b : pattern) {
+                int slot = s * ALPHABET + (b & 0xFF);
+                if (delta[slot] < 0) {
+                    if (states == capacity) {
+                        int grown = grow(capacity);
+                        delta = Arrays.copyOf(delta, grown * ALPHABET);
+                        terminal = Arrays.copyOf(terminal, grown);
+                        Arrays.fill(delta, capacity * ALPHABET, grown * ALPHABET, -1);
+                        Arrays.fill(terminal, capacity, grown, -1);
+                        capacity = grown;
+                    }
+                    delta[slot] = states++;
+                }
+                s = delta[slot];
+            }
+            // 内容相同的模式挂在同一个状态上，按编号从小到大串起来
+            if (terminal[s] < 0) {
+                terminal[s] = p;
+            } else {
+                int q = terminal[s];
+                while (sameNext[q] >= 0) q = sameNext[q];
+                sameNext[q] = p;
+            }
+        }
+
+        // 按广度优先顺序计算失配指针，并把缺失的转移展开为失配状态的转移
+        int[] fail = new int[states];
+        int[] output = new int[states];
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        for (int c = 0; c < ALPHABET; c++) {
+            int t = delta[c];
+            if (t < 0) {
+                delta[c] = 0;
+            } else {
+                fail[t] = 0;
+                queue[tail++] = t;
+            }
+        }
+        while (head < tail) {
+            int s = queue[head++];
+            int f = fail[s];
+            output[s] = terminal[f] >= 0 ? f : output[f];
+            for (int c = 0; c < ALPHABET; c++) {
+                int slot = s * ALPHABET + c;
+                int t = delta[slot];
+                if (t < 0) {
+                    delta[slot] = delta[f * ALPHABET + c];
+                } else {
+                    fail[t] = delta[f * ALPHABET + c];
+                    queue[tail++] = t;
+                }
+            }
+        }
+
+        this.lengths = lengths;
+        this.delta = Arrays.copyOf(delta, states * ALPHABET);
+        this.terminal = Arrays.copyOf(terminal, states);
+        this.output = output;
+        this.sameNext = sameNext;
+    }
+
+    /**
+     * 计算状态转移表扩容后能容纳的状态数量，按两倍增长并且不超过{@link #MAX_STATES}
+     *
+     * @param capacity 当前能容纳的状态数量
+     * @return 扩容后能容纳的状态数量
+     * @throws IllegalArgumentException 已经达到状态数量的上限时抛出
+     */
+    static int grow(int capacity) {
+        if (capacity >= MAX_STATES) {
+            throw new IllegalArgumentException("too many states: patterns need more than " + MAX_STATES + " trie states");
+        }
+        return (int) Math.min((long) capacity * 2, MAX_STATES);
+    }
+
+    /**
+     * 获取模式的数量
+     *
+     * @return 模式的数量
+     */
+    public int patternCount() {
+        return lengths.length;
+    }
+
+    /**
+     * 判断输入中是否包含任意一个模式。
+     *
+     * @param input 要搜索的数组
+     * @return 包含任意模式时返回true
+     */
+    public boolean containsAny(byte[] input) {
+        if (input == null) return false;
+        int[] delta = this.delta;
+        int[] terminal = this.terminal;
+        int[] output = this.output;
+        int s = 0;
+        for (byte b : input) {
+            s = delta[(s << 8) | (b & 0xFF)];
+            if (terminal[s] >= 0 || output[s] > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 统计所有模式在输入中出现的总次数，允许重叠。
+     *
+     * @param input 要搜索的数组
+     * @return 匹配的总次数
+     */
+    public int count(byte[] input) {
+        return this.scan(input, 0, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * 把所有模式在输入中的每次出现传给回调，允许重叠。
+     *
+     * @param input  要搜索的数组
+     * @param action 接收模式编号和匹配起始索引的回调
+     * @return 匹配的总次数
+     */
+    public int forEach(byte[] input, TwiceConsumerInt action) {
+        return this.scan(input, 0, Integer.MAX_VALUE, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 把所有模式在输入指定范围内的每次出现传给回调，允许重叠。
+     * 回调按匹配结束位置升序调用，结束位置相同时较长的模式先报告。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收模式编号和匹配起始索引的回调
+     * @return 匹配的总次数
+     */
+    public int forEach(byte[] input, int startInclusive, int endExclusive, TwiceConsumerInt action) {
+        return this.scan(input, startInclusive, endExclusive, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 扫描指定范围内所有模式的匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收模式编号和匹配起始索引的回调，为null时只计数
+     * @return 匹配的总次数
+     */
+    private int scan(byte[] input, int startInclusive, int endExclusive, TwiceConsumerInt action) {
+        if (input == null || startInclusive >= endExclusive) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > input.length) endExclusive = input.length;
+
+        int[] delta = this.delta;
+        int[] terminal = this.terminal;
+        int[] output = this.output;
+        int s = 0, count = 0;
+        for (int i = startInclusive; i < endExclusive; i++) {
+            s = delta[(s << 8) | (input[i] & 0xFF)];
+            // 沿输出链报告所有在当前位置结束的模式
+            for (int t = terminal[s] >= 0 ? s : output[s]; t > 0; t = output[t]) {
+                for (int p = terminal[t]; p >= 0; p = sameNext[p]) {
+                    count++;
+                    if (action != null) action.accept(p, i + 1 - lengths[p]);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,1185 @@
+package com.github.zhitron.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 针对byte数组特化的预编译KMP模式，不可变且线程安全。
+ * <p>
+ * 查找过程直接读取数组元素进行比较，不会产生装箱和额外的对象分配。
+ * </p>
+ * <p>
+ * 正向查找在尚未匹配任何元素时，先用一个紧凑的循环跳到下一个等于模式首元素的位置，再交给next数组继续匹配。
+ * 输入中大部分位置都不可能成为匹配起点时，这样可以省去大量的状态转移；
+ * 每个位置最多被预过滤检查一次，最坏情况下的时间复杂度仍然是O(n + m)。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class ByteKMP {
+    /**
+     * 模式序列的快照
+     */
+    final byte[] target;
+    /**
+     * 预先计算的next数组，长度为模式长度加一，按模式长度以{@link NextTables}的紧凑形式存放；
+     * 绑定了查找统计时为int数组
+     */
+    final Object next;
+    /**
+     * 反向查找使用的反转模式的next数组，存放形式与next相同
+     */
+    final Object prev;
+    /**
+     * 可选的DFA转移表，每行256列，为null时使用next数组查找
+     */
+    final int[] dfa;
+    /**
+     * 可选的查找统计，为null时不统计
+     */
+    final KMPMetrics metrics;
+
+    /**
+     * 编译一个byte模式，编译时会复制模式数组。
+     *
+     * @param target 模式数组
+     * @return 编译后的模式
+     */
+    public static ByteKMP compile(byte[] target) {
+        return new ByteKMP(target == null ? new byte[0] : target.clone());
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param target 模式序列的快照
+     */
+    private ByteKMP(byte[] target) {
+        this.target = target;
+        this.next = NextTables.compact(KMPCache.shared().next(target, null, 0, target.length, (i, j) -> target[i] == target[j]));
+        this.prev = NextTables.compact(KMPCache.shared().next(target, null, KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]));
+        this.dfa = null;
+        this.metrics = null;
+    }
+
+    /**
+     * 私有构造函数，复用已有模式的快照并替换next数组
+     *
+     * @param base    已编译的模式
+     * @param next    正向查找使用的next数组，int数组或者紧凑形式
+     * @param prev    反向查找使用的next数组，int数组或者紧凑形式
+     * @param dfa     DFA转移表
+     * @param metrics 查找统计
+     */
+    private ByteKMP(ByteKMP base, Object next, Object prev, int[] dfa, KMPMetrics metrics) {
+        this.target = base.target;
+        // 带计数的查找循环只接受int数组，其余情况按模式长度压缩
+        this.next = metrics != null ? NextTables.expand(next) : next instanceof int[] ? NextTables.compact((int[]) next) : next;
+        this.prev = metrics != null ? NextTables.expand(prev) : prev instanceof int[] ? NextTables.compact((int[]) prev) : prev;
+        this.dfa = dfa;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取模式序列的长度
+     *
+     * @return 模式序列的长度
+     */
+    public int length() {
+        return target.length;
+    }
+
+    /**
+     * 分析模式序列的周期和边界
+     *
+     * @return 分析结果
+     */
+    public Periodicity periodicity() {
+        return Periodicity.of(target);
+    }
+
+    /**
+     * 使用{@link KMP#generateOptimizedNext}生成的优化next数组进行正向和反向查找。
+     * 查找结果不变，对于重复度较高的模式可以减少失配时的比较次数。
+     *
+     * @return 使用优化next数组的新模式
+     */
+    public ByteKMP withOptimizedNext() {
+        byte[] target = this.target;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] next = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED, target.length, (i, j) -> target[i] == target[j]);
+        int[] prev = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED | KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return new ByteKMP(this, next, prev, dfa, metrics);
+    }
+
+    /**
+     * 绑定查找统计，返回的新模式共享当前模式的快照和next数组。
+     * 绑定后的模式使用带计数的查找循环，详见{@link KMPMetrics}。
+     *
+     * @param metrics 查找统计，为null时返回不统计的模式
+     * @return 绑定了查找统计的新模式
+     */
+    public ByteKMP withMetrics(KMPMetrics metrics) {
+        return metrics == this.metrics ? this : new ByteKMP(this, next, prev, dfa, metrics);
+    }
+
+    /**
+     * 使用默认的内存预算{@link KMP#DEFAULT_DFA_BUDGET}启用DFA匹配模式。
+     *
+     * @return 启用了DFA模式的模式；超出预算时返回当前模式
+     * @see #withDfa(long)
+     */
+    public ByteKMP withDfa() {
+        return this.withDfa(KMP.DEFAULT_DFA_BUDGET);
+    }
+
+    /**
+     * 启用DFA匹配模式。
+     * 转移表为每个状态展开全部256个字节值，正向查找时每个输入字节只查一次表，没有回退循环和数据相关的分支。
+     * 转移表占用(模式长度 + 1) × 256 × 4个字节，超过maxBytes时不会构建，继续使用next数组查找。
+     *
+     * @param maxBytes 转移表允许占用的最大字节数
+     * @return 启用了DFA模式的新模式；已经启用或超出预算时返回当前模式
+     */
+    public ByteKMP withDfa(long maxBytes) {
+        if (dfa != null) return this;
+        byte[] target = this.target;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] dfa = KMPAutomaton.build(target.length, 256, (j) -> target[j] & 0xff, maxBytes);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return dfa == null ? this : new ByteKMP(this, next, prev, dfa, metrics);
+    }
+
+    /**
+     * 判断是否启用了DFA匹配模式
+     *
+     * @return 启用时返回true
+     */
+    public boolean hasDfa() {
+        return dfa != null;
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(byte[] input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始查找模式在数组中第一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(byte[] input, int offset) {
+        return this.indexOf(input, offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 批量查找模式在每个数组中第一次出现的位置，第k个输入的结果写入{@code results[k]}。
+     * 整个批次共享同一份预编译的next数组，除了一个查找函数之外不会为单个输入分配任何对象。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<byte[]> inputs, int[] results) {
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, null);
+    }
+
+    /**
+     * 使用指定的线程池批量查找模式在每个数组中第一次出现的位置，结果与{@link #indexOfEach(List, int[])}一致。
+     * 输入按编号切分成若干段并行查找，输入过少时直接在当前线程中完成。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @param pool    执行查找的线程池
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<byte[]> inputs, int[] results, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, pool);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(byte[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.indexOf(NextTables.expand(next), valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            // 每个输入字节只查一次转移表
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                j = dfa[(j << 8) | (input[i] & 0xff)];
+                if (j == valuesLen) return i + 1 - valuesLen;
+            }
+            return KMP.NOT_FOUND;
+        }
+
+        Object next = this.next;
+        if (next instanceof byte[]) return this.search(input, startInclusive, endExclusive, (byte[]) next);
+        if (next instanceof char[]) return this.search(input, startInclusive, endExclusive, (char[]) next);
+        return this.search(input, startInclusive, endExclusive, (int[]) next);
+    }
+
+    /**
+     * 使用1字节next数组的正向查找循环。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param next           每个元素存放next值加一的next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int search(byte[] input, int startInclusive, int endExclusive, byte[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == 0) {
+                // 预过滤：尚未匹配任何元素时，直接跳过不可能成为匹配起点的位置
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = (next[j] & 0xff) - 1;
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 使用2字节next数组的正向查找循环，与{@link #search(byte[], int, int, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param next           每个元素存放next值加一的next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int search(byte[] input, int startInclusive, int endExclusive, char[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == 0) {
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j] - 1;
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 使用int类型next数组的正向查找循环，与{@link #search(byte[], int, int, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param next           next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int search(byte[] input, int startInclusive, int endExclusive, int[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == 0) {
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(byte[] input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始向前查找模式在数组中最后一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(byte[] input, int offset) {
+        return this.lastIndexOf(input, 0, offset == Integer.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(byte[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.lastIndexOf(NextTables.expand(prev), valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive);
+        }
+
+        Object prev = this.prev;
+        if (prev instanceof byte[]) return this.searchLast(input, startInclusive, endExclusive, (byte[]) prev);
+        if (prev instanceof char[]) return this.searchLast(input, startInclusive, endExclusive, (char[]) prev);
+        return this.searchLast(input, startInclusive, endExclusive, (int[]) prev);
+    }
+
+    /**
+     * 使用1字节next数组的反向查找循环。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param prev           每个元素存放next值加一的反转模式的next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int searchLast(byte[] input, int startInclusive, int endExclusive, byte[] prev) {
+        byte[] target = this.target;
+        // 从右向左扫描，j为已经匹配的模式后缀长度，失配时按反转模式的next数组回退
+        int last = target.length - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j <= last) {
+            if (j == -1 || input[i] == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = (prev[j] & 0xff) - 1;
+            }
+        }
+        return j > last ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 使用2字节next数组的反向查找循环，与{@link #searchLast(byte[], int, int, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param prev           每个元素存放next值加一的反转模式的next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int searchLast(byte[] input, int startInclusive, int endExclusive, char[] prev) {
+        byte[] target = this.target;
+        int last = target.length - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j <= last) {
+            if (j == -1 || input[i] == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j] - 1;
+            }
+        }
+        return j > last ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 使用int类型next数组的反向查找循环，与{@link #searchLast(byte[], int, int, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param prev           反转模式的next数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int searchLast(byte[] input, int startInclusive, int endExclusive, int[] prev) {
+        byte[] target = this.target;
+        int last = target.length - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j <= last) {
+            if (j == -1 || input[i] == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j > last ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(byte[] input, boolean overlapping) {
+        return this.findAll(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中出现的所有位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(byte[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(byte[] input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 统计模式在数组指定范围内出现的次数。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(byte[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(input, startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在数组中出现的每个位置传给回调。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(byte[] input, boolean overlapping, IntConsumer action) {
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把模式在数组指定范围内出现的每个位置传给回调。
+     * 整个过程只对输入做一次线性扫描，找到一个匹配后从当前自动机状态继续匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在数组中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(byte[] input, boolean overlapping) {
+        return this.matches(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 获取模式在数组指定范围内出现的所有位置组成的流。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，不允许重叠时只能顺序查找。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(byte[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = input == null ? 0 : input.length;
+        return MatchSpliterator.stream(this.bind(input), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        if (metrics != null) {
+            return metrics.scan(NextTables.expand(next), valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            int count = 0;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                j = dfa[(j << 8) | (input[i] & 0xff)];
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - valuesLen);
+                    // 转移表的最后一行已经等价于重叠匹配的继续状态
+                    if (!overlapping) j = 0;
+                }
+            }
+            return count;
+        }
+
+        Object next = this.next;
+        if (next instanceof byte[]) return this.scan(input, startInclusive, endExclusive, overlapping, action, (byte[]) next);
+        if (next instanceof char[]) return this.scan(input, startInclusive, endExclusive, overlapping, action, (char[]) next);
+        return this.scan(input, startInclusive, endExclusive, overlapping, action, (int[]) next);
+    }
+
+    /**
+     * 使用1字节next数组的扫描循环。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @param next           每个元素存放next值加一的next数组
+     * @return 匹配的次数
+     */
+    private int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action, byte[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == 0) {
+                // 预过滤：尚未匹配任何元素时，直接跳过不可能成为匹配起点的位置
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? (next[j] & 0xff) - 1 : 0;
+                }
+            } else {
+                j = (next[j] & 0xff) - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 使用2字节next数组的扫描循环，与{@link #scan(byte[], int, int, boolean, IntConsumer, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @param next           每个元素存放next值加一的next数组
+     * @return 匹配的次数
+     */
+    private int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action, char[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == 0) {
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? next[j] - 1 : 0;
+                }
+            } else {
+                j = next[j] - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 使用int类型next数组的扫描循环，与{@link #scan(byte[], int, int, boolean, IntConsumer, byte[])}相同。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含），已经规范化
+     * @param endExclusive   结束查找位置（不包含），已经规范化
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @param next           next数组
+     * @return 匹配的次数
+     */
+    private int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action, int[] next) {
+        byte[] target = this.target;
+        int valuesLen = target.length;
+        byte first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == 0) {
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在缓冲区的指定范围内查找模式第一次出现的位置。
+     * 下标使用缓冲区的绝对位置，输入长度为缓冲区的limit，读取不会改变缓冲区的position，
+     * 因此同样适用于直接缓冲区和内存映射缓冲区。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(ByteBuffer input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.limit();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.indexOf(NextTables.expand(next), valuesLen, (a, b) -> input.get(a) == target[b], startInclusive, endExclusive);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            // 每个输入字节只查一次转移表
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                j = dfa[(j << 8) | (input.get(i) & 0xff)];
+                if (j == valuesLen) return i + 1 - valuesLen;
+            }
+            return KMP.NOT_FOUND;
+        }
+
+        byte[] target = this.target;
+        Object next = this.next;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || input.get(i) == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = NextTables.get(next, j);
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 在缓冲区的指定范围内查找模式最后一次出现的位置。
+     * 下标使用缓冲区的绝对位置，输入长度为缓冲区的limit。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(ByteBuffer input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.limit();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.lastIndexOf(NextTables.expand(prev), valuesLen, (a, b) -> input.get(a) == target[b], startInclusive, endExclusive);
+        }
+
+        byte[] target = this.target;
+        Object prev = this.prev;
+        // 从右向左扫描，j为已经匹配的模式后缀长度，失配时按反转模式的next数组回退
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || input.get(i) == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = NextTables.get(prev, j);
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 按升序把模式在缓冲区指定范围内出现的每个位置传给回调。
+     * 下标使用缓冲区的绝对位置，输入长度为缓冲区的limit。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(ByteBuffer input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在缓冲区中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的缓冲区
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(ByteBuffer input, boolean overlapping) {
+        return this.matches(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 获取模式在缓冲区指定范围内出现的所有位置组成的流。
+     * 下标使用缓冲区的绝对位置，输入长度为缓冲区的limit。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，不允许重叠时只能顺序查找。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(ByteBuffer input, int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = input == null ? 0 : input.limit();
+        return MatchSpliterator.stream(this.bind(input), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描缓冲区指定范围内的所有匹配。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(ByteBuffer input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.limit();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        if (metrics != null) {
+            return metrics.scan(NextTables.expand(next), valuesLen, (a, b) -> input.get(a) == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            int count = 0;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                j = dfa[(j << 8) | (input.get(i) & 0xff)];
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - valuesLen);
+                    // 转移表的最后一行已经等价于重叠匹配的继续状态
+                    if (!overlapping) j = 0;
+                }
+            }
+            return count;
+        }
+
+        byte[] target = this.target;
+        Object next = this.next;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || input.get(i) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? NextTables.get(next, j) : 0;
+                }
+            } else {
+                j = NextTables.get(next, j);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 以模式为分隔符切分数组，分隔符之间不允许重叠。
+     * 与String.split(regex, -1)一样保留开头和末尾的空片段；没有匹配或者模式为空时，返回只包含输入副本的数组。
+     *
+     * @param input 要切分的数组，为null时视为空数组
+     * @return 切分得到的片段，数量为匹配数量加一
+     */
+    public byte[][] split(byte[] input) {
+        byte[] values = input == null ? new byte[0] : input;
+        int[] positions = this.findAll(values, false);
+        byte[][] pieces = new byte[positions.length + 1][];
+        int from = 0;
+        for (int k = 0; k < positions.length; k++) {
+            pieces[k] = Arrays.copyOfRange(values, from, positions[k]);
+            from = positions[k] + target.length;
+        }
+        pieces[positions.length] = Arrays.copyOfRange(values, from, values.length);
+        return pieces;
+    }
+
+    /**
+     * 以模式为分隔符切分缓冲区，分隔符之间不允许重叠。
+     * 切分范围为缓冲区的[0, limit)，返回的片段是与输入共享内容的视图，不会复制数据，也不会改变输入的position。
+     *
+     * @param input 要切分的缓冲区，为null时视为空缓冲区
+     * @return 切分得到的片段，数量为匹配数量加一
+     */
+    public ByteBuffer[] split(ByteBuffer input) {
+        ByteBuffer values = input == null ? ByteBuffer.allocate(0) : input;
+        MatchList matches = new MatchList();
+        this.scan(values, 0, values.limit(), false, matches);
+        int[] positions = matches.toArray();
+        ByteBuffer[] pieces = new ByteBuffer[positions.length + 1];
+        int from = 0;
+        for (int k = 0; k < positions.length; k++) {
+            pieces[k] = slice(values, from, positions[k]);
+            from = positions[k] + target.length;
+        }
+        pieces[positions.length] = slice(values, from, values.limit());
+        return pieces;
+    }
+
+    /**
+     * 获取缓冲区指定范围的视图
+     *
+     * @param input 缓冲区
+     * @param from  起始位置（包含）
+     * @param to    结束位置（不包含）
+     * @return 共享内容的视图
+     */
+    private static ByteBuffer slice(ByteBuffer input, int from, int to) {
+        ByteBuffer view = input.duplicate();
+        view.limit(to);
+        view.position(from);
+        return view.slice();
+    }
+
+    /**
+     * 把数组中模式的每次出现替换成指定内容，匹配之间不允许重叠。
+     * 替换内容与模式等长时边查找边写入按输入长度分配的结果；否则先查找出所有匹配，再按最终长度一次分配并写入。
+     *
+     * @param input       输入数组，为null时视为空数组
+     * @param replacement 替换内容
+     * @return 替换后的新数组，输入不会被修改
+     */
+    public byte[] replaceAll(byte[] input, byte[] replacement) {
+        Objects.requireNonNull(replacement, "replacement");
+        byte[] values = input == null ? new byte[0] : input;
+        int valuesLen = target.length;
+        if (replacement.length == valuesLen) {
+            ByteBuffer output = ByteBuffer.allocate(values.length);
+            this.replaceAll(values, replacement, output);
+            return output.array();
+        }
+        int[] positions = this.findAll(values, false);
+        byte[] output = new byte[Rewriter.replacedLength(values.length, valuesLen, replacement.length, positions.length)];
+        Rewriter rewriter = Rewriter.of(values, valuesLen, replacement, (byte) 0, ByteBuffer.wrap(output));
+        for (int position : positions) rewriter.accept(position);
+        rewriter.finish(values.length);
+        return output;
+    }
+
+    /**
+     * 把数组中模式的每次出现替换成指定内容，结果从缓冲区的当前position开始写入。
+     * 整个过程只对输入做一次线性扫描，每找到一个匹配就写出它前面的元素和替换内容。
+     *
+     * @param input       输入数组，为null时视为空数组
+     * @param replacement 替换内容
+     * @param sink        接收结果的缓冲区
+     * @return 替换的次数
+     * @throws java.nio.BufferOverflowException 缓冲区剩余空间不足时抛出，此时缓冲区中已经写入了部分结果
+     */
+    public int replaceAll(byte[] input, byte[] replacement, ByteBuffer sink) {
+        Objects.requireNonNull(replacement, "replacement");
+        Objects.requireNonNull(sink, "sink");
+        byte[] values = input == null ? new byte[0] : input;
+        Rewriter rewriter = Rewriter.of(values, target.length, replacement, (byte) 0, sink);
+        this.scan(values, 0, values.length, false, rewriter);
+        return rewriter.finish(values.length);
+    }
+
+    /**
+     * 用掩码覆盖数组中模式出现的每个元素，相互重叠的匹配覆盖的元素同样被掩盖，结果与输入等长。
+     *
+     * @param input 输入数组，为null时视为空数组
+     * @param mask  掩码
+     * @return 掩盖后的新数组，输入不会被修改
+     */
+    public byte[] redact(byte[] input, byte mask) {
+        byte[] values = input == null ? new byte[0] : input;
+        ByteBuffer output = ByteBuffer.allocate(values.length);
+        this.redact(values, mask, output);
+        return output.array();
+    }
+
+    /**
+     * 用掩码覆盖数组中模式出现的每个元素，结果从缓冲区的当前position开始写入，共写入与输入等长的内容。
+     * 整个过程只对输入做一次线性扫描。
+     *
+     * @param input 输入数组，为null时视为空数组
+     * @param mask  掩码
+     * @param sink  接收结果的缓冲区
+     * @return 匹配的次数，匹配之间可以相互重叠
+     * @throws java.nio.BufferOverflowException 缓冲区剩余空间不足时抛出，此时缓冲区中已经写入了部分结果
+     */
+    public int redact(byte[] input, byte mask, ByteBuffer sink) {
+        Objects.requireNonNull(sink, "sink");
+        byte[] values = input == null ? new byte[0] : input;
+        Rewriter rewriter = Rewriter.of(values, target.length, null, mask, sink);
+        this.scan(values, 0, values.length, true, rewriter);
+        return rewriter.finish(values.length);
+    }
+
+    /**
+     * 查找数组中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的数组
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(byte[] input, int maxMismatches) {
+        return this.findAllApproximate(input, 0, Integer.MAX_VALUE, maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找数组中与模式相比不同元素不超过maxMismatches个的所有位置。
+     * 查找先逐个位置比较，不同元素超过maxMismatches个时立即放弃；元素重复较多使得比较次数偏高时，
+     * 改用位并行的计数自动机，每个元素的代价只与模式长度和maxMismatches有关。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(byte[] input, int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(byte[] input, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        byte[] target = this.target;
+        if (maxMismatches == 0) return this.scan(input, startInclusive, endExclusive, true, action);
+        long[] keys = new long[valuesLen];
+        for (int j = 0; j < valuesLen; j++) keys[j] = target[j];
+        return ShiftAdd.scan(keys, maxMismatches, startInclusive, endExclusive, (automaton, from, to, rows) -> {
+            for (int i = from; i < to; i++) rows[i - from] = automaton.row(input[i]);
+        }, action);
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param input          要搜索的缓冲区
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(ByteBuffer input, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.limit();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        byte[] target = this.target;
+        if (maxMismatches == 0) return this.scan(input, startInclusive, endExclusive, true, action);
+        long[] keys = new long[valuesLen];
+        for (int j = 0; j < valuesLen; j++) keys[j] = target[j];
+        return ShiftAdd.scan(keys, maxMismatches, startInclusive, endExclusive, (automaton, from, to, rows) -> {
+            for (int i = from; i < to; i++) rows[i - from] = automaton.row(input.get(i));
+        }, action);
+    }
+
+    /**
+     * 把当前模式绑定到指定的输入数组上，供{@link KMP}的工厂方法使用
+     *
+     * @param input 要搜索的数组
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(byte[] input) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return ByteKMP.this.indexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return ByteKMP.this.lastIndexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return ByteKMP.this.scan(input, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return ByteKMP.this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+
+    /**
+     * 把当前模式绑定到指定的缓冲区上，供{@link KMP}的工厂方法使用
+     *
+     * @param input 要搜索的缓冲区
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(ByteBuffer input) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return ByteKMP.this.indexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return ByteKMP.this.lastIndexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return ByteKMP.this.scan(input, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return ByteKMP.this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+}
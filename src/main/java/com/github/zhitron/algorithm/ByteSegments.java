@@ -0,0 +1,184 @@
+package com.github.zhitron.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * 在首尾相接的多个字节缓冲区上使用long下标查找{@link ByteKMP}模式。
+ * <p>
+ * 每个缓冲区按绝对位置读取[0, limit)的内容，与{@link ByteKMP}对缓冲区的约定一致，各段的limit在创建时确定。
+ * 匹配状态在相邻的段之间直接延续，跨越段边界的匹配（包括跨越多个比模式还短的段）不需要复制数据，
+ * 每个字节只读取一次，最坏时间复杂度与在连续数组上查找相同。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class ByteSegments implements LongRangeSearcher {
+    /**
+     * 编译后的模式
+     */
+    private final ByteKMP pattern;
+    /**
+     * 展开成int数组的next数组
+     */
+    private final int[] next;
+    /**
+     * 展开成int数组的反转模式的next数组
+     */
+    private final int[] prev;
+    /**
+     * 各个段
+     */
+    private final ByteBuffer[] segments;
+    /**
+     * 每个段在整个输入中的起始位置，最后一个元素是输入的总长度
+     */
+    private final long[] starts;
+
+    /**
+     * 创建分段输入上的查找器
+     *
+     * @param segments 各个段，为null时视为空输入
+     * @param pattern  编译后的模式
+     */
+    ByteSegments(ByteBuffer[] segments, ByteKMP pattern) {
+        this.pattern = pattern;
+        this.next = NextTables.expand(pattern.next);
+        this.prev = NextTables.expand(pattern.prev);
+        this.segments = segments == null ? new ByteBuffer[0] : segments.clone();
+        this.starts = new long[this.segments.length + 1];
+        for (int k = 0; k < this.segments.length; k++) {
+            starts[k + 1] = starts[k] + Objects.requireNonNull(this.segments[k], "segment").limit();
+        }
+    }
+
+    /**
+     * 获取输入的总长度
+     *
+     * @return 所有段的长度之和
+     */
+    long length() {
+        return starts[segments.length];
+    }
+
+    /**
+     * 查找包含指定位置的段
+     *
+     * @param index 输入中的位置，范围为[0, length())
+     * @return 段的下标
+     */
+    private int segment(long index) {
+        int k = Arrays.binarySearch(starts, index);
+        // 命中起点时，跳过前面长度为0的段
+        if (k >= 0) {
+            while (k + 1 < segments.length && starts[k + 1] == index) k++;
+            return k;
+        }
+        return -k - 2;
+    }
+
+    @Override
+    public long indexOf(long startInclusive, long endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        long inputLen = this.length();
+        byte[] target = pattern.target;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        int[] next = this.next;
+        int j = 0;
+        for (int k = this.segment(startInclusive); k < segments.length && starts[k] < endExclusive; k++) {
+            ByteBuffer segment = segments[k];
+            long base = starts[k];
+            int i = (int) Math.max(0, startInclusive - base);
+            int end = (int) (Math.min(starts[k + 1], endExclusive) - base);
+            while (i < end) {
+                if (j == -1 || segment.get(i) == target[j]) {
+                    i++;
+                    j++;
+                    if (j == valuesLen) return base + i - valuesLen;
+                } else {
+                    j = next[j];
+                }
+            }
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    @Override
+    public long lastIndexOf(long startInclusive, long endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        long inputLen = this.length();
+        byte[] target = pattern.target;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        // 从右向左匹配反转的模式，j为已经匹配的模式后缀长度
+        int[] prev = this.prev;
+        int last = valuesLen - 1, j = 0;
+        for (int k = this.segment(endExclusive - 1); k >= 0 && starts[k + 1] > startInclusive; k--) {
+            ByteBuffer segment = segments[k];
+            long base = starts[k];
+            int i = (int) (Math.min(starts[k + 1], endExclusive) - base) - 1;
+            int begin = (int) (Math.max(base, startInclusive) - base);
+            while (i >= begin) {
+                if (j == -1 || segment.get(i) == target[last - j]) {
+                    i--;
+                    j++;
+                    if (j == valuesLen) return base + i + 1;
+                } else {
+                    j = prev[j];
+                }
+            }
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    @Override
+    public long scan(long startInclusive, long endExclusive, boolean overlapping, LongConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        long inputLen = this.length();
+        byte[] target = pattern.target;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+
+        int[] next = this.next;
+        int j = 0;
+        long count = 0;
+        for (int k = this.segment(startInclusive); k < segments.length && starts[k] < endExclusive; k++) {
+            ByteBuffer segment = segments[k];
+            long base = starts[k];
+            int i = (int) Math.max(0, startInclusive - base);
+            int end = (int) (Math.min(starts[k + 1], endExclusive) - base);
+            while (i < end) {
+                if (j == -1 || segment.get(i) == target[j]) {
+                    i++;
+                    j++;
+                    if (j == valuesLen) {
+                        count++;
+                        if (action != null) action.accept(base + i - valuesLen);
+                        // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                        j = overlapping ? next[j] : 0;
+                    }
+                } else {
+                    j = next[j];
+                }
+            }
+        }
+        return count;
+    }
+}
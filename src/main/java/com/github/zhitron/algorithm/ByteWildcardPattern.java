@@ -0,0 +1,346 @@
+package com.github.zhitron.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * 带通配符和字节类的预编译byte模式，不可变且线程安全。
+ * <p>
+ * 模式的每个位置可以是一个确定的字节、任意字节或者一个字节集合，适用于二进制特征码之类的匹配。
+ * 使用通配符比较器的{@link KMP}会得到错误的next数组，因为"任意字节"与两个不同的字节都相等，比较关系不满足传递性；
+ * 该类改用位并行的Shift-And自动机，每个输入字节只做一次查表、一次移位和一次按位与，时间复杂度与模式的形状无关。
+ * </p>
+ * <p>
+ * 文本格式由空白分隔的记号组成：
+ * </p>
+ * <ul>
+ *     <li>{@code 4D}：两位十六进制数表示的确定字节</li>
+ *     <li>{@code ??}：任意字节；{@code 4?}和{@code ?D}只固定其中一个十六进制位</li>
+ *     <li>{@code [30-39 41]}：字节集合，元素为单个字节或闭区间，以空白或逗号分隔；{@code [^00]}表示集合的补集</li>
+ * </ul>
+ * <p>
+ * 例如{@code "4D 5A ?? ?? 50 45"}或者{@code "FF [E0-EF] ?? 00"}。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class ByteWildcardPattern {
+    /**
+     * 模式的文本形式，用于toString
+     */
+    private final String source;
+    /**
+     * 编译后的自动机
+     */
+    private final ShiftAnd automaton;
+
+    /**
+     * 编译文本形式的模式。
+     *
+     * @param pattern 模式文本
+     * @return 编译后的模式
+     * @throws IllegalArgumentException 如果模式文本的格式不正确
+     */
+    public static ByteWildcardPattern compile(String pattern) {
+        Objects.requireNonNull(pattern, "pattern");
+        List<int[]> positions = new ArrayList<>();
+        int n = pattern.length(), p = 0;
+        while (p < n) {
+            char c = pattern.charAt(p);
+            if (Character.isWhitespace(c)) {
+                p++;
+            } else if (c == '[') {
+                p = parseClass(pattern, p + 1, positions);
+            } else {
+                if (p + 1 >= n) throw syntax(pattern, p, "incomplete byte");
+                int high = hex(pattern, p), low = hex(pattern, p + 1);
+                if (high < 0 && low < 0) {
+                    positions.add(new int[]{0, 255});
+                } else {
+                    List<Integer> values = new ArrayList<>();
+                    for (int v = 0; v < 256; v++) {
+                        if ((high < 0 || v >>> 4 == high) && (low < 0 || (v & 0xf) == low)) values.add(v);
+                    }
+                    positions.add(ranges(values));
+                }
+                p += 2;
+                if (p < n && !Character.isWhitespace(pattern.charAt(p)) && pattern.charAt(p) != '[') {
+                    throw syntax(pattern, p, "expected whitespace");
+                }
+            }
+        }
+        return new ByteWildcardPattern(pattern, positions);
+    }
+
+    /**
+     * 使用值和掩码编译模式，输入字节b在位置i匹配当且仅当{@code (b & mask[i]) == (values[i] & mask[i])}。
+     * 掩码为0的位置匹配任意字节，掩码为0xFF的位置只匹配确定的字节。
+     *
+     * @param values 模式字节
+     * @param mask   与模式字节等长的掩码
+     * @return 编译后的模式
+     * @throws IllegalArgumentException 如果两个数组的长度不同
+     */
+    public static ByteWildcardPattern compile(byte[] values, byte[] mask) {
+        if (values.length != mask.length) {
+            throw new IllegalArgumentException("values.length != mask.length: " + values.length + " != " + mask.length);
+        }
+        List<int[]> positions = new ArrayList<>(values.length);
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            int m = mask[i] & 0xff, v = values[i] & m;
+            List<Integer> accepted = new ArrayList<>();
+            for (int b = 0; b < 256; b++) {
+                if ((b & m) == v) accepted.add(b);
+            }
+            positions.add(ranges(accepted));
+            if (i > 0) source.append(' ');
+            source.append(m == 0xff ? String.format("%02X", v) : m == 0 ? "??" : String.format("%02X/%02X", v, m));
+        }
+        return new ByteWildcardPattern(source.toString(), positions);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param source    模式的文本形式
+     * @param positions 每个模式位置的字节集合
+     */
+    private ByteWildcardPattern(String source, List<int[]> positions) {
+        this.source = source;
+        this.automaton = new ShiftAnd(positions);
+    }
+
+    /**
+     * 解析一个字节集合
+     *
+     * @param pattern   模式文本
+     * @param p         左方括号之后的位置
+     * @param positions 接收解析结果的列表
+     * @return 右方括号之后的位置
+     */
+    private static int parseClass(String pattern, int p, List<int[]> positions) {
+        int n = pattern.length();
+        boolean negate = p < n && pattern.charAt(p) == '^';
+        if (negate) p++;
+        boolean[] members = new boolean[256];
+        while (true) {
+            if (p >= n) throw syntax(pattern, p, "unclosed '['");
+            char c = pattern.charAt(p);
+            if (c == ']') break;
+            if (Character.isWhitespace(c) || c == ',') {
+                p++;
+                continue;
+            }
+            int lo = hexByte(pattern, p), hi = lo;
+            p += 2;
+            if (p < n && pattern.charAt(p) == '-') {
+                hi = hexByte(pattern, p + 1);
+                p += 3;
+                if (hi < lo) throw syntax(pattern, p - 5, "invalid range");
+            }
+            for (int v = lo; v <= hi; v++) members[v] = true;
+        }
+        List<Integer> values = new ArrayList<>();
+        for (int v = 0; v < 256; v++) {
+            if (members[v] != negate) values.add(v);
+        }
+        if (values.isEmpty()) throw syntax(pattern, p, "empty class");
+        positions.add(ranges(values));
+        return p + 1;
+    }
+
+    /**
+     * 读取两位十六进制数表示的字节
+     *
+     * @param pattern 模式文本
+     * @param p       第一位的位置
+     * @return 字节的值
+     */
+    private static int hexByte(String pattern, int p) {
+        if (p + 1 >= pattern.length()) throw syntax(pattern, p, "incomplete byte");
+        int high = hex(pattern, p), low = hex(pattern, p + 1);
+        if (high < 0 || low < 0) throw syntax(pattern, p, "expected hex byte");
+        return high << 4 | low;
+    }
+
+    /**
+     * 读取一个十六进制位
+     *
+     * @param pattern 模式文本
+     * @param p       读取的位置
+     * @return 十六进制位的值，'?'返回-1
+     */
+    private static int hex(String pattern, int p) {
+        char c = pattern.charAt(p);
+        if (c == '?') return -1;
+        int digit = Character.digit(c, 16);
+        if (digit < 0) throw syntax(pattern, p, "expected hex digit or '?'");
+        return digit;
+    }
+
+    /**
+     * 把升序的值列表合并成闭区间
+     *
+     * @param values 升序的值列表
+     * @return 按[lo, hi]闭区间成对排列的区间集合
+     */
+    private static int[] ranges(List<Integer> values) {
+        List<Integer> bounds = new ArrayList<>();
+        for (int k = 0; k < values.size(); k++) {
+            int v = values.get(k);
+            if (k == 0 || values.get(k - 1) != v - 1) bounds.add(v);
+            if (k == values.size() - 1 || values.get(k + 1) != v + 1) bounds.add(v);
+        }
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 创建格式错误的异常
+     *
+     * @param pattern 模式文本
+     * @param p       出错的位置
+     * @param message 错误信息
+     * @return 异常
+     */
+    private static IllegalArgumentException syntax(String pattern, int p, String message) {
+        return new IllegalArgumentException(message + " at index " + p + ": " + pattern);
+    }
+
+    /**
+     * 获取模式的长度
+     *
+     * @return 模式的长度
+     */
+    public int length() {
+        return automaton.length;
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(byte[] input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(byte[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        return automaton.indexOf(input, startInclusive, endExclusive);
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(byte[] input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(byte[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        return automaton.lastIndexOf(input, startInclusive, endExclusive);
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(byte[] input, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(byte[] input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在数组指定范围内出现的每个位置传给回调。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        return automaton.scan(input, startInclusive, endExclusive, overlapping, action);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
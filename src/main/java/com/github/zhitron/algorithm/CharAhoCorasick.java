@@ -0,0 +1,287 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.consumer.TwiceConsumerInt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 针对字符序列的多模式匹配器（Aho-Corasick自动机），不可变且线程安全。
+ * <p>
+ * 字符的取值范围太大，无法像{@link ByteAhoCorasick}那样展开完整的转移表，
+ * 因此每个状态只保存有序的子节点，失配时沿失配指针回退，这与KMP使用next数组回退的方式相同，
+ * 查找的总时间仍然是O(n + 匹配数)。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class CharAhoCorasick {
+    /**
+     * 不包含任何子节点时使用的共享空数组
+     */
+    private static final char[] NO_KEYS = new char[0];
+    /**
+     * 不包含任何子节点时使用的共享空数组
+     */
+    private static final int[] NO_CHILDREN = new int[0];
+    /**
+     * 每个模式的长度
+     */
+    private final int[] lengths;
+    /**
+     * 每个状态的子节点字符，按升序排列
+     */
+    private final char[][] keys;
+    /**
+     * 每个状态的子节点编号，与keys一一对应
+     */
+    private final int[][] children;
+    /**
+     * 每个状态的失配指针
+     */
+    private final int[] fail;
+    /**
+     * 每个状态上结束的第一个模式编号，没有则为-1
+     */
+    private final int[] terminal;
+    /**
+     * 每个状态沿失配指针能到达的最近的结束状态，没有则为0
+     */
+    private final int[] output;
+    /**
+     * 与某个模式内容相同的下一个模式编号，没有则为-1
+     */
+    private final int[] sameNext;
+
+    /**
+     * 编译一组模式，空模式永远不会被匹配。
+     *
+     * @param patterns 模式
+     * @return 编译后的多模式匹配器
+     */
+    public static CharAhoCorasick compile(CharSequence... patterns) {
+        return compile(Arrays.asList(patterns));
+    }
+
+    /**
+     * 编译一组模式，空模式永远不会被匹配。
+     *
+     * @param patterns 模式列表
+     * @return 编译后的多模式匹配器
+     */
+    public static CharAhoCorasick compile(List<? extends CharSequence> patterns) {
+        return new CharAhoCorasick(patterns);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param patterns 模式列表
+     */
+    private CharAhoCorasick(List<? extends CharSequence> patterns) {
+        int count = patterns.size();
+        int capacity = 1;
+        for (CharSequence pattern : patterns) {
+            capacity += pattern == null ? 0 : pattern.length();
+        }
+        char[][] keys = new char[capacity][];
+        int[][] children = new int[capacity][];
+        int[] degree = new int[capacity];
+        int[] terminal = new int[capacity];
+        int[] lengths = new int[count];
+        int[] sameNext = new int[count];
+        Arrays.fill(keys, NO_KEYS);
+        Arrays.fill(children, NO_CHILDREN);
+        Arrays.fill(terminal, -1);
+        Arrays.fill(sameNext, -1);
+
+        // 构建字典树，子节点按字符有序插入
+        int states = 1;
+        for (int p = 0; p < count; p++) {
+            CharSequence pattern = patterns.get(p);
+            int length = pattern == null ? 0 : pattern.length();
+            lengths[p] = length;
+            if (length == 0) continue;
+            int s = 0;
+            for (int i = 0; i < length; i++) {
+                char c = pattern.charAt(i);
+                int k = Arrays.binarySearch(keys[s], 0, degree[s], c);
+                if (k >= 0) {
+                    s = children[s][k];
+                    continue;
+                }
+                k = -k - 1;
+                if (degree[s] == keys[s].length) {
+                    int grown = Math.max(2, degree[s] << 1);
+                    keys[s] = Arrays.copyOf(keys[s], grown);
+                    children[s] = Arrays.copyOf(children[s], grown);
+                }
+                System.arraycopy(keys[s], k, keys[s], k + 1, degree[s] - k);
+                System.arraycopy(children[s], k, children[s], k + 1, degree[s] - k);
+                keys[s][k] = c;
+                children[s][k] = states;
+                degree[s]++;
+                s = states++;
+            }
+            if (terminal[s] < 0) {
+                terminal[s] = p;
+            } else {
+                int q = terminal[s];
+                while (sameNext[q] >= 0) q = sameNext[q];
+                sameNext[q] = p;
+            }
+        }
+        for (int s = 0; s < states; s++) {
+            if (degree[s] != keys[s].length) {
+                keys[s] = Arrays.copyOf(keys[s], degree[s]);
+                children[s] = Arrays.copyOf(children[s], degree[s]);
+            }
+        }
+
+        this.lengths = lengths;
+        this.keys = Arrays.copyOf(keys, states);
+        this.children = Arrays.copyOf(children, states);
+        this.terminal = Arrays.copyOf(terminal, states);
+        this.sameNext = sameNext;
+        this.fail = new int[states];
+        this.output = new int[states];
+
+        // 按广度优先顺序计算失配指针和输出链
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int s = queue[head++];
+            char[] sk = this.keys[s];
+            int[] sc = this.children[s];
+            for (int k = 0; k < sk.length; k++) {
+                int t = sc[k];
+                int f = s == 0 ? 0 : step(fail[s], sk[k]);
+                fail[t] = f;
+                output[t] = this.terminal[f] >= 0 ? f : output[f];
+                queue[tail++] = t;
+            }
+        }
+    }
+
+    /**
+     * 从指定状态读入一个字符后到达的状态
+     *
+     * @param s 当前状态
+     * @param c 输入字符
+     * @return 下一个状态
+     */
+    private int step(int s, char c) {
+        while (true) {
+            char[] sk = keys[s];
+            int k = sk.length <= 8 ? linearSearch(sk, c) : Arrays.binarySearch(sk, c);
+            if (k >= 0) return children[s][k];
+            if (s == 0) return 0;
+            s = fail[s];
+        }
+    }
+
+    /**
+     * 在较短的有序数组中线性查找字符
+     *
+     * @param keys 有序字符数组
+     * @param c    要查找的字符
+     * @return 字符所在的下标，没有则返回-1
+     */
+    private static int linearSearch(char[] keys, char c) {
+        for (int k = 0; k < keys.length; k++) {
+            if (keys[k] == c) return k;
+        }
+        return -1;
+    }
+
+    /**
+     * 获取模式的数量
+     *
+     * @return 模式的数量
+     */
+    public int patternCount() {
+        return lengths.length;
+    }
+
+    /**
+     * 判断输入中是否包含任意一个模式。
+     *
+     * @param input 要搜索的字符序列
+     * @return 包含任意模式时返回true
+     */
+    public boolean containsAny(CharSequence input) {
+        if (input == null) return false;
+        int s = 0;
+        for (int i = 0, n = input.length(); i < n; i++) {
+            s = step(s, input.charAt(i));
+            if (terminal[s] >= 0 || output[s] > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 统计所有模式在输入中出现的总次数，允许重叠。
+     *
+     * @param input 要搜索的字符序列
+     * @return 匹配的总次数
+     */
+    public int count(CharSequence input) {
+        return this.scan(input, 0, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * 把所有模式在输入中的每次出现传给回调，允许重叠。
+     *
+     * @param input  要搜索的字符序列
+     * @param action 接收模式编号和匹配起始索引的回调
+     * @return 匹配的总次数
+     */
+    public int forEach(CharSequence input, TwiceConsumerInt action) {
+        return this.scan(input, 0, Integer.MAX_VALUE, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 把所有模式在输入指定范围内的每次出现传给回调，允许重叠。
+     * 回调按匹配结束位置升序调用，结束位置相同时较长的模式先报告。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收模式编号和匹配起始索引的回调
+     * @return 匹配的总次数
+     */
+    public int forEach(CharSequence input, int startInclusive, int endExclusive, TwiceConsumerInt action) {
+        return this.scan(input, startInclusive, endExclusive, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 扫描指定范围内所有模式的匹配。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收模式编号和匹配起始索引的回调，为null时只计数
+     * @return 匹配的总次数
+     */
+    private int scan(CharSequence input, int startInclusive, int endExclusive, TwiceConsumerInt action) {
+        if (input == null || startInclusive >= endExclusive) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > input.length()) endExclusive = input.length();
+
+        int[] terminal = this.terminal;
+        int[] output = this.output;
+        int s = 0, count = 0;
+        for (int i = startInclusive; i < endExclusive; i++) {
+            s = step(s, input.charAt(i));
+            for (int t = terminal[s] >= 0 ? s : output[s]; t > 0; t = output[t]) {
+                for (int p = terminal[t]; p >= 0; p = sameNext[p]) {
+                    count++;
+                    if (action != null) action.accept(p, i + 1 - lengths[p]);
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,1316 @@
+package com.github.zhitron.algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 针对char数组和字符序列特化的预编译KMP模式，不可变且线程安全。
+ * <p>
+ * 查找过程直接读取数组元素进行比较，不会产生装箱和额外的对象分配。
+ * String、StringBuilder和CharBuffer等CharSequence输入通过charAt逐个读取，不会先复制成char数组；
+ * {@link #withIgnoreCase()}返回的模式在比较前折叠输入字符的大小写，同样不会分配对象。
+ * </p>
+ * <p>
+ * 正向查找在尚未匹配任何元素时，先用一个紧凑的循环跳到下一个等于模式首元素的位置，再交给next数组继续匹配。
+ * 输入中大部分位置都不可能成为匹配起点时，这样可以省去大量的状态转移；
+ * 每个位置最多被预过滤检查一次，最坏情况下的时间复杂度仍然是O(n + m)。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class CharKMP {
+    /**
+     * 模式序列的快照
+     */
+    final char[] target;
+    /**
+     * 预先计算的next数组，长度为模式长度加一
+     */
+    final int[] next;
+    /**
+     * 反向查找使用的反转模式的next数组，长度为模式长度加一
+     */
+    final int[] prev;
+    /**
+     * 可选的DFA转移表，每行alphabet列，为null时使用next数组查找
+     */
+    final int[] dfa;
+    /**
+     * DFA转移表的字母表大小，元素的取值范围为[0, alphabet)
+     */
+    final int alphabet;
+    /**
+     * 是否忽略大小写，为true时模式快照中保存的是折叠后的字符
+     */
+    final boolean ignoreCase;
+    /**
+     * 可选的查找统计，为null时不统计
+     */
+    final KMPMetrics metrics;
+
+    /**
+     * 编译一个char模式，编译时会复制模式数组。
+     *
+     * @param target 模式数组
+     * @return 编译后的模式
+     */
+    public static CharKMP compile(char[] target) {
+        return new CharKMP(target == null ? new char[0] : target.clone(), false);
+    }
+
+    /**
+     * 编译一个字符序列模式，编译时会通过charAt复制模式中的字符。
+     * String、StringBuilder和CharBuffer等任意CharSequence都可以作为模式。
+     *
+     * @param target 模式字符序列
+     * @return 编译后的模式
+     */
+    public static CharKMP compile(CharSequence target) {
+        int length = target == null ? 0 : target.length();
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = target.charAt(i);
+        }
+        return new CharKMP(chars, false);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param target     模式序列的快照
+     * @param ignoreCase 是否忽略大小写，为true时快照必须已经折叠
+     */
+    private CharKMP(char[] target, boolean ignoreCase) {
+        this.target = target;
+        this.ignoreCase = ignoreCase;
+        this.next = KMPCache.shared().next(target, null, 0, target.length, (i, j) -> target[i] == target[j]);
+        this.prev = KMPCache.shared().next(target, null, KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        this.dfa = null;
+        this.alphabet = 0;
+        this.metrics = null;
+    }
+
+    /**
+     * 私有构造函数，复用已有模式的快照并替换next数组
+     *
+     * @param base     已编译的模式
+     * @param next     正向查找使用的next数组
+     * @param prev     反向查找使用的next数组
+     * @param dfa      DFA转移表
+     * @param alphabet 字母表大小
+     * @param metrics  查找统计
+     */
+    private CharKMP(CharKMP base, int[] next, int[] prev, int[] dfa, int alphabet, KMPMetrics metrics) {
+        this.target = base.target;
+        this.next = next;
+        this.prev = prev;
+        this.dfa = dfa;
+        this.alphabet = alphabet;
+        this.ignoreCase = base.ignoreCase;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取模式序列的长度
+     *
+     * @return 模式序列的长度
+     */
+    public int length() {
+        return target.length;
+    }
+
+    /**
+     * 分析模式序列的周期和边界，忽略大小写时分析的是折叠后的模式
+     *
+     * @return 分析结果
+     */
+    public Periodicity periodicity() {
+        return Periodicity.of(target);
+    }
+
+    /**
+     * 使用{@link KMP#generateOptimizedNext}生成的优化next数组进行正向和反向查找。
+     * 查找结果不变，对于重复度较高的模式可以减少失配时的比较次数。
+     *
+     * @return 使用优化next数组的新模式
+     */
+    public CharKMP withOptimizedNext() {
+        char[] target = this.target;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] next = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED, target.length, (i, j) -> target[i] == target[j]);
+        int[] prev = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED | KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return new CharKMP(this, next, prev, dfa, alphabet, metrics);
+    }
+
+    /**
+     * 绑定查找统计，返回的新模式共享当前模式的快照和next数组。
+     * 绑定后的模式使用带计数的查找循环，详见{@link KMPMetrics}。
+     *
+     * @param metrics 查找统计，为null时返回不统计的模式
+     * @return 绑定了查找统计的新模式
+     */
+    public CharKMP withMetrics(KMPMetrics metrics) {
+        return metrics == this.metrics ? this : new CharKMP(this, next, prev, dfa, alphabet, metrics);
+    }
+
+    /**
+     * 忽略大小写进行查找，返回的新模式保存折叠后的模式字符，查找时逐个折叠输入字符再比较，不会分配任何对象。
+     * 折叠规则与{@link String#CASE_INSENSITIVE_ORDER}一致，即先转大写再转小写，
+     * 只处理逐个char的简单大小写映射，不会把"ß"展开成"ss"这类改变长度的完全折叠。
+     * 返回的模式使用经典的next数组，并且不支持DFA匹配模式。
+     *
+     * @return 忽略大小写的新模式；已经忽略大小写时返回当前模式
+     */
+    public CharKMP withIgnoreCase() {
+        if (ignoreCase) return this;
+        char[] folded = new char[target.length];
+        for (int i = 0; i < folded.length; i++) {
+            folded[i] = fold(target[i]);
+        }
+        long start = metrics == null ? 0 : System.nanoTime();
+        CharKMP pattern = new CharKMP(folded, true);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return pattern.withMetrics(metrics);
+    }
+
+    /**
+     * 判断是否忽略大小写
+     *
+     * @return 忽略大小写时返回true
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * 使用默认的内存预算{@link KMP#DEFAULT_DFA_BUDGET}启用DFA匹配模式。
+     *
+     * @param alphabetSize 字母表大小，元素的取值范围为[0, alphabetSize)
+     * @return 启用了DFA模式的模式；无法构建时返回当前模式
+     * @see #withDfa(int, long)
+     */
+    public CharKMP withDfa(int alphabetSize) {
+        return this.withDfa(alphabetSize, KMP.DEFAULT_DFA_BUDGET);
+    }
+
+    /**
+     * 针对声明的有界字母表启用DFA匹配模式。
+     * 正向查找时每个输入元素只查一次表，没有回退循环；输入中字母表之外的元素不可能出现在模式中，直接回到初始状态。
+     * 转移表占用(模式长度 + 1) × alphabetSize × 4个字节，超过maxBytes或模式中存在字母表之外的元素时不会构建，继续使用next数组查找。
+     *
+     * @param alphabetSize 字母表大小，元素的取值范围为[0, alphabetSize)
+     * @param maxBytes     转移表允许占用的最大字节数
+     * @return 启用了DFA模式的新模式；已经启用、忽略大小写或无法构建时返回当前模式
+     */
+    public CharKMP withDfa(int alphabetSize, long maxBytes) {
+        if (dfa != null || ignoreCase) return this;
+        char[] target = this.target;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] dfa = KMPAutomaton.build(target.length, alphabetSize, (j) -> target[j], maxBytes);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return dfa == null ? this : new CharKMP(this, next, prev, dfa, alphabetSize, metrics);
+    }
+
+    /**
+     * 判断是否启用了DFA匹配模式
+     *
+     * @return 启用时返回true
+     */
+    public boolean hasDfa() {
+        return dfa != null;
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(char[] input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始查找模式在数组中第一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(char[] input, int offset) {
+        return this.indexOf(input, offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 批量查找模式在每个数组中第一次出现的位置，第k个输入的结果写入{@code results[k]}。
+     * 整个批次共享同一份预编译的next数组，除了一个查找函数之外不会为单个输入分配任何对象。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<char[]> inputs, int[] results) {
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, null);
+    }
+
+    /**
+     * 使用指定的线程池批量查找模式在每个数组中第一次出现的位置，结果与{@link #indexOfEach(List, int[])}一致。
+     * 输入按编号切分成若干段并行查找，输入过少时直接在当前线程中完成。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @param pool    执行查找的线程池
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<char[]> inputs, int[] results, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, pool);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(char[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (ignoreCase) return this.indexOfFolded(input, startInclusive, endExclusive);
+        if (metrics != null) {
+            return metrics.indexOf(next, valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            // 每个输入元素只查一次转移表
+            int alphabet = this.alphabet;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                int c = input[i];
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) return i + 1 - valuesLen;
+            }
+            return KMP.NOT_FOUND;
+        }
+
+        char[] target = this.target;
+        int[] next = this.next;
+        char first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == 0) {
+                // 预过滤：尚未匹配任何元素时，直接跳过不可能成为匹配起点的位置
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(char[] input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始向前查找模式在数组中最后一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(char[] input, int offset) {
+        return this.lastIndexOf(input, 0, offset == Integer.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(char[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (ignoreCase) return this.lastIndexOfFolded(input, startInclusive, endExclusive);
+        if (metrics != null) {
+            return metrics.lastIndexOf(prev, valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive);
+        }
+
+        char[] target = this.target;
+        int[] prev = this.prev;
+        // 从右向左扫描，j为已经匹配的模式后缀长度，失配时按反转模式的next数组回退
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || input[i] == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(char[] input, boolean overlapping) {
+        return this.findAll(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中出现的所有位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(char[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(char[] input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 统计模式在数组指定范围内出现的次数。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(char[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(input, startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在数组中出现的每个位置传给回调。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(char[] input, boolean overlapping, IntConsumer action) {
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把模式在数组指定范围内出现的每个位置传给回调。
+     * 整个过程只对输入做一次线性扫描，找到一个匹配后从当前自动机状态继续匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在数组中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(char[] input, boolean overlapping) {
+        return this.matches(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 获取模式在数组指定范围内出现的所有位置组成的流。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，不允许重叠时只能顺序查找。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(char[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = input == null ? 0 : input.length;
+        return MatchSpliterator.stream(this.bind(input), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        if (ignoreCase) return this.scanFolded(input, startInclusive, endExclusive, overlapping, action);
+        if (metrics != null) {
+            return metrics.scan(next, valuesLen, (a, b) -> input[a] == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            int alphabet = this.alphabet, count = 0;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                int c = input[i];
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - valuesLen);
+                    // 转移表的最后一行已经等价于重叠匹配的继续状态
+                    if (!overlapping) j = 0;
+                }
+            }
+            return count;
+        }
+
+        char[] target = this.target;
+        int[] next = this.next;
+        char first = target[0];
+        int last = endExclusive - valuesLen;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == 0) {
+                // 预过滤：尚未匹配任何元素时，直接跳过不可能成为匹配起点的位置
+                while (i < last && input[i] != first) i++;
+            }
+            if (j == -1 || input[i] == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在忽略大小写时查找模式在数组中第一次出现的位置，调用者已经把范围调整到有效边界内。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int indexOfFolded(char[] input, int startInclusive, int endExclusive) {
+        char[] target = this.target;
+        int[] next = this.next;
+        int valuesLen = target.length;
+        if (metrics != null) {
+            return metrics.indexOf(next, valuesLen, (a, b) -> fold(input[a]) == target[b], startInclusive, endExclusive);
+        }
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || fold(input[i]) == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 在忽略大小写时查找模式在数组中最后一次出现的位置，调用者已经把范围调整到有效边界内。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    private int lastIndexOfFolded(char[] input, int startInclusive, int endExclusive) {
+        char[] target = this.target;
+        int[] prev = this.prev;
+        int valuesLen = target.length;
+        if (metrics != null) {
+            return metrics.lastIndexOf(prev, valuesLen, (a, b) -> fold(input[a]) == target[b], startInclusive, endExclusive);
+        }
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || fold(input[i]) == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 在忽略大小写时扫描数组指定范围内的所有匹配，调用者已经把范围调整到有效边界内。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    private int scanFolded(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        char[] target = this.target;
+        int[] next = this.next;
+        int valuesLen = target.length;
+        if (metrics != null) {
+            return metrics.scan(next, valuesLen, (a, b) -> fold(input[a]) == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || fold(input[i]) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 以模式为分隔符切分数组，分隔符之间不允许重叠。
+     * 与String.split(regex, -1)一样保留开头和末尾的空片段；没有匹配或者模式为空时，返回只包含输入副本的数组。
+     *
+     * @param input 要切分的数组，为null时视为空数组
+     * @return 切分得到的片段，数量为匹配数量加一
+     */
+    public char[][] split(char[] input) {
+        char[] values = input == null ? new char[0] : input;
+        int[] positions = this.findAll(values, false);
+        char[][] pieces = new char[positions.length + 1][];
+        int from = 0;
+        for (int k = 0; k < positions.length; k++) {
+            pieces[k] = Arrays.copyOfRange(values, from, positions[k]);
+            from = positions[k] + target.length;
+        }
+        pieces[positions.length] = Arrays.copyOfRange(values, from, values.length);
+        return pieces;
+    }
+
+    /**
+     * 把数组中模式的每次出现替换成指定内容，匹配之间不允许重叠。
+     * 替换内容与模式等长时边查找边写入按输入长度分配的结果；否则先查找出所有匹配，再按最终长度一次分配并写入。
+     *
+     * @param input       输入数组，为null时视为空数组
+     * @param replacement 替换内容
+     * @return 替换后的新数组，输入不会被修改
+     */
+    public char[] replaceAll(char[] input, char[] replacement) {
+        Objects.requireNonNull(replacement, "replacement");
+        char[] values = input == null ? new char[0] : input;
+        int valuesLen = target.length;
+        if (replacement.length == valuesLen) {
+            char[] output = new char[values.length];
+            Rewriter rewriter = Rewriter.of(values, valuesLen, replacement, (char) 0, output);
+            this.scan(values, 0, values.length, false, rewriter);
+            rewriter.finish(values.length);
+            return output;
+        }
+        int[] positions = this.findAll(values, false);
+        char[] output = new char[Rewriter.replacedLength(values.length, valuesLen, replacement.length, positions.length)];
+        Rewriter rewriter = Rewriter.of(values, valuesLen, replacement, (char) 0, output);
+        for (int position : positions) rewriter.accept(position);
+        rewriter.finish(values.length);
+        return output;
+    }
+
+    /**
+     * 用掩码覆盖数组中模式出现的每个字符，相互重叠的匹配覆盖的字符同样被掩盖，结果与输入等长。
+     * 整个过程只对输入做一次线性扫描。
+     *
+     * @param input 输入数组，为null时视为空数组
+     * @param mask  掩码
+     * @return 掩盖后的新数组，输入不会被修改
+     */
+    public char[] redact(char[] input, char mask) {
+        char[] values = input == null ? new char[0] : input;
+        char[] output = new char[values.length];
+        Rewriter rewriter = Rewriter.of(values, target.length, null, mask, output);
+        this.scan(values, 0, values.length, true, rewriter);
+        rewriter.finish(values.length);
+        return output;
+    }
+
+    /**
+     * 查找数组中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的数组
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(char[] input, int maxMismatches) {
+        return this.findAllApproximate(input, 0, Integer.MAX_VALUE, maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找数组中与模式相比不同元素不超过maxMismatches个的所有位置。
+     * 查找先逐个位置比较，不同元素超过maxMismatches个时立即放弃；元素重复较多使得比较次数偏高时，
+     * 改用位并行的计数自动机，每个元素的代价只与模式长度和maxMismatches有关。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(char[] input, int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(char[] input, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        char[] target = this.target;
+        boolean fold = this.ignoreCase;
+        if (maxMismatches == 0) return this.scan(input, startInclusive, endExclusive, true, action);
+        long[] keys = new long[valuesLen];
+        for (int j = 0; j < valuesLen; j++) keys[j] = target[j];
+        return ShiftAdd.scan(keys, maxMismatches, startInclusive, endExclusive, (automaton, from, to, rows) -> {
+            for (int i = from; i < to; i++) rows[i - from] = automaton.row(fold ? fold(input[i]) : input[i]);
+        }, action);
+    }
+
+    /**
+     * 查找模式在字符序列中第一次出现的位置。
+     *
+     * @param input 要搜索的字符序列
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(CharSequence input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始查找模式在字符序列中第一次出现的位置。
+     *
+     * @param input  要搜索的字符序列
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(CharSequence input, int offset) {
+        return this.indexOf(input, offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在字符序列中第一次出现的位置。
+     * 查找直接通过charAt读取字符，不会复制输入，也不会装箱；范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(CharSequence input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        boolean fold = this.ignoreCase;
+        if (metrics != null) {
+            return metrics.indexOf(next, valuesLen, (a, b) -> at(input, a, fold) == target[b], startInclusive, endExclusive);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            int alphabet = this.alphabet;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                int c = input.charAt(i);
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) return i + 1 - valuesLen;
+            }
+            return KMP.NOT_FOUND;
+        }
+
+        char[] target = this.target;
+        int[] next = this.next;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || at(input, i, fold) == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在字符序列中最后一次出现的位置。
+     *
+     * @param input 要搜索的字符序列
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(CharSequence input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始向前查找模式在字符序列中最后一次出现的位置。
+     *
+     * @param input  要搜索的字符序列
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(CharSequence input, int offset) {
+        return this.lastIndexOf(input, 0, offset == Integer.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找模式在字符序列中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(CharSequence input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        boolean fold = this.ignoreCase;
+        if (metrics != null) {
+            return metrics.lastIndexOf(prev, valuesLen, (a, b) -> at(input, a, fold) == target[b], startInclusive, endExclusive);
+        }
+
+        char[] target = this.target;
+        int[] prev = this.prev;
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || at(input, i, fold) == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在字符序列中出现的所有位置。
+     *
+     * @param input       要搜索的字符序列
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(CharSequence input, boolean overlapping) {
+        return this.findAll(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 在指定范围内查找模式在字符序列中出现的所有位置。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(CharSequence input, int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在字符序列中出现的次数。
+     *
+     * @param input       要搜索的字符序列
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(CharSequence input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 统计模式在字符序列指定范围内出现的次数。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(CharSequence input, int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(input, startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在字符序列中出现的每个位置传给回调。
+     *
+     * @param input       要搜索的字符序列
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(CharSequence input, boolean overlapping, IntConsumer action) {
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把模式在字符序列指定范围内出现的每个位置传给回调。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(CharSequence input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在字符序列中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的字符序列
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(CharSequence input, boolean overlapping) {
+        return this.matches(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 获取模式在字符序列指定范围内出现的所有位置组成的流。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，不允许重叠时只能顺序查找。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(CharSequence input, int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = input == null ? 0 : input.length();
+        return MatchSpliterator.stream(this.bind(input), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描字符序列指定范围内的所有匹配。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(CharSequence input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        boolean fold = this.ignoreCase;
+        if (metrics != null) {
+            return metrics.scan(next, valuesLen, (a, b) -> at(input, a, fold) == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+
+        int[] dfa = this.dfa;
+        if (dfa != null) {
+            int alphabet = this.alphabet, count = 0;
+            for (int i = startInclusive, j = 0; i < endExclusive; i++) {
+                int c = input.charAt(i);
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - valuesLen);
+                    if (!overlapping) j = 0;
+                }
+            }
+            return count;
+        }
+
+        char[] target = this.target;
+        int[] next = this.next;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || at(input, i, fold) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 以模式为分隔符切分字符序列，分隔符之间不允许重叠。
+     * 与String.split(regex, -1)一样保留开头和末尾的空片段；没有匹配或者模式为空时，返回只包含输入本身的数组。
+     *
+     * @param input 要切分的字符序列，为null时视为空字符串
+     * @return 切分得到的片段，数量为匹配数量加一
+     */
+    public String[] split(CharSequence input) {
+        CharSequence values = input == null ? "" : input;
+        MatchList matches = new MatchList();
+        this.scan(values, 0, values.length(), false, matches);
+        int[] positions = matches.toArray();
+        String[] pieces = new String[positions.length + 1];
+        int from = 0;
+        for (int k = 0; k < positions.length; k++) {
+            pieces[k] = values.subSequence(from, positions[k]).toString();
+            from = positions[k] + target.length;
+        }
+        pieces[positions.length] = values.subSequence(from, values.length()).toString();
+        return pieces;
+    }
+
+    /**
+     * 把字符序列中模式的每次出现替换成指定内容，匹配之间不允许重叠。
+     * 替换内容不比模式长时边查找边写入按输入长度分配的结果；否则先查找出所有匹配，再按最终长度一次分配并写入。
+     *
+     * @param input       输入的字符序列，为null时视为空字符串
+     * @param replacement 替换内容
+     * @return 替换后的字符串
+     */
+    public String replaceAll(CharSequence input, CharSequence replacement) {
+        Objects.requireNonNull(replacement, "replacement");
+        CharSequence values = input == null ? "" : input;
+        int valuesLen = target.length;
+        if (replacement.length() <= valuesLen) {
+            StringBuilder output = new StringBuilder(values.length());
+            Rewriter rewriter = Rewriter.of(values, valuesLen, replacement, (char) 0, output);
+            this.scan(values, 0, values.length(), false, rewriter);
+            rewriter.finish(values.length());
+            return output.toString();
+        }
+        MatchList matches = new MatchList();
+        this.scan(values, 0, values.length(), false, matches);
+        int[] positions = matches.toArray();
+        StringBuilder output = new StringBuilder(Rewriter.replacedLength(values.length(), valuesLen, replacement.length(), positions.length));
+        Rewriter rewriter = Rewriter.of(values, valuesLen, replacement, (char) 0, output);
+        for (int position : positions) rewriter.accept(position);
+        rewriter.finish(values.length());
+        return output.toString();
+    }
+
+    /**
+     * 把字符序列中模式的每次出现替换成指定内容，结果追加到sink中。
+     * 整个过程只对输入做一次线性扫描，每找到一个匹配就写出它前面的字符和替换内容。
+     *
+     * @param input       输入的字符序列，为null时视为空字符串
+     * @param replacement 替换内容
+     * @param sink        接收结果的Appendable，例如Writer或StringBuilder
+     * @return 替换的次数
+     * @throws IOException sink写入失败时抛出，此时sink中已经写入了部分结果
+     */
+    public int replaceAll(CharSequence input, CharSequence replacement, Appendable sink) throws IOException {
+        Objects.requireNonNull(replacement, "replacement");
+        Objects.requireNonNull(sink, "sink");
+        CharSequence values = input == null ? "" : input;
+        Rewriter rewriter = Rewriter.of(values, target.length, replacement, (char) 0, sink);
+        try {
+            this.scan(values, 0, values.length(), false, rewriter);
+            return rewriter.finish(values.length());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 用掩码覆盖字符序列中模式出现的每个字符，相互重叠的匹配覆盖的字符同样被掩盖，结果与输入等长。
+     *
+     * @param input 输入的字符序列，为null时视为空字符串
+     * @param mask  掩码
+     * @return 掩盖后的字符串
+     */
+    public String redact(CharSequence input, char mask) {
+        CharSequence values = input == null ? "" : input;
+        StringBuilder output = new StringBuilder(values.length());
+        Rewriter rewriter = Rewriter.of(values, target.length, null, mask, output);
+        this.scan(values, 0, values.length(), true, rewriter);
+        rewriter.finish(values.length());
+        return output.toString();
+    }
+
+    /**
+     * 用掩码覆盖字符序列中模式出现的每个字符，结果追加到sink中，共写入与输入等长的内容。
+     * 整个过程只对输入做一次线性扫描。
+     *
+     * @param input 输入的字符序列，为null时视为空字符串
+     * @param mask  掩码
+     * @param sink  接收结果的Appendable，例如Writer或StringBuilder
+     * @return 匹配的次数，匹配之间可以相互重叠
+     * @throws IOException sink写入失败时抛出，此时sink中已经写入了部分结果
+     */
+    public int redact(CharSequence input, char mask, Appendable sink) throws IOException {
+        Objects.requireNonNull(sink, "sink");
+        CharSequence values = input == null ? "" : input;
+        Rewriter rewriter = Rewriter.of(values, target.length, null, mask, sink);
+        try {
+            this.scan(values, 0, values.length(), true, rewriter);
+            return rewriter.finish(values.length());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 查找字符序列中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的字符序列
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(CharSequence input, int maxMismatches) {
+        return this.findAllApproximate(input, 0, Integer.MAX_VALUE, maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找字符序列中与模式相比不同元素不超过maxMismatches个的所有位置。
+     * 查找先逐个位置比较，不同元素超过maxMismatches个时立即放弃；元素重复较多使得比较次数偏高时，
+     * 改用位并行的计数自动机，每个元素的代价只与模式长度和maxMismatches有关。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(CharSequence input, int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(CharSequence input, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        char[] target = this.target;
+        boolean fold = this.ignoreCase;
+        if (maxMismatches == 0) return this.scan(input, startInclusive, endExclusive, true, action);
+        long[] keys = new long[valuesLen];
+        for (int j = 0; j < valuesLen; j++) keys[j] = target[j];
+        return ShiftAdd.scan(keys, maxMismatches, startInclusive, endExclusive, (automaton, from, to, rows) -> {
+            for (int i = from; i < to; i++) rows[i - from] = automaton.row(at(input, i, fold));
+        }, action);
+    }
+
+    /**
+     * 折叠一个字符的大小写，规则与{@link String#CASE_INSENSITIVE_ORDER}一致
+     *
+     * @param c 字符
+     * @return 折叠后的字符
+     */
+    static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * 读取字符序列中的一个字符，需要时折叠大小写
+     *
+     * @param input 字符序列
+     * @param index 字符位置
+     * @param fold  是否折叠大小写
+     * @return 读取的字符
+     */
+    private static char at(CharSequence input, int index, boolean fold) {
+        char c = input.charAt(index);
+        return fold ? fold(c) : c;
+    }
+
+    /**
+     * 把当前模式绑定到指定的输入数组上，供{@link KMP}的工厂方法使用
+     *
+     * @param input 要搜索的数组
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(char[] input) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return CharKMP.this.indexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return CharKMP.this.lastIndexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return CharKMP.this.scan(input, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return CharKMP.this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+
+    /**
+     * 把当前模式绑定到指定的输入字符序列上，供{@link KMP}的工厂方法使用
+     *
+     * @param input 要搜索的字符序列
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(CharSequence input) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return CharKMP.this.indexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return CharKMP.this.lastIndexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return CharKMP.this.scan(input, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return CharKMP.this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+}
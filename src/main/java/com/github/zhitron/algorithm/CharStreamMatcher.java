@@ -0,0 +1,241 @@
+package com.github.zhitron.algorithm;
+
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * 基于{@link CharKMP}的增量匹配器，用于在分块到达的字符流中查找模式。
+ * <p>
+ * 匹配器在块与块之间只保留当前已匹配的模式长度和已消费的字符数，
+ * 因此跨越块边界的匹配也能被正确找到，并以整个流中的绝对偏移量报告。
+ * </p>
+ * <p>
+ * 该类是有状态的，不是线程安全的；同一个{@link CharKMP}可以同时创建多个匹配器。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class CharStreamMatcher {
+    /**
+     * 编译后的模式
+     */
+    private final CharKMP pattern;
+    /**
+     * 是否允许匹配之间相互重叠
+     */
+    private final boolean overlapping;
+    /**
+     * 当前已匹配的模式长度
+     */
+    private int state;
+    /**
+     * 已消费的字符总数
+     */
+    private long position;
+
+    /**
+     * 创建一个增量匹配器
+     *
+     * @param pattern     编译后的模式
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 新的增量匹配器
+     */
+    public static CharStreamMatcher of(CharKMP pattern, boolean overlapping) {
+        return new CharStreamMatcher(Objects.requireNonNull(pattern, "pattern"), overlapping);
+    }
+
+    /**
+     * 私有构造函数，只能通过of方法创建
+     *
+     * @param pattern     编译后的模式
+     * @param overlapping 是否允许匹配之间相互重叠
+     */
+    private CharStreamMatcher(CharKMP pattern, boolean overlapping) {
+        this.pattern = pattern;
+        this.overlapping = overlapping;
+    }
+
+    /**
+     * 获取已消费的字符总数，即下一个输入字符在流中的绝对偏移量
+     *
+     * @return 已消费的字符总数
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * 获取当前已匹配的模式长度，即跨块保留的部分匹配状态
+     *
+     * @return 已匹配的模式长度
+     */
+    public int matchedLength() {
+        return state;
+    }
+
+    /**
+     * 重置匹配器到初始状态，之后的偏移量从0开始计算
+     */
+    public void reset() {
+        this.state = 0;
+        this.position = 0;
+    }
+
+    /**
+     * 消费一个完整的数据块。
+     *
+     * @param chunk  数据块
+     * @param action 接收匹配在流中绝对起始偏移量的回调
+     * @return 本次找到的匹配数量
+     */
+    public int feed(char[] chunk, LongConsumer action) {
+        return this.feed(chunk, 0, chunk.length, action);
+    }
+
+    /**
+     * 消费数据块中的指定区间。
+     *
+     * @param chunk  数据块
+     * @param offset 区间起始位置
+     * @param length 区间长度
+     * @param action 接收匹配在流中绝对起始偏移量的回调
+     * @return 本次找到的匹配数量
+     */
+    public int feed(char[] chunk, int offset, int length, LongConsumer action) {
+        if (offset < 0 || length < 0 || offset > chunk.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", chunk.length=" + chunk.length);
+        }
+        char[] target = pattern.target;
+        int[] next = pattern.next;
+        int valuesLen = target.length;
+        if (valuesLen == 0) {
+            position += length;
+            return 0;
+        }
+        // 流中的偏移量为块内下标加上该差值
+        long base = position - offset;
+        int i = offset, end = offset + length, j = state, count = 0;
+        int[] dfa = pattern.dfa;
+        if (dfa != null) {
+            int alphabet = pattern.alphabet;
+            for (; i < end; i++) {
+                int c = chunk[i];
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) {
+                    count++;
+                    action.accept(base + i + 1 - j);
+                    if (!overlapping) j = 0;
+                }
+            }
+            this.state = j;
+            this.position += length;
+            return count;
+        }
+        boolean fold = pattern.ignoreCase;
+        while (i < end) {
+            if (j == -1 || (fold ? CharKMP.fold(chunk[i]) : chunk[i]) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    action.accept(base + i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        this.state = j;
+        this.position += length;
+        return count;
+    }
+
+    /**
+     * 消费缓冲区中position到limit之间的全部字符，消费后缓冲区的position移动到limit。
+     *
+     * @param chunk  数据块
+     * @param action 接收匹配在流中绝对起始偏移量的回调
+     * @return 本次找到的匹配数量
+     */
+    public int feed(CharBuffer chunk, LongConsumer action) {
+        if (chunk.hasArray()) {
+            int length = chunk.remaining();
+            int count = this.feed(chunk.array(), chunk.arrayOffset() + chunk.position(), length, action);
+            chunk.position(chunk.limit());
+            return count;
+        }
+        int length = chunk.remaining();
+        int count = this.feed((CharSequence) chunk, 0, length, action);
+        chunk.position(chunk.limit());
+        return count;
+    }
+
+    /**
+     * 消费字符序列中的全部字符。
+     *
+     * @param chunk  数据块
+     * @param action 接收匹配在流中绝对起始偏移量的回调
+     * @return 本次找到的匹配数量
+     */
+    public int feed(CharSequence chunk, LongConsumer action) {
+        return this.feed(chunk, 0, chunk.length(), action);
+    }
+
+    /**
+     * 消费字符序列中的指定区间，直接通过charAt读取，不会复制字符。
+     *
+     * @param chunk  数据块
+     * @param offset 区间起始位置
+     * @param length 区间长度
+     * @param action 接收匹配在流中绝对起始偏移量的回调
+     * @return 本次找到的匹配数量
+     */
+    public int feed(CharSequence chunk, int offset, int length, LongConsumer action) {
+        if (offset < 0 || length < 0 || offset > chunk.length() - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", chunk.length=" + chunk.length());
+        }
+        char[] target = pattern.target;
+        int[] next = pattern.next;
+        int valuesLen = target.length;
+        if (valuesLen == 0) {
+            position += length;
+            return 0;
+        }
+        long base = position - offset;
+        int i = offset, end = offset + length, j = state, count = 0;
+        int[] dfa = pattern.dfa;
+        if (dfa != null) {
+            int alphabet = pattern.alphabet;
+            for (; i < end; i++) {
+                int c = chunk.charAt(i);
+                j = c < alphabet ? dfa[j * alphabet + c] : 0;
+                if (j == valuesLen) {
+                    count++;
+                    action.accept(base + i + 1 - j);
+                    if (!overlapping) j = 0;
+                }
+            }
+            this.state = j;
+            this.position += length;
+            return count;
+        }
+        boolean fold = pattern.ignoreCase;
+        while (i < end) {
+            if (j == -1 || (fold ? CharKMP.fold(chunk.charAt(i)) : chunk.charAt(i)) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    action.accept(base + i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        this.state = j;
+        this.position += length;
+        return count;
+    }
+}
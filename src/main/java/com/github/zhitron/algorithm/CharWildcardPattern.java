@@ -0,0 +1,331 @@
+package com.github.zhitron.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * 带通配符和字符类的预编译字符模式，不可变且线程安全。
+ * <p>
+ * 与{@link ByteWildcardPattern}一样使用位并行的Shift-And自动机，每个输入字符只做一次查表、一次移位和一次按位与。
+ * [0, 256)中的字符直接查表，更大的字符按模式中出现的区间边界二分定位，不会分配对象。
+ * </p>
+ * <p>
+ * 文本格式与glob相近，按UTF-16代码单元逐个匹配：
+ * </p>
+ * <ul>
+ *     <li>{@code ?}：任意一个字符</li>
+ *     <li>{@code [a-z0-9_]}：字符集合，元素为单个字符或闭区间；{@code [^...]}表示集合的补集</li>
+ *     <li>{@code \}：转义下一个字符，用于匹配字面的{@code ?}、{@code [}、{@code ]}、{@code -}或{@code \}</li>
+ *     <li>其它字符只匹配它本身</li>
+ * </ul>
+ * <p>
+ * 例如{@code "ID-[0-9][0-9]??"}或者{@code "[^ ]\?"}。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class CharWildcardPattern {
+    /**
+     * 模式的文本形式，用于toString
+     */
+    private final String source;
+    /**
+     * 编译后的自动机
+     */
+    private final ShiftAnd automaton;
+
+    /**
+     * 编译文本形式的模式。
+     *
+     * @param pattern 模式文本
+     * @return 编译后的模式
+     * @throws IllegalArgumentException 如果模式文本的格式不正确
+     */
+    public static CharWildcardPattern compile(String pattern) {
+        Objects.requireNonNull(pattern, "pattern");
+        List<int[]> positions = new ArrayList<>();
+        int n = pattern.length(), p = 0;
+        while (p < n) {
+            char c = pattern.charAt(p++);
+            if (c == '?') {
+                positions.add(new int[]{0, Character.MAX_VALUE});
+            } else if (c == '[') {
+                p = parseClass(pattern, p, positions);
+            } else {
+                if (c == '\\') {
+                    if (p >= n) throw syntax(pattern, p - 1, "dangling '\\'");
+                    c = pattern.charAt(p++);
+                }
+                positions.add(new int[]{c, c});
+            }
+        }
+        return new CharWildcardPattern(pattern, positions);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param source    模式的文本形式
+     * @param positions 每个模式位置的字符集合
+     */
+    private CharWildcardPattern(String source, List<int[]> positions) {
+        this.source = source;
+        this.automaton = new ShiftAnd(positions);
+    }
+
+    /**
+     * 解析一个字符集合
+     *
+     * @param pattern   模式文本
+     * @param p         左方括号之后的位置
+     * @param positions 接收解析结果的列表
+     * @return 右方括号之后的位置
+     */
+    private static int parseClass(String pattern, int p, List<int[]> positions) {
+        int n = pattern.length(), open = p - 1;
+        boolean negate = p < n && pattern.charAt(p) == '^';
+        if (negate) p++;
+        List<int[]> ranges = new ArrayList<>();
+        while (true) {
+            if (p >= n) throw syntax(pattern, open, "unclosed '['");
+            char lo = pattern.charAt(p++);
+            if (lo == ']') break;
+            if (lo == '\\') {
+                if (p >= n) throw syntax(pattern, p - 1, "dangling '\\'");
+                lo = pattern.charAt(p++);
+            }
+            char hi = lo;
+            if (p + 1 < n && pattern.charAt(p) == '-' && pattern.charAt(p + 1) != ']') {
+                hi = pattern.charAt(p + 1);
+                p += 2;
+                if (hi == '\\') {
+                    if (p >= n) throw syntax(pattern, p - 1, "dangling '\\'");
+                    hi = pattern.charAt(p++);
+                }
+                if (hi < lo) throw syntax(pattern, p - 1, "invalid range");
+            }
+            ranges.add(new int[]{lo, hi});
+        }
+        int[] merged = merge(ranges, negate);
+        if (merged.length == 0) throw syntax(pattern, open, "empty class");
+        positions.add(merged);
+        return p;
+    }
+
+    /**
+     * 合并字符区间，需要时取补集
+     *
+     * @param ranges 字符闭区间列表
+     * @param negate 是否取补集
+     * @return 按[lo, hi]闭区间成对排列的升序区间集合
+     */
+    private static int[] merge(List<int[]> ranges, boolean negate) {
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] merged = new int[ranges.size() * 2];
+        int size = 0;
+        for (int[] range : ranges) {
+            if (size > 0 && range[0] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], range[1]);
+            } else {
+                merged[size++] = range[0];
+                merged[size++] = range[1];
+            }
+        }
+        if (!negate) return Arrays.copyOf(merged, size);
+        int[] complement = new int[size + 2];
+        int count = 0, next = 0;
+        for (int k = 0; k < size; k += 2) {
+            if (merged[k] > next) {
+                complement[count++] = next;
+                complement[count++] = merged[k] - 1;
+            }
+            next = merged[k + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            complement[count++] = next;
+            complement[count++] = Character.MAX_VALUE;
+        }
+        return Arrays.copyOf(complement, count);
+    }
+
+    /**
+     * 创建格式错误的异常
+     *
+     * @param pattern 模式文本
+     * @param p       出错的位置
+     * @param message 错误信息
+     * @return 异常
+     */
+    private static IllegalArgumentException syntax(String pattern, int p, String message) {
+        return new IllegalArgumentException(message + " at index " + p + ": " + pattern);
+    }
+
+    /**
+     * 获取模式的长度
+     *
+     * @return 模式的长度
+     */
+    public int length() {
+        return automaton.length;
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(char[] input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(char[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        return automaton.indexOf(input, startInclusive, endExclusive);
+    }
+
+    /**
+     * 查找模式在字符序列中第一次出现的位置。
+     *
+     * @param input 要搜索的字符序列
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(CharSequence input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在字符序列中第一次出现的位置，直接通过charAt读取字符。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(CharSequence input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length();
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        return automaton.indexOf(input, startInclusive, endExclusive);
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(char[] input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(char[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        return automaton.lastIndexOf(input, startInclusive, endExclusive);
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(char[] input, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(char[] input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在数组指定范围内出现的每个位置传给回调。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = automaton.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        return automaton.scan(input, startInclusive, endExclusive, overlapping, action);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.zhitron.algorithm;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * 在文件中查找字节模式的工具类。
+ * <p>
+ * 文件按窗口依次映射为{@link MappedByteBuffer}后使用{@link ByteKMP}查找，数据不会被复制到堆上。
+ * 相邻窗口之间重叠模式长度减一个字节，或者通过{@link ByteStreamMatcher}保留匹配状态，
+ * 因此跨越窗口边界的匹配也能被正确找到。所有偏移量均为long，支持超过2GB的文件。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class FileKMP {
+    /**
+     * 表示未找到匹配项时的返回值
+     */
+    public static final long NOT_FOUND = -1L;
+    /**
+     * 默认的映射窗口大小，64MB
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private FileKMP() {
+    }
+
+    /**
+     * 查找模式在文件中第一次出现的位置。
+     *
+     * @param channel 文件通道
+     * @param pattern 编译后的模式
+     * @return 如果找到则返回起始偏移量；否则返回 -1
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long indexOf(FileChannel channel, ByteKMP pattern) throws IOException {
+        return indexOf(channel, pattern, 0, Long.MAX_VALUE, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 在文件的指定范围内查找模式第一次出现的位置。
+     *
+     * @param channel        文件通道
+     * @param pattern        编译后的模式
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param windowSize     每次映射的窗口大小，不能小于模式长度
+     * @return 如果找到则返回起始偏移量；否则返回 -1
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long indexOf(FileChannel channel, ByteKMP pattern, long startInclusive, long endExclusive, int windowSize) throws IOException {
+        int valuesLen = pattern.length();
+        checkWindowSize(valuesLen, windowSize);
+        if (startInclusive < 0) startInclusive = 0;
+        endExclusive = Math.min(endExclusive, channel.size());
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+
+        long windowStart = startInclusive;
+        while (true) {
+            long windowEnd = Math.min(endExclusive, windowStart + windowSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            int index = pattern.indexOf(buffer, 0, buffer.limit());
+            if (index >= 0) return windowStart + index;
+            if (windowEnd == endExclusive) return NOT_FOUND;
+            // 下一个窗口与当前窗口重叠模式长度减一个字节，保证跨窗口的匹配不会被遗漏
+            windowStart = windowEnd - (valuesLen - 1);
+        }
+    }
+
+    /**
+     * 查找模式在文件中最后一次出现的位置。
+     *
+     * @param channel 文件通道
+     * @param pattern 编译后的模式
+     * @return 如果找到则返回起始偏移量；否则返回 -1
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long lastIndexOf(FileChannel channel, ByteKMP pattern) throws IOException {
+        return lastIndexOf(channel, pattern, 0, Long.MAX_VALUE, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * 在文件的指定范围内查找模式最后一次出现的位置，窗口从文件末尾开始向前映射。
+     *
+     * @param channel        文件通道
+     * @param pattern        编译后的模式
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param windowSize     每次映射的窗口大小，不能小于模式长度
+     * @return 如果找到则返回起始偏移量；否则返回 -1
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long lastIndexOf(FileChannel channel, ByteKMP pattern, long startInclusive, long endExclusive, int windowSize) throws IOException {
+        int valuesLen = pattern.length();
+        checkWindowSize(valuesLen, windowSize);
+        if (startInclusive < 0) startInclusive = 0;
+        endExclusive = Math.min(endExclusive, channel.size());
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+
+        long windowEnd = endExclusive;
+        while (true) {
+            long windowStart = Math.max(startInclusive, windowEnd - windowSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            int index = pattern.lastIndexOf(buffer, 0, buffer.limit());
+            if (index >= 0) return windowStart + index;
+            if (windowStart == startInclusive) return NOT_FOUND;
+            // 上一个窗口与当前窗口重叠模式长度减一个字节，保证跨窗口的匹配不会被遗漏
+            windowEnd = windowStart + (valuesLen - 1);
+        }
+    }
+
+    /**
+     * 统计模式在文件中出现的次数。
+     *
+     * @param channel     文件通道
+     * @param pattern     编译后的模式
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long count(FileChannel channel, ByteKMP pattern, boolean overlapping) throws IOException {
+        return forEach(channel, pattern, 0, Long.MAX_VALUE, overlapping, DEFAULT_WINDOW_SIZE, null);
+    }
+
+    /**
+     * 按升序把模式在文件中出现的每个偏移量传给回调。
+     *
+     * @param channel     文件通道
+     * @param pattern     编译后的模式
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始偏移量的回调
+     * @return 匹配的次数
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long forEach(FileChannel channel, ByteKMP pattern, boolean overlapping, LongConsumer action) throws IOException {
+        return forEach(channel, pattern, 0, Long.MAX_VALUE, overlapping, DEFAULT_WINDOW_SIZE, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把模式在文件指定范围内出现的每个偏移量传给回调。
+     * 窗口之间不重叠，匹配状态通过{@link ByteStreamMatcher}跨窗口保留，每个字节只读取一次。
+     *
+     * @param channel        文件通道
+     * @param pattern        编译后的模式
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param windowSize     每次映射的窗口大小，不能小于模式长度
+     * @param action         接收匹配起始偏移量的回调，为null时只计数
+     * @return 匹配的次数
+     * @throws IOException 读取文件失败时抛出
+     */
+    public static long forEach(FileChannel channel, ByteKMP pattern, long startInclusive, long endExclusive, boolean overlapping, int windowSize, LongConsumer action) throws IOException {
+        int valuesLen = pattern.length();
+        checkWindowSize(valuesLen, windowSize);
+        if (startInclusive < 0) startInclusive = 0;
+        endExclusive = Math.min(endExclusive, channel.size());
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return 0;
+
+        long base = startInclusive;
+        LongConsumer consumer = action == null ? (index) -> {
+        } : (index) -> action.accept(base + index);
+        ByteStreamMatcher matcher = ByteStreamMatcher.of(pattern, overlapping);
+        long count = 0;
+        for (long windowStart = startInclusive; windowStart < endExclusive; windowStart += windowSize) {
+            long windowEnd = Math.min(endExclusive, windowStart + windowSize);
+            count += matcher.feed(channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart), consumer);
+        }
+        return count;
+    }
+
+    /**
+     * 检查窗口大小是否足以容纳模式
+     *
+     * @param valuesLen  模式长度
+     * @param windowSize 窗口大小
+     */
+    private static void checkWindowSize(int valuesLen, int windowSize) {
+        if (windowSize <= 0 || windowSize < valuesLen) {
+            throw new IllegalArgumentException("windowSize must be positive and not less than the pattern length: " + windowSize);
+        }
+    }
+}
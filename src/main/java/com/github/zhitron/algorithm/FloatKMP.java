@@ -0,0 +1,500 @@
+package com.github.zhitron.algorithm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 针对float数组特化的预编译KMP模式，不可变且线程安全。
+ * <p>
+ * 查找过程直接读取数组元素进行比较，不会产生装箱和额外的对象分配。
+ * 元素按照{@link Float#compare}的语义判断相等，即NaN与NaN相等，而0.0与-0.0不相等。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class FloatKMP {
+    /**
+     * 模式序列的快照，保存为float的二进制表示，与Float.compare的相等语义一致
+     */
+    final int[] target;
+    /**
+     * 预先计算的next数组，长度为模式长度加一
+     */
+    final int[] next;
+    /**
+     * 反向查找使用的反转模式的next数组，长度为模式长度加一
+     */
+    final int[] prev;
+    /**
+     * 可选的查找统计，为null时不统计
+     */
+    final KMPMetrics metrics;
+
+    /**
+     * 编译一个float模式，编译时会复制模式数组。
+     *
+     * @param target 模式数组
+     * @return 编译后的模式
+     */
+    public static FloatKMP compile(float[] target) {
+        int length = target == null ? 0 : target.length;
+        int[] bits = new int[length];
+        for (int i = 0; i < length; i++) {
+            bits[i] = Float.floatToIntBits(target[i]);
+        }
+        return new FloatKMP(bits);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param target 模式序列的快照
+     */
+    private FloatKMP(int[] target) {
+        this.target = target;
+        this.next = KMPCache.shared().next(target, null, 0, target.length, (i, j) -> target[i] == target[j]);
+        this.prev = KMPCache.shared().next(target, null, KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        this.metrics = null;
+    }
+
+    /**
+     * 私有构造函数，复用已有模式的快照并替换next数组
+     *
+     * @param base    已编译的模式
+     * @param next    正向查找使用的next数组
+     * @param prev    反向查找使用的next数组
+     * @param metrics 查找统计
+     */
+    private FloatKMP(FloatKMP base, int[] next, int[] prev, KMPMetrics metrics) {
+        this.target = base.target;
+        this.next = next;
+        this.prev = prev;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 获取模式序列的长度
+     *
+     * @return 模式序列的长度
+     */
+    public int length() {
+        return target.length;
+    }
+
+    /**
+     * 分析模式序列的周期和边界
+     *
+     * @return 分析结果
+     */
+    public Periodicity periodicity() {
+        int[] target = this.target;
+        return Periodicity.of(target.length, (i, j) -> target[i] == target[j]);
+    }
+
+    /**
+     * 使用{@link KMP#generateOptimizedNext}生成的优化next数组进行正向和反向查找。
+     * 查找结果不变，对于重复度较高的模式可以减少失配时的比较次数。
+     *
+     * @return 使用优化next数组的新模式
+     */
+    public FloatKMP withOptimizedNext() {
+        int[] target = this.target;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] next = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED, target.length, (i, j) -> target[i] == target[j]);
+        int[] prev = KMPCache.shared().next(target, null, KMPCache.OPTIMIZED | KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return new FloatKMP(this, next, prev, metrics);
+    }
+
+    /**
+     * 绑定查找统计，返回的新模式共享当前模式的快照和next数组。
+     * 绑定后的模式使用带计数的查找循环，详见{@link KMPMetrics}。
+     *
+     * @param metrics 查找统计，为null时返回不统计的模式
+     * @return 绑定了查找统计的新模式
+     */
+    public FloatKMP withMetrics(KMPMetrics metrics) {
+        return metrics == this.metrics ? this : new FloatKMP(this, next, prev, metrics);
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(float[] input) {
+        return this.indexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始查找模式在数组中第一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(float[] input, int offset) {
+        return this.indexOf(input, offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 批量查找模式在每个数组中第一次出现的位置，第k个输入的结果写入{@code results[k]}。
+     * 整个批次共享同一份预编译的next数组，除了一个查找函数之外不会为单个输入分配任何对象。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<float[]> inputs, int[] results) {
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, null);
+    }
+
+    /**
+     * 使用指定的线程池批量查找模式在每个数组中第一次出现的位置，结果与{@link #indexOfEach(List, int[])}一致。
+     * 输入按编号切分成若干段并行查找，输入过少时直接在当前线程中完成。
+     *
+     * @param inputs  要搜索的数组列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @param pool    执行查找的线程池
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<float[]> inputs, int[] results, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, pool);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(float[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.indexOf(next, valuesLen, (a, b) -> Float.floatToIntBits(input[a]) == target[b], startInclusive, endExclusive);
+        }
+
+        int[] target = this.target;
+        int[] next = this.next;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || Float.floatToIntBits(input[i]) == target[j]) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(float[] input) {
+        return this.lastIndexOf(input, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 从指定位置开始向前查找模式在数组中最后一次出现的位置。
+     *
+     * @param input  要搜索的数组
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(float[] input, int offset) {
+        return this.lastIndexOf(input, 0, offset == Integer.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(float[] input, int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+        if (metrics != null) {
+            return metrics.lastIndexOf(prev, valuesLen, (a, b) -> Float.floatToIntBits(input[a]) == target[b], startInclusive, endExclusive);
+        }
+
+        int[] target = this.target;
+        int[] prev = this.prev;
+        // 从右向左扫描，j为已经匹配的模式后缀长度，失配时按反转模式的next数组回退
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || Float.floatToIntBits(input[i]) == target[last - j]) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(float[] input, boolean overlapping) {
+        return this.findAll(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 在指定范围内查找模式在数组中出现的所有位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(float[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(input, startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(float[] input, boolean overlapping) {
+        return this.scan(input, 0, Integer.MAX_VALUE, overlapping, null);
+    }
+
+    /**
+     * 统计模式在数组指定范围内出现的次数。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(float[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(input, startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在数组中出现的每个位置传给回调。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(float[] input, boolean overlapping, IntConsumer action) {
+        this.scan(input, 0, Integer.MAX_VALUE, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把模式在数组指定范围内出现的每个位置传给回调。
+     * 整个过程只对输入做一次线性扫描，找到一个匹配后从当前自动机状态继续匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(float[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(input, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在数组中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(float[] input, boolean overlapping) {
+        return this.matches(input, 0, Integer.MAX_VALUE, overlapping);
+    }
+
+    /**
+     * 获取模式在数组指定范围内出现的所有位置组成的流。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，不允许重叠时只能顺序查找。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(float[] input, int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = input == null ? 0 : input.length;
+        return MatchSpliterator.stream(this.bind(input), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(float[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        if (metrics != null) {
+            return metrics.scan(next, valuesLen, (a, b) -> Float.floatToIntBits(input[a]) == target[b], startInclusive, endExclusive, overlapping, action);
+        }
+
+        int[] target = this.target;
+        int[] next = this.next;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || Float.floatToIntBits(input[i]) == target[j]) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 查找数组中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的数组
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(float[] input, int maxMismatches) {
+        return this.findAllApproximate(input, 0, Integer.MAX_VALUE, maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找数组中与模式相比不同元素不超过maxMismatches个的所有位置。
+     * 查找先逐个位置比较，不同元素超过maxMismatches个时立即放弃；元素重复较多使得比较次数偏高时，
+     * 改用位并行的计数自动机，每个元素的代价只与模式长度和maxMismatches有关。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(float[] input, int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param input          要搜索的数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(float[] input, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = input == null ? 0 : input.length;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        int[] target = this.target;
+        if (maxMismatches == 0) return this.scan(input, startInclusive, endExclusive, true, action);
+        long[] keys = new long[valuesLen];
+        for (int j = 0; j < valuesLen; j++) keys[j] = target[j];
+        return ShiftAdd.scan(keys, maxMismatches, startInclusive, endExclusive, (automaton, from, to, rows) -> {
+            for (int i = from; i < to; i++) rows[i - from] = automaton.row(Float.floatToIntBits(input[i]));
+        }, action);
+    }
+
+    /**
+     * 把当前模式绑定到指定的输入数组上，供{@link KMP}的工厂方法使用
+     *
+     * @param input 要搜索的数组
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(float[] input) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return FloatKMP.this.indexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return FloatKMP.this.lastIndexOf(input, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return FloatKMP.this.scan(input, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return FloatKMP.this.scanApproximate(input, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+}
@@ -2,11 +2,15 @@ package com.github.zhitron.algorithm;
 
 import com.github.zhitron.lambda.predicate.TwicePredicateInt;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
 
 /**
  * KMP算法实现类，用于高效地在数组或列表中查找子序列。
@@ -23,11 +27,15 @@ import java.util.function.IntSupplier;
  * @author zhitron
  */
 @SuppressWarnings("NumberEquality")
-public final class KMP<E> {
+public final class KMP<E> implements PatternMatcher {
     /**
      * 表示未找到匹配项时的返回值
      */
     public static final int NOT_FOUND = -1;
+    /**
+     * DFA转移表允许占用的默认最大字节数，见{@link ByteKMP#withDfa()}
+     */
+    public static final long DEFAULT_DFA_BUDGET = 1L << 20;
     /**
      * 输入序列的长度提供器
      */
@@ -48,6 +56,22 @@ public final class KMP<E> {
      * 元素比较器，默认使用Objects::equals
      */
     private BiPredicate<E, E> compare = Objects::equals;
+    /**
+     * 查找时是否使用优化的next数组
+     */
+    private boolean optimizedNext;
+    /**
+     * 可选的查找统计，为null时不统计
+     */
+    private KMPMetrics metrics;
+    /**
+     * 通用查找路径是否在线程的缓冲区中生成next数组
+     */
+    private boolean threadLocalWorkspace;
+    /**
+     * 由基本类型工厂方法绑定的特化查找器，调用任意设置方法后失效
+     */
+    private RangeSearcher searcher;
 
     /**
      * 创建一个新的KMP实例
@@ -93,6 +117,8 @@ public final class KMP<E> {
 
     /**
      * 创建一个KMP实例，用于在给定的boolean数组中查找目标子数组。
+     * 查找会直接使用{@link BooleanKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的boolean数组
      * @param target 要查找的目标boolean子数组
@@ -104,11 +130,14 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.booleanValue() == te.booleanValue())
+                .bindSearcher(BooleanKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的char数组中查找目标子数组。
+     * 查找会直接使用{@link CharKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的char数组
      * @param target 要查找的目标char子数组
@@ -120,11 +149,53 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.charValue() == te.charValue())
+                .bindSearcher(CharKMP.compile(target).bind(input));
+    }
+
+    /**
+     * 创建一个KMP实例，用于在给定的字符序列中查找目标字符序列。
+     * 查找会直接使用{@link CharKMP}通过charAt读取输入，不会复制输入，也不会装箱；
+     * 输入可以是String、StringBuilder或CharBuffer等任意CharSequence，查找时读取的是它当时的内容。
+     * 模式在创建时被预编译，之后对模式的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
+     *
+     * @param input  要搜索的字符序列
+     * @param target 要查找的目标字符序列
+     * @return 配置好的KMP实例
+     */
+    public static KMP<Character> of(CharSequence input, CharSequence target) {
+        return KMP.<Character>of()
+                .setInputLength(() -> input == null ? 0 : input.length())
+                .setInputAccessor((i) -> input.charAt(i))
+                .setTargetLength(() -> target == null ? 0 : target.length())
+                .setTargetAccessor((i) -> target.charAt(i))
+                .setCompare((ie, te) -> ie.charValue() == te.charValue())
+                .bindSearcher(CharKMP.compile(target).bind(input));
+    }
+
+    /**
+     * 创建一个忽略大小写的KMP实例，用于在给定的字符序列中查找目标字符序列。
+     * 查找会直接使用{@link CharKMP#withIgnoreCase()}返回的模式，逐个折叠输入字符后比较，不会分配对象，
+     * 折叠规则与{@link String#CASE_INSENSITIVE_ORDER}一致。调用任意设置方法后会退回到通用的查找方式。
+     *
+     * @param input  要搜索的字符序列
+     * @param target 要查找的目标字符序列
+     * @return 配置好的KMP实例
+     */
+    public static KMP<Character> ofIgnoreCase(CharSequence input, CharSequence target) {
+        return KMP.<Character>of()
+                .setInputLength(() -> input == null ? 0 : input.length())
+                .setInputAccessor((i) -> input.charAt(i))
+                .setTargetLength(() -> target == null ? 0 : target.length())
+                .setTargetAccessor((i) -> target.charAt(i))
+                .setCompare((ie, te) -> CharKMP.fold(ie) == CharKMP.fold(te))
+                .bindSearcher(CharKMP.compile(target).withIgnoreCase().bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的byte数组中查找目标子数组。
+     * 查找会直接使用{@link ByteKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的byte数组
      * @param target 要查找的目标byte子数组
@@ -136,11 +207,34 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.byteValue() == te.byteValue())
+                .bindSearcher(ByteKMP.compile(target).bind(input));
+    }
+
+    /**
+     * 创建一个KMP实例，用于在给定的字节缓冲区中查找目标子数组。
+     * 缓冲区通过绝对位置的get方法读取，下标从0开始，长度为缓冲区的limit，
+     * 因此可以直接搜索直接缓冲区和内存映射缓冲区而无需复制到堆上。
+     * 查找会直接使用{@link ByteKMP}进行，不会装箱；模式数组在创建时被预编译。
+     *
+     * @param input  要搜索的字节缓冲区
+     * @param target 要查找的目标byte子数组
+     * @return 配置好的KMP实例
+     */
+    public static KMP<Byte> of(ByteBuffer input, byte[] target) {
+        return KMP.<Byte>of()
+                .setInputLength(() -> input == null ? 0 : input.limit())
+                .setInputAccessor((i) -> input.get(i))
+                .setTargetLength(() -> target == null ? 0 : target.length)
+                .setTargetAccessor((i) -> target[i])
+                .setCompare((ie, te) -> ie.byteValue() == te.byteValue())
+                .bindSearcher(ByteKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的short数组中查找目标子数组。
+     * 查找会直接使用{@link ShortKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的short数组
      * @param target 要查找的目标short子数组
@@ -152,11 +246,14 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.shortValue() == te.shortValue())
+                .bindSearcher(ShortKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的int数组中查找目标子数组。
+     * 查找会直接使用{@link IntKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的int数组
      * @param target 要查找的目标int子数组
@@ -168,11 +265,14 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.intValue() == te.intValue())
+                .bindSearcher(IntKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的long数组中查找目标子数组。
+     * 查找会直接使用{@link LongKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的long数组
      * @param target 要查找的目标long子数组
@@ -184,11 +284,14 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> ie == te);
+                .setCompare((ie, te) -> ie.longValue() == te.longValue())
+                .bindSearcher(LongKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的float数组中查找目标子数组。
+     * 查找会直接使用{@link FloatKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的float数组
      * @param target 要查找的目标float子数组
@@ -200,11 +303,14 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> Float.compare(ie, te) == 0);
+                .setCompare((ie, te) -> Float.compare(ie, te) == 0)
+                .bindSearcher(FloatKMP.compile(target).bind(input));
     }
 
     /**
      * 创建一个KMP实例，用于在给定的double数组中查找目标子数组。
+     * 查找会直接使用{@link DoubleKMP}在数组上进行，不会装箱；模式数组在创建时被预编译，
+     * 之后对模式数组的修改不会生效。调用任意设置方法后会退回到通用的查找方式。
      *
      * @param input  要搜索的double数组
      * @param target 要查找的目标double子数组
@@ -216,7 +322,8 @@ public final class KMP<E> {
                 .setInputAccessor((i) -> input[i])
                 .setTargetLength(() -> target == null ? 0 : target.length)
                 .setTargetAccessor((i) -> target[i])
-                .setCompare((ie, te) -> Double.compare(ie, te) == 0);
+                .setCompare((ie, te) -> Double.compare(ie, te) == 0)
+                .bindSearcher(DoubleKMP.compile(target).bind(input));
     }
 
     /**
@@ -228,7 +335,23 @@ public final class KMP<E> {
      * @return 返回生成的next数组，next数组的每个元素表示在匹配失败时模式串的滑动位置
      */
     public static int[] generateNext(int length, TwicePredicateInt compare) {
-        int[] next = new int[length];
+        return generateNext(length, compare, new int[length]);
+    }
+
+    /**
+     * 在调用者提供的数组中生成KMP算法的next数组，用于在循环中反复分析或编译模式时复用同一块缓冲区。
+     * 只写入数组的前length个元素，结果与{@link #generateNext(int, TwicePredicateInt)}相同。
+     *
+     * @param length  模式串的长度
+     * @param compare 用于比较模式串中字符的谓词
+     * @param next    接收结果的数组，长度不能小于length
+     * @return 传入的next数组
+     * @throws IllegalArgumentException 数组长度小于length时抛出
+     */
+    public static int[] generateNext(int length, TwicePredicateInt compare, int[] next) {
+        if (next.length < length) {
+            throw new IllegalArgumentException("next.length < length: " + next.length + " < " + length);
+        }
         next[0] = -1; // 初始化next数组的第一个元素为-1
         int i = 0, j = -1;
         // 通过双指针法计算next数组
@@ -246,12 +369,70 @@ public final class KMP<E> {
         return next;
     }
 
+    /**
+     * 生成优化的next数组（也称为nextval数组）。
+     * 经典的next数组在位置i失配后会回退到next[i]，如果模式在next[i]处的元素与位置i的元素相等，
+     * 回退后的比较注定还会失败。优化的数组在生成时就跳过这些位置，直接回退到第一个元素不同的位置，
+     * 对于重复度较高的模式可以显著减少失配时的比较次数，查找结果与经典的next数组完全相同。
+     * <p>
+     * 返回的数组长度为模式长度加一：前length个元素为优化后的回退位置，
+     * 最后一个元素仍然是完整模式的最长公共前后缀长度，用于完整匹配之后的继续匹配。
+     * </p>
+     *
+     * @param length  模式串的长度
+     * @param compare 用于比较模式串中字符的谓词
+     * @return 长度为length + 1的优化next数组
+     */
+    public static int[] generateOptimizedNext(int length, TwicePredicateInt compare) {
+        return generateOptimizedNext(length, compare, new int[length + 1]);
+    }
+
+    /**
+     * 在调用者提供的数组中生成优化的next数组，只写入数组的前length + 1个元素，
+     * 结果与{@link #generateOptimizedNext(int, TwicePredicateInt)}相同。
+     *
+     * @param length  模式串的长度
+     * @param compare 用于比较模式串中字符的谓词
+     * @param next    接收结果的数组，长度不能小于length + 1
+     * @return 传入的next数组
+     * @throws IllegalArgumentException 数组长度小于length + 1时抛出
+     */
+    public static int[] generateOptimizedNext(int length, TwicePredicateInt compare, int[] next) {
+        if (next.length <= length) {
+            throw new IllegalArgumentException("next.length <= length: " + next.length + " <= " + length);
+        }
+        next[0] = -1;
+        int i = 0, j = -1;
+        while (i < length) {
+            if (j == -1 || compare.test(i, j)) {
+                i++;
+                j++;
+                // 位置i与回退位置j的元素相同时，在i处失配也必然在j处失配，直接继承j的回退位置
+                next[i] = i < length && compare.test(i, j) ? next[j] : j;
+            } else {
+                j = next[j];
+            }
+        }
+        return next;
+    }
+
     /**
      * 私有构造函数，防止外部实例化
      */
     private KMP() {
     }
 
+    /**
+     * 绑定一个特化的区间查找器，必须在所有设置方法之后调用
+     *
+     * @param searcher 区间查找器
+     * @return 当前KMP实例
+     */
+    private KMP<E> bindSearcher(RangeSearcher searcher) {
+        this.searcher = searcher;
+        return this;
+    }
+
     /**
      * 获取输入序列的长度
      *
@@ -278,6 +459,7 @@ public final class KMP<E> {
      */
     public KMP<E> setInputLength(IntSupplier inputLength) {
         this.inputLength = inputLength;
+        this.searcher = null;
         return this;
     }
 
@@ -289,6 +471,7 @@ public final class KMP<E> {
      */
     public KMP<E> setInputAccessor(IntFunction<E> inputAccessor) {
         this.inputAccessor = inputAccessor;
+        this.searcher = null;
         return this;
     }
 
@@ -300,6 +483,7 @@ public final class KMP<E> {
      */
     public KMP<E> setTargetLength(IntSupplier targetLength) {
         this.targetLength = targetLength;
+        this.searcher = null;
         return this;
     }
 
@@ -311,6 +495,7 @@ public final class KMP<E> {
      */
     public KMP<E> setTargetAccessor(IntFunction<E> targetAccessor) {
         this.targetAccessor = targetAccessor;
+        this.searcher = null;
         return this;
     }
 
@@ -322,9 +507,76 @@ public final class KMP<E> {
      */
     public KMP<E> setCompare(BiPredicate<E, E> compare) {
         this.compare = compare;
+        this.searcher = null;
         return this;
     }
 
+    /**
+     * 设置正向和反向查找时是否使用{@link #generateOptimizedNext}生成的优化next数组，默认不使用。
+     * 该设置影响通用查找路径和{@link #compile()}；基本类型工厂方法绑定的特化查找器不受影响，
+     * 需要时请直接使用对应特化类型的withOptimizedNext方法。
+     *
+     * @param optimizedNext 是否使用优化的next数组
+     * @return 当前KMP实例
+     */
+    public KMP<E> setOptimizedNext(boolean optimizedNext) {
+        this.optimizedNext = optimizedNext;
+        return this;
+    }
+
+    /**
+     * 设置查找统计，默认不统计。
+     * 设置后基本类型工厂方法绑定的特化查找器失效，所有查找都走带计数的通用查找路径，
+     * 每次查找获取next数组的耗时计为一次表构建；{@link #compile()}编译的模式同样绑定该统计。
+     *
+     * @param metrics 查找统计，为null时关闭统计
+     * @return 当前KMP实例
+     */
+    public KMP<E> setMetrics(KMPMetrics metrics) {
+        this.metrics = metrics;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置通用查找路径是否在每个线程保留的缓冲区中生成next数组，默认不使用。
+     * KMPCache关闭时，通用查找路径每次查找都会分配一个模式长度加一的next数组；
+     * 开启后同一线程上稳定状态下的查找不再分配该数组，比较器中嵌套的查找会临时分配，不会相互覆盖。
+     * 基本类型工厂方法绑定的特化查找器使用预先计算的next数组，不受该设置影响。
+     *
+     * @param threadLocalWorkspace 是否使用线程的缓冲区
+     * @return 当前KMP实例
+     */
+    public KMP<E> setThreadLocalWorkspace(boolean threadLocalWorkspace) {
+        this.threadLocalWorkspace = threadLocalWorkspace;
+        return this;
+    }
+
+    /**
+     * 通过当前的模式序列访问器和元素比较器分析模式序列的周期和边界
+     *
+     * @return 分析结果
+     */
+    public Periodicity periodicity() {
+        return Periodicity.of(targetLength.getAsInt(), (i, j) -> compare.test(targetAccessor.apply(i), targetAccessor.apply(j)));
+    }
+
+    /**
+     * 根据当前的模式序列访问器和元素比较器编译一个不可变的模式。
+     * 编译后的模式预先计算好next数组，可以被多个线程共享并反复用于查找。
+     *
+     * @return 编译后的模式
+     */
+    public KMPPattern<E> compile() {
+        KMPMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        KMPPattern<E> pattern = KMPPattern.compile(targetLength.getAsInt(), targetAccessor, compare);
+        if (optimizedNext) pattern = pattern.withOptimizedNext();
+        if (metrics == null) return pattern;
+        metrics.recordBuild(System.nanoTime() - start);
+        return pattern.withMetrics(metrics);
+    }
+
     /**
      * 查找指定数组在当前列表中的第一次出现的位置。
      * 该函数使用KMP算法进行匹配，以提高查找效率。
@@ -345,6 +597,23 @@ public final class KMP<E> {
      * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
      */
     public int indexOf(int startInclusive, int endExclusive) {
+        return this.indexOf(startInclusive, endExclusive, (int[]) null);
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中第一次出现的位置，在调用者提供的工作数组中生成next数组。
+     * 反复查找时传入同一个长度不小于模式长度加一的数组，通用查找路径就不会再分配next数组；
+     * 开启KMPCache或绑定了特化查找器时工作数组不会被使用。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param workspace      工作数组，为null或长度不足时按{@link #setThreadLocalWorkspace(boolean)}的设置获取
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public int indexOf(int startInclusive, int endExclusive, int[] workspace) {
+        // 如果绑定了特化的查找器，则直接使用它进行查找
+        if (searcher != null) return searcher.indexOf(startInclusive, endExclusive);
+
         // 检查查找范围是否有效：起始位置不能大于等于结束位置
         if (startInclusive >= endExclusive) return NOT_FOUND;
 
@@ -365,8 +634,14 @@ public final class KMP<E> {
         // 检查在指定范围内是否有足够的字符进行匹配
         if (valuesLen > endExclusive - startInclusive) return NOT_FOUND;
 
-        // 生成KMP算法的next数组，用于优化匹配过程
-        int[] next = KMP.generateNext(valuesLen, (i, j) -> compare.test(targetAccessor.apply(i), targetAccessor.apply(j)));
+        // 生成KMP算法的next数组，用于优化匹配过程；开启KMPCache时复用相同模式已经生成的结果
+        int[] pooled = this.acquire(workspace, valuesLen);
+        int[] next = this.table(valuesLen, optimizedNext ? KMPCache.OPTIMIZED : 0, pooled != null ? pooled : workspace);
+        if (metrics != null) {
+            int index = metrics.indexOf(next, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), targetAccessor.apply(b)), startInclusive, endExclusive);
+            Workspace.release(pooled);
+            return index;
+        }
 
         // 初始化指针，i用于遍历输入序列，j用于遍历目标序列
         int i = startInclusive, j = 0;
@@ -382,6 +657,7 @@ public final class KMP<E> {
                 j = next[j];
             }
         }
+        Workspace.release(pooled);
 
         // 如果j等于目标序列的长度，说明找到了完整的匹配，返回起始索引
         if (j == valuesLen) {
@@ -394,24 +670,41 @@ public final class KMP<E> {
 
     /**
      * 查找指定数组在当前列表中的最后一次出现的位置。
-     * 该函数使用修改版的KMP算法从末尾开始匹配，以提高查找效率。
+     * 该函数使用反转模式的next数组从末尾开始匹配，以提高查找效率。
      *
      * @param offset 起始查找位置
      * @return 如果找到指定数组，则返回其在当前列表中的起始索引；否则返回 -1
      */
     public int lastIndexOf(int offset) {
-        return this.lastIndexOf(0, offset + 1);
+        return this.lastIndexOf(0, offset == Integer.MAX_VALUE ? offset : offset + 1);
     }
 
     /**
      * 在指定范围内查找目标序列在输入序列中最后一次出现的位置。
-     * 使用修改版的KMP算法从末尾开始匹配，以提高查找效率。
+     * 从右向左扫描输入序列，相当于在反转的输入序列中查找反转的目标序列，
+     * 失配时按反转目标序列的next数组回退，每个输入元素最多被向左越过一次，最坏情况下的时间复杂度为O(n + m)。
      *
      * @param startInclusive 起始查找位置（包含）
      * @param endExclusive   结束查找位置（不包含）
      * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
      */
     public int lastIndexOf(int startInclusive, int endExclusive) {
+        return this.lastIndexOf(startInclusive, endExclusive, (int[]) null);
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中最后一次出现的位置，在调用者提供的工作数组中生成反转模式的next数组。
+     * 工作数组的使用方式与{@link #indexOf(int, int, int[])}相同。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param workspace      工作数组，为null或长度不足时按{@link #setThreadLocalWorkspace(boolean)}的设置获取
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public int lastIndexOf(int startInclusive, int endExclusive, int[] workspace) {
+        // 如果绑定了特化的查找器，则直接使用它进行查找
+        if (searcher != null) return searcher.lastIndexOf(startInclusive, endExclusive);
+
         // 检查查找范围是否有效：起始位置不能大于等于结束位置
         if (startInclusive >= endExclusive) return NOT_FOUND;
 
@@ -432,34 +725,357 @@ public final class KMP<E> {
         // 检查在指定范围内是否有足够的字符进行匹配
         if (valuesLen > endExclusive - startInclusive) return NOT_FOUND;
 
-        // 使用KMP算法生成next数组，用于优化匹配过程
-        int[] next = KMP.generateNext(valuesLen, (i, j) -> compare.test(targetAccessor.apply(i), targetAccessor.apply(j)));
+        // 生成反转目标序列的next数组；开启KMPCache时复用相同模式已经生成的结果
+        int kind = optimizedNext ? KMPCache.REVERSED | KMPCache.OPTIMIZED : KMPCache.REVERSED;
+        int[] pooled = this.acquire(workspace, valuesLen);
+        int[] prev = this.table(valuesLen, kind, pooled != null ? pooled : workspace);
+        if (metrics != null) {
+            int index = metrics.lastIndexOf(prev, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), targetAccessor.apply(b)), startInclusive, endExclusive);
+            Workspace.release(pooled);
+            return index;
+        }
 
-        // 从指定范围的末尾开始匹配，i为输入序列中的起始位置，j为目标序列的匹配位置
-        int i = endExclusive - valuesLen;
-        int j = 0;
+        // 从指定范围的末尾开始匹配，i为输入序列中的当前位置，j为已经匹配的目标序列后缀长度
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
 
-        // 使用修改版的KMP算法进行匹配
         while (i >= startInclusive && j < valuesLen) {
-            // 如果字符匹配或j为-1（表示重新开始匹配），则继续比较下一个字符
-            if (j == -1 || compare.test(inputAccessor.apply(i + j), targetAccessor.apply(j))) {
+            // 如果字符匹配或j为-1（表示重新开始匹配），则继续向左比较下一个字符
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(last - j))) {
+                i--;
                 j++;
             } else {
-                // 如果字符不匹配，则根据next数组调整i的位置，并更新j的值
-                if (j == 0) {
-                    i--;
-                } else {
-                    i -= (j - next[j]);
-                    j = next[j];
-                }
+                // 如果字符不匹配，则根据反转目标序列的next数组回退j的位置
+                j = prev[j];
             }
         }
+        Workspace.release(pooled);
 
-        // 判断是否找到匹配的数组
+        // 判断是否找到匹配的数组，匹配的起始位置是最后一次比较位置的右边一位
         if (j == valuesLen) {
-            return i;
+            return i + 1;
         } else {
             return NOT_FOUND;
         }
     }
+
+    /**
+     * 查找目标序列在输入序列中出现的所有位置。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(boolean overlapping) {
+        return this.findAll(0, inputLength.getAsInt(), overlapping);
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中出现的所有位置。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 查找输入序列中与目标序列相比不同元素不超过maxMismatches个的所有位置，
+     * 即与目标序列的汉明距离不超过maxMismatches的所有子序列，元素是否相同由比较器决定。
+     *
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(int maxMismatches) {
+        return this.findAllApproximate(0, inputLength.getAsInt(), maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找输入序列中与目标序列相比不同元素不超过maxMismatches个的所有位置。
+     * 通用的查找把目标序列切分成maxMismatches + 1个片段，任何近似匹配都至少包含一个完全相同的片段，
+     * 因此先用精确的KMP查找定位候选位置，再逐个校验候选位置上不同元素的数量，超过maxMismatches个时立即放弃。
+     * 基本类型工厂方法创建的实例直接在数组上查找，不会装箱，元素重复较多时还会改用位并行的计数自动机。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.boundSearcher(inputLength.getAsInt()).scanApproximate(startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计目标序列在输入序列中出现的次数。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(boolean overlapping) {
+        return this.scan(0, inputLength.getAsInt(), overlapping, null);
+    }
+
+    /**
+     * 统计目标序列在输入序列指定范围内出现的次数。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把目标序列在输入序列中出现的每个位置传给回调。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(boolean overlapping, IntConsumer action) {
+        this.forEach(0, inputLength.getAsInt(), overlapping, action);
+    }
+
+    /**
+     * 按升序把目标序列在输入序列指定范围内出现的每个位置传给回调。
+     * 整个过程只生成一次next数组并对输入做一次线性扫描，
+     * 找到一个匹配后从当前自动机状态继续匹配，而不是重新开始。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取目标序列在输入序列中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(boolean overlapping) {
+        return this.matches(0, inputLength.getAsInt(), overlapping);
+    }
+
+    /**
+     * 获取目标序列在输入序列指定范围内出现的所有位置组成的流。
+     * 调用时就确定了输入长度并编译模式，之后对当前实例的设置不会影响已经返回的流；
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，此时输入和元素比较器必须能被多个线程同时读取。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(int startInclusive, int endExclusive, boolean overlapping) {
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+        return MatchSpliterator.stream(this.boundSearcher(inputLen), valuesLen, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    private int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        // 如果绑定了特化的查找器，则直接使用它进行查找
+        if (searcher != null) return searcher.scan(startInclusive, endExclusive, overlapping, action);
+
+        // 检查查找范围是否有效：起始位置不能大于等于结束位置
+        if (startInclusive >= endExclusive) return 0;
+
+        // 获取输入序列和目标序列的长度
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+
+        // 检查序列是否有效：输入序列或目标序列长度小于等于0，或者目标序列长度大于输入序列长度
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+
+        // 检查查找范围是否有效：结束位置小于等于0，或者起始位置超出输入序列范围
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+
+        // 调整查找范围到有效边界内
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+
+        // 检查在指定范围内是否有足够的字符进行匹配
+        if (valuesLen > endExclusive - startInclusive) return 0;
+
+        // 生成next数组时多计算一位，得到完整匹配之后可以复用的前缀长度
+        int[] pooled = this.acquire(null, valuesLen);
+        int[] next = this.table(valuesLen, optimizedNext ? KMPCache.OPTIMIZED : 0, pooled);
+        if (metrics != null) {
+            int count = metrics.scan(next, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), targetAccessor.apply(b)), startInclusive, endExclusive, overlapping, action);
+            Workspace.release(pooled);
+            return count;
+        }
+
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(j))) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        Workspace.release(pooled);
+        return count;
+    }
+
+    /**
+     * 在调用者没有提供足够长的工作数组并且开启了{@link #setThreadLocalWorkspace(boolean)}时，取出线程的缓冲区
+     *
+     * @param workspace 调用者提供的工作数组，可以为null
+     * @param valuesLen 目标序列的长度
+     * @return 取出的缓冲区，查找结束后需要通过{@link Workspace#release(int[])}归还；不需要时返回null
+     */
+    private int[] acquire(int[] workspace, int valuesLen) {
+        if (!threadLocalWorkspace || (workspace != null && workspace.length > valuesLen)) return null;
+        return Workspace.acquire(valuesLen + 1);
+    }
+
+    /**
+     * 获取当前模式的next数组，开启KMPCache时复用相同模式已经生成的结果，设置了查找统计时记录获取的耗时
+     *
+     * @param valuesLen 目标序列的长度
+     * @param kind      next数组的种类
+     * @param workspace KMPCache关闭时用于生成next数组的工作数组，为null或长度不足时分配新的数组
+     * @return next数组
+     */
+    private int[] table(int valuesLen, int kind, int[] workspace) {
+        KMPMetrics metrics = this.metrics;
+        if (metrics == null) return KMPCache.shared().next(valuesLen, targetAccessor, compare, kind, workspace);
+        long start = System.nanoTime();
+        int[] table = KMPCache.shared().next(valuesLen, targetAccessor, compare, kind, workspace);
+        metrics.recordBuild(System.nanoTime() - start);
+        return table;
+    }
+
+    /**
+     * 统计在指定范围内查找目标序列第一次出现的位置时执行的元素比较次数，不改变当前实例的设置。
+     * 分别使用经典和优化的next数组调用该方法，两者的差值就是优化的next数组节省的比较次数。
+     * 统计始终使用通用查找路径，与是否绑定了特化查找器无关。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param optimized      是否使用优化的next数组
+     * @return 输入元素与模式元素的比较次数，不包含生成next数组时的比较
+     */
+    public long comparisonCount(int startInclusive, int endExclusive, boolean optimized) {
+        if (startInclusive >= endExclusive) return 0;
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+
+        int[] next = KMPCache.shared().next(valuesLen, targetAccessor, compare, optimized ? KMPCache.OPTIMIZED : 0);
+        long comparisons = 0;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j != -1) comparisons++;
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(j))) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return comparisons;
+    }
+
+    /**
+     * 使用指定的线程池在范围内并行查找目标序列第一次出现的位置。
+     * 范围被切分成若干段，相邻段之间重叠目标序列长度减一个元素，结果与{@link #indexOf(int, int)}一致；
+     * 一旦更靠左的分段找到匹配，尚未开始的右侧分段会被跳过。
+     * 访问器和比较器会被多个线程同时调用，必须是线程安全的。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param pool           执行查找的线程池，例如{@link ForkJoinPool#commonPool()}
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public int indexOf(int startInclusive, int endExclusive, ForkJoinPool pool) {
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+        return ParallelSearch.indexOf(this.boundSearcher(inputLen), valuesLen, startInclusive, endExclusive, pool);
+    }
+
+    /**
+     * 使用指定的线程池在范围内并行查找目标序列最后一次出现的位置。
+     * 结果与{@link #lastIndexOf(int, int)}一致；一旦更靠右的分段找到匹配，尚未开始的左侧分段会被跳过。
+     * 访问器和比较器会被多个线程同时调用，必须是线程安全的。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param pool           执行查找的线程池，例如{@link ForkJoinPool#commonPool()}
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public int lastIndexOf(int startInclusive, int endExclusive, ForkJoinPool pool) {
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+        return ParallelSearch.lastIndexOf(this.boundSearcher(inputLen), valuesLen, startInclusive, endExclusive, pool);
+    }
+
+    /**
+     * 使用指定的线程池在范围内并行查找目标序列出现的所有位置，结果与{@link #findAll(int, int, boolean)}一致。
+     * 访问器和比较器会被多个线程同时调用，必须是线程安全的。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param pool           执行查找的线程池，例如{@link ForkJoinPool#commonPool()}
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(int startInclusive, int endExclusive, boolean overlapping, ForkJoinPool pool) {
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = targetLength.getAsInt();
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen <= 0 || valuesLen > endExclusive - startInclusive) return new int[0];
+        return ParallelSearch.findAll(this.boundSearcher(inputLen), valuesLen, startInclusive, endExclusive, overlapping, pool);
+    }
+
+    /**
+     * 获取绑定了输入序列的区间查找器，通用路径下编译一次模式，供并行查找的所有分段和近似查找共享
+     *
+     * @param inputLen 输入序列的长度
+     * @return 区间查找器
+     */
+    private RangeSearcher boundSearcher(int inputLen) {
+        return searcher != null ? searcher : this.compile().bind(inputAccessor, inputLen);
+    }
 }
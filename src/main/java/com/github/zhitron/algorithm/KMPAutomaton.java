@@ -0,0 +1,55 @@
+package com.github.zhitron.algorithm;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * KMP确定性有限自动机（DFA）转移表的构建工具。
+ * <p>
+ * 转移表按状态分行，第j行表示已经匹配了模式前j个元素时读入每个符号后到达的状态，
+ * 因此查找时每个输入元素只查一次表，不再有next数组的回退循环。
+ * 第m行（完整匹配）与完整模式的最长公共前后缀所在的行相同，用于重叠匹配的继续。
+ * 表的大小为(m + 1) × 字母表大小个int，超过内存预算时不会构建。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class KMPAutomaton {
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private KMPAutomaton() {
+    }
+
+    /**
+     * 构建转移表。
+     *
+     * @param length   模式长度
+     * @param alphabet 字母表大小，符号的取值范围为[0, alphabet)
+     * @param symbol   获取模式中指定位置元素对应符号的函数
+     * @param maxBytes 转移表允许占用的最大字节数
+     * @return 转移表；模式为空、超出内存预算或模式中存在字母表之外的符号时返回null
+     */
+    static int[] build(int length, int alphabet, IntUnaryOperator symbol, long maxBytes) {
+        if (length <= 0 || alphabet <= 0) return null;
+        long size = (long) (length + 1) * alphabet;
+        if (size > Integer.MAX_VALUE || size * Integer.BYTES > maxBytes) return null;
+        for (int j = 0; j < length; j++) {
+            int s = symbol.applyAsInt(j);
+            if (s < 0 || s >= alphabet) return null;
+        }
+        int[] dfa = new int[(int) size];
+        dfa[symbol.applyAsInt(0)] = 1;
+        // x为已匹配部分的最长公共前后缀对应的状态，失配时的转移与该状态相同
+        int x = 0;
+        for (int j = 1; j <= length; j++) {
+            System.arraycopy(dfa, x * alphabet, dfa, j * alphabet, alphabet);
+            if (j < length) {
+                int s = symbol.applyAsInt(j);
+                dfa[j * alphabet + s] = j + 1;
+                x = dfa[x * alphabet + s];
+            }
+        }
+        return dfa;
+    }
+}
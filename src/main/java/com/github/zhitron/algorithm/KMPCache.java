@@ -0,0 +1,355 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.predicate.TwicePredicateInt;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.IntFunction;
+
+/**
+ * 进程级的next数组缓存，按模式内容和比较器对象缓存已经计算好的next数组。
+ * <p>
+ * {@link KMP}的通用查找路径、{@link KMPPattern}和各个基本类型特化模式在生成next数组之前都会先查询该缓存，
+ * 对于反复出现的热点模式可以跳过next数组的构建。缓存默认关闭，
+ * 可以通过系统属性{@value #CAPACITY_PROPERTY}设置初始容量，或者在运行时调用{@link #setCapacity(int)}调整，容量为0表示关闭。
+ * </p>
+ * <p>
+ * 缓存被划分为{@value #SEGMENTS}个独立加锁的分段，每个分段按最近最少使用的顺序淘汰，
+ * 并发访问时只会竞争同一个分段的锁。容量平均分配到各个分段，因此实际保存的条目数可能略多于设置的容量。
+ * </p>
+ * <p>
+ * 缓存的键是模式元素的快照和比较器对象本身，元素之间按equals比较；使用自定义比较器时，
+ * 对应位置的元素还必须在该比较器下相等，因此比较器比equals更严格（例如按对象标识比较）时也不会取到错误的next数组。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class KMPCache {
+    /**
+     * 设置缓存初始容量的系统属性名称
+     */
+    public static final String CAPACITY_PROPERTY = "com.github.zhitron.algorithm.KMPCache.capacity";
+    /**
+     * 分段的数量，必须是2的幂
+     */
+    static final int SEGMENTS = 16;
+    /**
+     * next数组种类标志：使用{@link KMP#generateOptimizedNext}生成优化的next数组
+     */
+    static final int OPTIMIZED = 1;
+    /**
+     * next数组种类标志：为反转后的模式生成next数组，供从右向左的反向查找使用
+     */
+    static final int REVERSED = 2;
+    /**
+     * 进程级的共享实例
+     */
+    private static final KMPCache SHARED = new KMPCache(Math.max(0, Integer.getInteger(CAPACITY_PROPERTY, 0)));
+    /**
+     * 各个分段
+     */
+    private final Segment[] segments;
+    /**
+     * 缓存的总容量，0表示关闭
+     */
+    private volatile int capacity;
+    /**
+     * 每个分段的容量
+     */
+    private volatile int segmentCapacity;
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * 未命中次数
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * 淘汰次数
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 获取进程级的共享缓存
+     *
+     * @return 共享缓存
+     */
+    public static KMPCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * 创建一个缓存，共享实例之外只在测试中使用
+     *
+     * @param capacity 缓存的容量，0表示关闭
+     */
+    KMPCache(int capacity) {
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+        this.setCapacity(capacity);
+    }
+
+    /**
+     * 判断缓存是否开启
+     *
+     * @return 容量大于0时返回true
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 获取缓存的容量
+     *
+     * @return 缓存的容量，0表示关闭
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 设置缓存的容量，缩小容量时会立即淘汰多出的条目，设置为0会关闭并清空缓存。
+     *
+     * @param capacity 缓存的容量，0表示关闭
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity < 0: " + capacity);
+        this.segmentCapacity = (capacity + SEGMENTS - 1) / SEGMENTS;
+        this.capacity = capacity;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.trim();
+            }
+        }
+    }
+
+    /**
+     * 获取当前缓存的条目数量
+     *
+     * @return 条目数量
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 清空缓存，统计计数不会被重置
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 获取未命中次数，只统计缓存开启期间的查询
+     *
+     * @return 未命中次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 获取因容量不足被淘汰的条目数量
+     *
+     * @return 淘汰次数
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 获取通用元素模式的next数组，长度为模式长度加一。
+     * 缓存关闭时直接计算，不会读取模式快照。
+     *
+     * @param length         模式序列的长度
+     * @param targetAccessor 模式序列的元素访问器
+     * @param compare        元素比较器
+     * @param kind           next数组的种类，{@link #OPTIMIZED}和{@link #REVERSED}的组合
+     * @param <E>            元素类型
+     * @return next数组，调用者不能修改
+     */
+    <E> int[] next(int length, IntFunction<E> targetAccessor, BiPredicate<E, E> compare, int kind) {
+        return this.next(length, targetAccessor, compare, kind, null);
+    }
+
+    /**
+     * 获取通用元素模式的next数组，缓存关闭时在调用者提供的工作数组中计算，避免每次查找分配新的数组。
+     * 缓存开启时工作数组不会被使用，返回的是缓存中的数组。
+     *
+     * @param length         模式序列的长度
+     * @param targetAccessor 模式序列的元素访问器
+     * @param compare        元素比较器
+     * @param kind           next数组的种类，{@link #OPTIMIZED}和{@link #REVERSED}的组合
+     * @param workspace      工作数组，为null或长度不超过模式长度时分配新的数组
+     * @param <E>            元素类型
+     * @return next数组，调用者不能修改
+     */
+    @SuppressWarnings("unchecked")
+    <E> int[] next(int length, IntFunction<E> targetAccessor, BiPredicate<E, E> compare, int kind, int[] workspace) {
+        if (capacity == 0) {
+            return generate(length, kind, (i, j) -> compare.test(targetAccessor.apply(i), targetAccessor.apply(j)), workspace);
+        }
+        Object[] target = new Object[length];
+        for (int i = 0; i < length; i++) {
+            target[i] = targetAccessor.apply(i);
+        }
+        return this.next(target, compare, kind, length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+    }
+
+    /**
+     * 获取模式的next数组，长度为模式长度加一。
+     *
+     * @param target     模式序列的快照数组，作为键的一部分保存，调用者之后不能再修改它
+     * @param comparator 比较器对象，按对象标识作为键的一部分；基本类型按==比较时为null
+     * @param kind       next数组的种类，{@link #OPTIMIZED}和{@link #REVERSED}的组合
+     * @param length     模式序列的长度
+     * @param compare    按原模式中的位置比较两个元素的谓词，只在未命中时使用
+     * @return next数组，调用者不能修改
+     */
+    int[] next(Object target, Object comparator, int kind, int length, TwicePredicateInt compare) {
+        if (capacity == 0) return generate(length, kind, compare, null);
+        Key key = new Key(target, comparator, kind);
+        Segment segment = segments[key.hash & (SEGMENTS - 1)];
+        int[] next;
+        synchronized (segment) {
+            next = segment.get(key);
+        }
+        if (next != null) {
+            hits.increment();
+            return next;
+        }
+        misses.increment();
+        // 在锁外计算，并发计算同一个模式时以先放入的结果为准
+        next = generate(length, kind, compare, null);
+        synchronized (segment) {
+            int[] existing = segment.putIfAbsent(key, next);
+            return existing != null ? existing : next;
+        }
+    }
+
+    /**
+     * 生成长度为模式长度加一的next数组
+     *
+     * @param length    模式序列的长度
+     * @param kind      next数组的种类
+     * @param compare   按原模式中的位置比较两个元素的谓词
+     * @param workspace 工作数组，为null或长度不超过模式长度时分配新的数组
+     * @return next数组
+     */
+    private static int[] generate(int length, int kind, TwicePredicateInt compare, int[] workspace) {
+        if ((kind & REVERSED) != 0) {
+            int last = length - 1;
+            TwicePredicateInt forward = compare;
+            compare = (i, j) -> forward.test(last - i, last - j);
+        }
+        if (workspace == null || workspace.length <= length) workspace = new int[length + 1];
+        return (kind & OPTIMIZED) != 0 ? KMP.generateOptimizedNext(length, compare, workspace) : KMP.generateNext(length + 1, compare, workspace);
+    }
+
+    /**
+     * 缓存的键，由模式快照、比较器对象和next数组的种类组成
+     */
+    private static final class Key {
+        private final Object target;
+        private final Object comparator;
+        private final int kind;
+        private final int hash;
+
+        Key(Object target, Object comparator, int kind) {
+            this.target = target;
+            this.comparator = comparator;
+            this.kind = kind;
+            int h = (Arrays.deepHashCode(new Object[]{target}) * 31 + System.identityHashCode(comparator)) * 31 + kind;
+            // 打散低位，避免分段选择只取决于少数几个元素
+            this.hash = h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && kind == other.kind && comparator == other.comparator
+                    && Objects.deepEquals(target, other.target) && agrees(other.target);
+        }
+
+        /**
+         * 判断两个通用元素快照的对应元素在比较器下是否都相等，基本类型的快照总是返回true
+         *
+         * @param other 另一个键的模式快照，已经确认与当前快照按equals相等
+         * @return 对应元素在比较器下是否都相等
+         */
+        @SuppressWarnings("unchecked")
+        private boolean agrees(Object other) {
+            if (!(comparator instanceof BiPredicate) || !(target instanceof Object[])) return true;
+            BiPredicate<Object, Object> compare = (BiPredicate<Object, Object>) comparator;
+            Object[] a = (Object[]) target, b = (Object[]) other;
+            for (int i = 0; i < a.length; i++) {
+                if (!compare.test(a[i], b[i])) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的缓存分段，所有方法都必须在持有分段锁时调用
+     */
+    private final class Segment extends LinkedHashMap<Key, int[]> {
+        private static final long serialVersionUID = 1L;
+
+        Segment() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            if (size() <= segmentCapacity) return false;
+            evictions.increment();
+            return true;
+        }
+
+        /**
+         * 淘汰超出分段容量的最旧条目
+         */
+        void trim() {
+            Iterator<Map.Entry<Key, int[]>> iterator = entrySet().iterator();
+            while (size() > segmentCapacity && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.predicate.TwicePredicateInt;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * 可选的查找统计，记录查找循环实际执行的工作量，用于在线上流量中定位病态的模式。
+ * <p>
+ * 通过{@link KMP#setMetrics(KMPMetrics)}或编译后模式的withMetrics方法绑定，
+ * 同一个统计对象可以被多个模式和多个线程共享，所有计数器都使用{@link LongAdder}累加。
+ * 未绑定统计的查找走原有的循环，没有任何额外开销；绑定之后查找改用带计数的经典KMP循环，
+ * DFA模式和首元素预过滤不再生效，因此各个计数反映的是next数组本身的表现。
+ * </p>
+ * <p>
+ * 比较次数与扫描元素数的比值反映了失配回退的代价，对于经典next数组最坏不超过2；
+ * 表构建只统计绑定统计之后发生的构建，包括{@link KMP}每次查找时获取next数组的耗时。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class KMPMetrics {
+    /**
+     * 查找次数
+     */
+    private final LongAdder searches = new LongAdder();
+    /**
+     * 输入元素与模式元素的比较次数
+     */
+    private final LongAdder comparisons = new LongAdder();
+    /**
+     * 失配后按next数组回退的次数
+     */
+    private final LongAdder fallbacks = new LongAdder();
+    /**
+     * 扫描过的输入元素数量
+     */
+    private final LongAdder scanned = new LongAdder();
+    /**
+     * 找到的匹配数量
+     */
+    private final LongAdder matches = new LongAdder();
+    /**
+     * next数组或转移表的构建次数
+     */
+    private final LongAdder tableBuilds = new LongAdder();
+    /**
+     * 构建next数组或转移表的累计耗时，单位为纳秒
+     */
+    private final LongAdder tableBuildNanos = new LongAdder();
+
+    /**
+     * 获取查找次数，findAll、count和forEach各算一次
+     *
+     * @return 查找次数
+     */
+    public long searchCount() {
+        return searches.sum();
+    }
+
+    /**
+     * 获取输入元素与模式元素的比较次数
+     *
+     * @return 比较次数
+     */
+    public long comparisonCount() {
+        return comparisons.sum();
+    }
+
+    /**
+     * 获取失配后按next数组回退的次数
+     *
+     * @return 回退次数
+     */
+    public long fallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * 获取扫描过的输入元素数量，对于byte输入即扫描的字节数
+     *
+     * @return 扫描的元素数量
+     */
+    public long scannedCount() {
+        return scanned.sum();
+    }
+
+    /**
+     * 获取找到的匹配数量
+     *
+     * @return 匹配数量
+     */
+    public long matchCount() {
+        return matches.sum();
+    }
+
+    /**
+     * 获取next数组或转移表的构建次数，开启{@link KMPCache}时命中缓存也计为一次
+     *
+     * @return 构建次数
+     */
+    public long tableBuildCount() {
+        return tableBuilds.sum();
+    }
+
+    /**
+     * 获取构建next数组或转移表的累计耗时
+     *
+     * @return 累计耗时，单位为纳秒
+     */
+    public long tableBuildNanos() {
+        return tableBuildNanos.sum();
+    }
+
+    /**
+     * 把所有计数清零，与正在进行的查找并发调用时可能丢失少量计数
+     */
+    public void reset() {
+        searches.reset();
+        comparisons.reset();
+        fallbacks.reset();
+        scanned.reset();
+        matches.reset();
+        tableBuilds.reset();
+        tableBuildNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "KMPMetrics{searches=" + searches.sum()
+                + ", comparisons=" + comparisons.sum()
+                + ", fallbacks=" + fallbacks.sum()
+                + ", scanned=" + scanned.sum()
+                + ", matches=" + matches.sum()
+                + ", tableBuilds=" + tableBuilds.sum()
+                + ", tableBuildNanos=" + tableBuildNanos.sum()
+                + '}';
+    }
+
+    /**
+     * 记录一次表构建
+     *
+     * @param nanos 构建耗时，单位为纳秒
+     */
+    void recordBuild(long nanos) {
+        tableBuilds.increment();
+        tableBuildNanos.add(nanos);
+    }
+
+    /**
+     * 带计数的正向查找，调用者已经把范围调整到有效边界内。
+     *
+     * @param next           正向查找使用的next数组
+     * @param valuesLen      模式序列的长度
+     * @param match          判断输入位置i的元素与模式位置j的元素是否相等
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int indexOf(int[] next, int valuesLen, TwicePredicateInt match, int startInclusive, int endExclusive) {
+        long compared = 0, fallen = 0;
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j != -1) compared++;
+            if (j == -1 || match.test(i, j)) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+                fallen++;
+            }
+        }
+        boolean found = j == valuesLen;
+        this.record(compared, fallen, i - startInclusive, found ? 1 : 0);
+        return found ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 带计数的反向查找，调用者已经把范围调整到有效边界内。
+     *
+     * @param prev           反向查找使用的反转模式的next数组
+     * @param valuesLen      模式序列的长度
+     * @param match          判断输入位置i的元素与模式位置j的元素是否相等，j为原模式中的位置
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int lastIndexOf(int[] prev, int valuesLen, TwicePredicateInt match, int startInclusive, int endExclusive) {
+        long compared = 0, fallen = 0;
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j != -1) compared++;
+            if (j == -1 || match.test(i, last - j)) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+                fallen++;
+            }
+        }
+        boolean found = j == valuesLen;
+        this.record(compared, fallen, endExclusive - 1 - i, found ? 1 : 0);
+        return found ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 带计数的全量扫描，调用者已经把范围调整到有效边界内。
+     *
+     * @param next           正向查找使用的next数组
+     * @param valuesLen      模式序列的长度
+     * @param match          判断输入位置i的元素与模式位置j的元素是否相等
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(int[] next, int valuesLen, TwicePredicateInt match, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        long compared = 0, fallen = 0;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j != -1) compared++;
+            if (j == -1 || match.test(i, j)) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+                fallen++;
+            }
+        }
+        this.record(compared, fallen, endExclusive - startInclusive, count);
+        return count;
+    }
+
+    /**
+     * 一次查找结束后把局部计数累加到计数器中
+     *
+     * @param compared 比较次数
+     * @param fallen   回退次数
+     * @param elements 扫描的元素数量
+     * @param found    匹配数量
+     */
+    private void record(long compared, long fallen, long elements, int found) {
+        searches.increment();
+        comparisons.add(compared);
+        fallbacks.add(fallen);
+        scanned.add(elements);
+        if (found > 0) matches.add(found);
+    }
+}
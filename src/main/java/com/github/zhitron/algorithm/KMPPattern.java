@@ -0,0 +1,712 @@
+package com.github.zhitron.algorithm;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiPredicate;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * 预编译的KMP模式，不可变且线程安全。
+ * <p>
+ * 与{@link KMP}每次查找都重新生成next数组不同，该类在编译时对模式序列做一次快照，
+ * 并预先计算好next数组，之后可以在任意输入上反复查找，不再有任何准备开销。
+ * </p>
+ * <p>
+ * 实例的所有字段在构造后均不可修改，因此可以被多个线程共享使用；
+ * 唯一的例外是近似查找按需生成的片段next数组，它们通过volatile字段整体发布，并发生成时结果相同，可以互相替换。
+ * 前提是提供的元素比较器本身是无状态的。
+ * </p>
+ *
+ * @param <E> 元素类型
+ * @author zhitron
+ */
+public final class KMPPattern<E> {
+    /**
+     * 模式序列的元素快照
+     */
+    private final Object[] target;
+    /**
+     * 元素比较器，第一个参数为输入元素，第二个参数为模式元素
+     */
+    private final BiPredicate<E, E> compare;
+    /**
+     * 预先计算的next数组，长度为模式长度加一，
+     * 最后一个元素表示完整匹配后可以复用的前缀长度
+     */
+    private final int[] next;
+    /**
+     * 反向查找使用的反转模式的next数组，长度为模式长度加一
+     */
+    private final int[] prev;
+    /**
+     * 可选的查找统计，为null时不统计
+     */
+    private final KMPMetrics metrics;
+    /**
+     * 近似查找最近一次使用的片段next数组，数组长度就是片段数量，每个片段的next数组长度为片段长度加一
+     */
+    private volatile int[][] pieces;
+
+    /**
+     * 编译一个模式，使用Objects::equals比较元素。
+     *
+     * @param target 模式数组
+     * @param <E>    元素类型
+     * @return 编译后的模式
+     */
+    public static <E> KMPPattern<E> compile(E[] target) {
+        return compile(target, Objects::equals);
+    }
+
+    /**
+     * 使用指定的比较器编译一个模式。
+     *
+     * @param target  模式数组
+     * @param compare 元素比较器
+     * @param <E>     元素类型
+     * @return 编译后的模式
+     */
+    public static <E> KMPPattern<E> compile(E[] target, BiPredicate<E, E> compare) {
+        return compile(target == null ? 0 : target.length, (i) -> target[i], compare);
+    }
+
+    /**
+     * 编译一个模式，使用Objects::equals比较元素。
+     *
+     * @param target 模式列表
+     * @param <E>    元素类型
+     * @return 编译后的模式
+     */
+    public static <E> KMPPattern<E> compile(List<E> target) {
+        return compile(target, Objects::equals);
+    }
+
+    /**
+     * 使用指定的比较器编译一个模式。
+     *
+     * @param target  模式列表
+     * @param compare 元素比较器
+     * @param <E>     元素类型
+     * @return 编译后的模式
+     */
+    public static <E> KMPPattern<E> compile(List<E> target, BiPredicate<E, E> compare) {
+        return compile(target == null ? 0 : target.size(), target == null ? null : target::get, compare);
+    }
+
+    /**
+     * 根据模式长度、元素访问器和比较器编译一个模式。
+     * 编译时会把模式中的元素全部读取出来做快照，之后对原序列的修改不会影响该模式。
+     *
+     * @param length         模式序列的长度
+     * @param targetAccessor 模式序列的元素访问器
+     * @param compare        元素比较器
+     * @param <E>            元素类型
+     * @return 编译后的模式
+     */
+    public static <E> KMPPattern<E> compile(int length, IntFunction<E> targetAccessor, BiPredicate<E, E> compare) {
+        Objects.requireNonNull(compare, "compare");
+        if (length < 0) length = 0;
+        Object[] target = new Object[length];
+        for (int i = 0; i < length; i++) {
+            target[i] = targetAccessor.apply(i);
+        }
+        return new KMPPattern<>(target, compare);
+    }
+
+    /**
+     * 私有构造函数，只能通过compile方法创建
+     *
+     * @param target  模式序列的元素快照
+     * @param compare 元素比较器
+     */
+    @SuppressWarnings("unchecked")
+    private KMPPattern(Object[] target, BiPredicate<E, E> compare) {
+        this.target = target;
+        this.compare = compare;
+        // next数组多计算一位，用于完整匹配之后的状态回退
+        this.next = KMPCache.shared().next(target, compare, 0, target.length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+        this.prev = KMPCache.shared().next(target, compare, KMPCache.REVERSED, target.length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+        this.metrics = null;
+    }
+
+    /**
+     * 私有构造函数，复用已有模式的快照并替换next数组
+     *
+     * @param base    已编译的模式
+     * @param next    正向查找使用的next数组
+     * @param prev    反向查找使用的next数组
+     * @param metrics 查找统计
+     */
+    private KMPPattern(KMPPattern<E> base, int[] next, int[] prev, KMPMetrics metrics) {
+        this.target = base.target;
+        this.compare = base.compare;
+        this.next = next;
+        this.prev = prev;
+        this.metrics = metrics;
+        this.pieces = base.pieces;
+    }
+
+    /**
+     * 使用{@link KMP#generateOptimizedNext}生成的优化next数组进行正向和反向查找。
+     * 查找结果不变，对于重复度较高的模式可以减少失配时的比较次数。
+     *
+     * @return 使用优化next数组的新模式
+     */
+    @SuppressWarnings("unchecked")
+    public KMPPattern<E> withOptimizedNext() {
+        Object[] target = this.target;
+        BiPredicate<E, E> compare = this.compare;
+        long start = metrics == null ? 0 : System.nanoTime();
+        int[] next = KMPCache.shared().next(target, compare, KMPCache.OPTIMIZED, target.length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+        int[] prev = KMPCache.shared().next(target, compare, KMPCache.OPTIMIZED | KMPCache.REVERSED, target.length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+        if (metrics != null) metrics.recordBuild(System.nanoTime() - start);
+        return new KMPPattern<>(this, next, prev, metrics);
+    }
+
+    /**
+     * 绑定查找统计，返回的新模式共享当前模式的快照和next数组。
+     * 绑定后的模式使用带计数的查找循环，详见{@link KMPMetrics}。
+     *
+     * @param metrics 查找统计，为null时返回不统计的模式
+     * @return 绑定了查找统计的新模式
+     */
+    public KMPPattern<E> withMetrics(KMPMetrics metrics) {
+        return metrics == this.metrics ? this : new KMPPattern<>(this, next, prev, metrics);
+    }
+
+    /**
+     * 获取模式序列的长度
+     *
+     * @return 模式序列的长度
+     */
+    public int length() {
+        return target.length;
+    }
+
+    /**
+     * 分析模式序列的周期和边界，元素使用编译时的比较器判断相等
+     *
+     * @return 分析结果
+     */
+    @SuppressWarnings("unchecked")
+    public Periodicity periodicity() {
+        Object[] target = this.target;
+        return Periodicity.of(target.length, (i, j) -> compare.test((E) target[i], (E) target[j]));
+    }
+
+    /**
+     * 获取模式序列中指定位置的元素
+     *
+     * @param index 元素位置
+     * @return 模式元素
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        return (E) target[index];
+    }
+
+    /**
+     * 查找模式在数组中第一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(E[] input) {
+        return input == null ? KMP.NOT_FOUND : this.indexOf((i) -> input[i], input.length, 0, input.length);
+    }
+
+    /**
+     * 查找模式在列表中第一次出现的位置。
+     *
+     * @param input 要搜索的列表
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int indexOf(List<E> input) {
+        return input == null ? KMP.NOT_FOUND : this.indexOf(input::get, input.size(), 0, input.size());
+    }
+
+    /**
+     * 批量查找模式在每个列表中第一次出现的位置，第k个输入的结果写入{@code results[k]}。
+     * 整个批次共享同一份预编译的next数组，不会为单个输入重新校验参数或构建next数组。
+     *
+     * @param inputs  要搜索的列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<? extends List<E>> inputs, int[] results) {
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, null);
+    }
+
+    /**
+     * 使用指定的线程池批量查找模式在每个列表中第一次出现的位置，结果与{@link #indexOfEach(List, int[])}一致。
+     * 输入按编号切分成若干段并行查找，输入过少时直接在当前线程中完成，比较器必须是线程安全的。
+     *
+     * @param inputs  要搜索的列表，为null的元素结果为-1
+     * @param results 接收结果的数组，长度不能小于输入的数量
+     * @param pool    执行查找的线程池
+     * @return 包含模式的输入数量
+     * @throws IllegalArgumentException 如果结果数组的长度小于输入的数量
+     */
+    public int indexOfEach(List<? extends List<E>> inputs, int[] results, ForkJoinPool pool) {
+        Objects.requireNonNull(pool, "pool");
+        return BatchSearch.indexOfEach(inputs.size(), (k) -> this.indexOf(inputs.get(k)), results, pool);
+    }
+
+    /**
+     * 在指定范围内查找模式在输入序列中第一次出现的位置。
+     * 范围的语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到模式，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    @SuppressWarnings("unchecked")
+    public int indexOf(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive) {
+        // 检查查找范围是否有效：起始位置不能大于等于结束位置
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+
+        int valuesLen = target.length;
+
+        // 检查序列是否有效：输入序列或模式长度小于等于0，或者模式长度大于输入序列长度
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+
+        // 检查查找范围是否有效：结束位置小于等于0，或者起始位置超出输入序列范围
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+
+        // 调整查找范围到有效边界内
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+
+        // 检查在指定范围内是否有足够的元素进行匹配
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        Object[] target = this.target;
+        int[] next = this.next;
+        if (metrics != null) {
+            return metrics.indexOf(next, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), (E) target[b]), startInclusive, endExclusive);
+        }
+        int i = startInclusive, j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), (E) target[j])) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中最后一次出现的位置。
+     *
+     * @param input 要搜索的数组
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(E[] input) {
+        return input == null ? KMP.NOT_FOUND : this.lastIndexOf((i) -> input[i], input.length, 0, input.length);
+    }
+
+    /**
+     * 查找模式在列表中最后一次出现的位置。
+     *
+     * @param input 要搜索的列表
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    public int lastIndexOf(List<E> input) {
+        return input == null ? KMP.NOT_FOUND : this.lastIndexOf(input::get, input.size(), 0, input.size());
+    }
+
+    /**
+     * 在指定范围内查找模式在输入序列中最后一次出现的位置。
+     * 范围的语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到模式，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    @SuppressWarnings("unchecked")
+    public int lastIndexOf(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive) {
+        // 检查查找范围是否有效：起始位置不能大于等于结束位置
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+
+        int valuesLen = target.length;
+
+        // 检查序列是否有效：输入序列或模式长度小于等于0，或者模式长度大于输入序列长度
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+
+        // 检查查找范围是否有效：结束位置小于等于0，或者起始位置超出输入序列范围
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+
+        // 调整查找范围到有效边界内
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+
+        // 检查在指定范围内是否有足够的元素进行匹配
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        Object[] target = this.target;
+        int[] prev = this.prev;
+        if (metrics != null) {
+            return metrics.lastIndexOf(prev, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), (E) target[b]), startInclusive, endExclusive);
+        }
+        // 从右向左扫描，j为已经匹配的模式后缀长度，失配时按反转模式的next数组回退
+        int last = valuesLen - 1;
+        int i = endExclusive - 1, j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), (E) target[last - j])) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : KMP.NOT_FOUND;
+    }
+
+    /**
+     * 查找模式在数组中出现的所有位置。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(E[] input, boolean overlapping) {
+        if (input == null) return new int[0];
+        return this.findAll((i) -> input[i], input.length, 0, input.length, overlapping);
+    }
+
+    /**
+     * 查找模式在列表中出现的所有位置。
+     *
+     * @param input       要搜索的列表
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(List<E> input, boolean overlapping) {
+        if (input == null) return new int[0];
+        return this.findAll(input::get, input.size(), 0, input.size(), overlapping);
+    }
+
+    /**
+     * 在指定范围内查找模式在输入序列中出现的所有位置。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public int[] findAll(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, boolean overlapping) {
+        MatchList matches = new MatchList();
+        this.scan(inputAccessor, inputLen, startInclusive, endExclusive, overlapping, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 统计模式在数组中出现的次数。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(E[] input, boolean overlapping) {
+        if (input == null) return 0;
+        return this.scan((i) -> input[i], input.length, 0, input.length, overlapping, null);
+    }
+
+    /**
+     * 统计模式在列表中出现的次数。
+     *
+     * @param input       要搜索的列表
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(List<E> input, boolean overlapping) {
+        if (input == null) return 0;
+        return this.scan(input::get, input.size(), 0, input.size(), overlapping, null);
+    }
+
+    /**
+     * 统计模式在输入序列指定范围内出现的次数。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public int count(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, boolean overlapping) {
+        return this.scan(inputAccessor, inputLen, startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把模式在输入序列指定范围内出现的每个位置传给回调。
+     * 整个过程只对输入做一次线性扫描，找到一个匹配后从当前自动机状态继续匹配。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        this.scan(inputAccessor, inputLen, startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 获取模式在数组中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的数组
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(E[] input, boolean overlapping) {
+        if (input == null) return IntStream.empty();
+        return this.matches((i) -> input[i], input.length, 0, input.length, overlapping);
+    }
+
+    /**
+     * 获取模式在列表中出现的所有位置组成的流，匹配在流被消费时才按需查找。
+     *
+     * @param input       要搜索的列表
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(List<E> input, boolean overlapping) {
+        if (input == null) return IntStream.empty();
+        return this.matches(input::get, input.size(), 0, input.size(), overlapping);
+    }
+
+    /**
+     * 获取模式在输入序列指定范围内出现的所有位置组成的流。
+     * 匹配按批查找，findFirst和limit等短路操作不会扫描多余的输入；
+     * 允许重叠时流可以按输入区间切分，调用parallel()后由多个线程同时查找，此时输入和元素比较器必须能被多个线程同时读取。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的匹配起始索引的流
+     */
+    public IntStream matches(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, boolean overlapping) {
+        return MatchSpliterator.stream(this.bind(inputAccessor, inputLen), target.length, inputLen, startInclusive, endExclusive, overlapping);
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    @SuppressWarnings("unchecked")
+    int scan(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        if (startInclusive >= endExclusive) return 0;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+
+        Object[] target = this.target;
+        int[] next = this.next;
+        if (metrics != null) {
+            return metrics.scan(next, valuesLen, (a, b) -> compare.test(inputAccessor.apply(a), (E) target[b]), startInclusive, endExclusive, overlapping, action);
+        }
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), (E) target[j])) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 查找数组中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的数组
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(E[] input, int maxMismatches) {
+        if (input == null) return this.findAllApproximate((i) -> null, 0, 0, 0, maxMismatches);
+        return this.findAllApproximate((i) -> input[i], input.length, 0, input.length, maxMismatches);
+    }
+
+    /**
+     * 查找列表中与模式相比不同元素不超过maxMismatches个的所有位置，即与模式的汉明距离不超过maxMismatches的所有子序列。
+     *
+     * @param input         要搜索的列表
+     * @param maxMismatches 允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(List<E> input, int maxMismatches) {
+        if (input == null) return this.findAllApproximate((i) -> null, 0, 0, 0, maxMismatches);
+        return this.findAllApproximate(input::get, input.size(), 0, input.size(), maxMismatches);
+    }
+
+    /**
+     * 在指定范围内查找输入序列中与模式相比不同元素不超过maxMismatches个的所有位置，元素是否相同由比较器决定。
+     * 模式被切分成maxMismatches + 1个片段，任何近似匹配都至少包含一个完全相同的片段，
+     * 因此先用精确查找定位候选位置，再逐个校验候选位置上不同元素的数量。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @return 按升序排列的所有匹配起始索引，匹配之间可以相互重叠
+     * @throws IllegalArgumentException maxMismatches为负数时抛出
+     */
+    public int[] findAllApproximate(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, int maxMismatches) {
+        MatchList matches = new MatchList();
+        this.scanApproximate(inputAccessor, inputLen, startInclusive, endExclusive, maxMismatches, matches);
+        return matches.toArray();
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    @SuppressWarnings("unchecked")
+    int scanApproximate(IntFunction<E> inputAccessor, int inputLen, int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+        Mismatch.check(maxMismatches);
+        if (startInclusive >= endExclusive) return 0;
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+        Object[] target = this.target;
+        int parts = maxMismatches + 1;
+        return Mismatch.scan(valuesLen, maxMismatches, startInclusive, endExclusive,
+                (piece, from, to, start, end, found) -> to - from == valuesLen
+                        ? this.scan(inputAccessor, inputLen, start, end, true, found)
+                        : scanPiece(inputAccessor, from, to - from, this.pieces(parts)[piece], start, end, found),
+                (i, j) -> compare.test(inputAccessor.apply(i), (E) target[j]), action);
+    }
+
+    /**
+     * 获取把模式切分成parts个片段时各个片段的next数组，切分方式与{@link Mismatch}相同。
+     * 片段数量与上一次相同时复用已经生成的数组，否则重新生成并替换，只生成正向查找使用的next数组。
+     *
+     * @param parts 片段的数量
+     * @return 各个片段的next数组
+     */
+    @SuppressWarnings("unchecked")
+    private int[][] pieces(int parts) {
+        int[][] pieces = this.pieces;
+        if (pieces != null && pieces.length == parts) return pieces;
+        Object[] target = this.target;
+        int valuesLen = target.length;
+        pieces = new int[parts][];
+        for (int k = 0; k < parts; k++) {
+            int from = (int) ((long) k * valuesLen / parts);
+            int to = (int) ((long) (k + 1) * valuesLen / parts);
+            pieces[k] = KMP.generateNext(to - from + 1, (i, j) -> compare.test((E) target[from + i], (E) target[from + j]));
+        }
+        this.pieces = pieces;
+        return pieces;
+    }
+
+    /**
+     * 在指定范围内扫描模式片段的所有出现位置，允许相互重叠，调用者已经把范围调整到有效边界内。
+     *
+     * @param inputAccessor  输入序列的元素访问器
+     * @param from           片段在模式中的起始位置
+     * @param length         片段的长度
+     * @param next           片段的next数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收片段起始索引的回调
+     * @return 片段出现的次数
+     */
+    @SuppressWarnings("unchecked")
+    private int scanPiece(IntFunction<E> inputAccessor, int from, int length, int[] next, int startInclusive, int endExclusive, IntConsumer action) {
+        Object[] target = this.target;
+        int i = startInclusive, j = 0, count = 0;
+        while (i < endExclusive) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), (E) target[from + j])) {
+                i++;
+                j++;
+                if (j == length) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    j = next[j];
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 把当前模式绑定到指定的输入序列上
+     *
+     * @param inputAccessor 输入序列的元素访问器
+     * @param inputLen      输入序列的长度
+     * @return 绑定后的区间查找器
+     */
+    RangeSearcher bind(IntFunction<E> inputAccessor, int inputLen) {
+        return new RangeSearcher() {
+            @Override
+            public int indexOf(int startInclusive, int endExclusive) {
+                return KMPPattern.this.indexOf(inputAccessor, inputLen, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int lastIndexOf(int startInclusive, int endExclusive) {
+                return KMPPattern.this.lastIndexOf(inputAccessor, inputLen, startInclusive, endExclusive);
+            }
+
+            @Override
+            public int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+                return KMPPattern.this.scan(inputAccessor, inputLen, startInclusive, endExclusive, overlapping, action);
+            }
+
+            @Override
+            public int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action) {
+                return KMPPattern.this.scanApproximate(inputAccessor, inputLen, startInclusive, endExclusive, maxMismatches, action);
+            }
+        };
+    }
+}
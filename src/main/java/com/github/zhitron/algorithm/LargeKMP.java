@@ -0,0 +1,439 @@
+package com.github.zhitron.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * 使用long下标的KMP查找，输入序列的长度可以超过{@link Integer#MAX_VALUE}。
+ * <p>
+ * 与{@link KMP}相同，通过设置输入序列和目标序列的访问器和长度提供器以及元素比较器实现通用的匹配，
+ * 区别在于输入序列的长度和下标都是long，适用于堆外内存、多个缓冲区拼接而成的存储等超大的输入。
+ * 模式序列仍然使用int下标，next数组与{@link KMP}共用{@link KMPCache}。
+ * </p>
+ * <p>
+ * {@link #of(ByteBuffer[], byte[])}在首尾相接的多个字节缓冲区上直接查找，不会装箱，
+ * 匹配状态在缓冲区之间延续，调用者不需要自己切分输入并拼接偏移量。
+ * </p>
+ *
+ * @param <E> 元素类型
+ * @author zhitron
+ */
+public final class LargeKMP<E> {
+    /**
+     * 表示未找到匹配项时的返回值
+     */
+    public static final long NOT_FOUND = -1L;
+    /**
+     * 输入序列的长度提供器
+     */
+    private LongSupplier inputLength;
+    /**
+     * 输入序列的元素访问器
+     */
+    private LongFunction<E> inputAccessor;
+    /**
+     * 模式序列的长度提供器
+     */
+    private IntSupplier targetLength;
+    /**
+     * 模式序列的元素访问器
+     */
+    private IntFunction<E> targetAccessor;
+    /**
+     * 元素比较器，默认使用Objects::equals
+     */
+    private BiPredicate<E, E> compare = Objects::equals;
+    /**
+     * 查找时是否使用优化的next数组
+     */
+    private boolean optimizedNext;
+    /**
+     * 由基本类型工厂方法绑定的特化查找器，调用任意设置方法后失效
+     */
+    private LongRangeSearcher searcher;
+
+    /**
+     * 私有构造函数，只能通过of方法创建
+     */
+    private LargeKMP() {
+    }
+
+    /**
+     * 创建一个未设置任何访问器的实例，需要通过设置方法指定输入序列和目标序列
+     *
+     * @param <E> 元素类型
+     * @return 新的实例
+     */
+    public static <E> LargeKMP<E> of() {
+        return new LargeKMP<>();
+    }
+
+    /**
+     * 创建一个实例，用于在通过long下标访问的输入序列中查找目标数组。
+     *
+     * @param inputLength   输入序列的长度
+     * @param inputAccessor 输入序列的元素访问器
+     * @param target        要查找的目标数组
+     * @param <E>           元素类型
+     * @return 配置好的实例
+     */
+    public static <E> LargeKMP<E> of(long inputLength, LongFunction<E> inputAccessor, E[] target) {
+        return LargeKMP.<E>of()
+                .setInputLength(() -> inputLength)
+                .setInputAccessor(inputAccessor)
+                .setTargetLength(() -> target == null ? 0 : target.length)
+                .setTargetAccessor((i) -> target[i]);
+    }
+
+    /**
+     * 创建一个实例，用于在首尾相接的多个字节缓冲区中查找目标数组。
+     * 每个缓冲区通过绝对位置的get方法读取[0, limit)的内容，各个缓冲区的limit在创建时确定，
+     * 输入的总长度为所有缓冲区的limit之和，可以超过{@link Integer#MAX_VALUE}。
+     * 查找直接在缓冲区上进行，不会装箱；模式数组在创建时被预编译。调用任意设置方法后会退回到通用的查找方式。
+     *
+     * @param segments 依次拼接的缓冲区，为null时视为空输入
+     * @param target   要查找的目标byte数组
+     * @return 配置好的实例
+     */
+    public static LargeKMP<Byte> of(ByteBuffer[] segments, byte[] target) {
+        return of(segments, ByteKMP.compile(target));
+    }
+
+    /**
+     * 创建一个实例，用于在首尾相接的多个字节缓冲区中查找预编译的模式，约定与{@link #of(ByteBuffer[], byte[])}相同。
+     *
+     * @param segments 依次拼接的缓冲区，为null时视为空输入
+     * @param pattern  编译后的模式
+     * @return 配置好的实例
+     */
+    public static LargeKMP<Byte> of(ByteBuffer[] segments, ByteKMP pattern) {
+        ByteSegments searcher = new ByteSegments(segments, pattern);
+        ByteBuffer[] snapshot = segments == null ? new ByteBuffer[0] : segments.clone();
+        byte[] target = pattern.target;
+        return LargeKMP.<Byte>of()
+                .setInputLength(searcher::length)
+                .setInputAccessor((i) -> get(snapshot, i))
+                .setTargetLength(() -> target.length)
+                .setTargetAccessor((i) -> target[i])
+                .setCompare((ie, te) -> ie.byteValue() == te.byteValue())
+                .bindSearcher(searcher);
+    }
+
+    /**
+     * 按long下标读取拼接的缓冲区中的字节，供退回到通用查找方式时使用
+     *
+     * @param segments 依次拼接的缓冲区
+     * @param index    输入中的位置
+     * @return 该位置的字节
+     */
+    private static byte get(ByteBuffer[] segments, long index) {
+        for (ByteBuffer segment : segments) {
+            if (index < segment.limit()) return segment.get((int) index);
+            index -= segment.limit();
+        }
+        throw new IndexOutOfBoundsException();
+    }
+
+    /**
+     * 绑定一个特化的区间查找器，必须在所有设置方法之后调用
+     *
+     * @param searcher 区间查找器
+     * @return 当前实例
+     */
+    private LargeKMP<E> bindSearcher(LongRangeSearcher searcher) {
+        this.searcher = searcher;
+        return this;
+    }
+
+    /**
+     * 获取输入序列的长度
+     *
+     * @return 输入序列的长度
+     */
+    public long getInputLength() {
+        return inputLength.getAsLong();
+    }
+
+    /**
+     * 获取目标序列的长度
+     *
+     * @return 目标序列的长度
+     */
+    public int getTargetLength() {
+        return targetLength.getAsInt();
+    }
+
+    /**
+     * 设置输入序列的长度提供器
+     *
+     * @param inputLength 长度提供器
+     * @return 当前实例
+     */
+    public LargeKMP<E> setInputLength(LongSupplier inputLength) {
+        this.inputLength = inputLength;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置输入序列的元素访问器
+     *
+     * @param inputAccessor 元素访问器
+     * @return 当前实例
+     */
+    public LargeKMP<E> setInputAccessor(LongFunction<E> inputAccessor) {
+        this.inputAccessor = inputAccessor;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置模式序列的长度提供器
+     *
+     * @param targetLength 长度提供器
+     * @return 当前实例
+     */
+    public LargeKMP<E> setTargetLength(IntSupplier targetLength) {
+        this.targetLength = targetLength;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置模式序列的元素访问器
+     *
+     * @param targetAccessor 元素访问器
+     * @return 当前实例
+     */
+    public LargeKMP<E> setTargetAccessor(IntFunction<E> targetAccessor) {
+        this.targetAccessor = targetAccessor;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置元素比较器
+     *
+     * @param compare 元素比较器
+     * @return 当前实例
+     */
+    public LargeKMP<E> setCompare(BiPredicate<E, E> compare) {
+        this.compare = compare;
+        this.searcher = null;
+        return this;
+    }
+
+    /**
+     * 设置通用查找路径是否使用{@link KMP#generateOptimizedNext}生成的优化next数组，默认不使用。
+     * 基本类型工厂方法绑定的特化查找器不受影响。
+     *
+     * @param optimizedNext 是否使用优化的next数组
+     * @return 当前实例
+     */
+    public LargeKMP<E> setOptimizedNext(boolean optimizedNext) {
+        this.optimizedNext = optimizedNext;
+        return this;
+    }
+
+    /**
+     * 从指定位置开始查找目标序列在输入序列中第一次出现的位置。
+     *
+     * @param offset 起始查找位置
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public long indexOf(long offset) {
+        return this.indexOf(offset, inputLength.getAsLong());
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中第一次出现的位置。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public long indexOf(long startInclusive, long endExclusive) {
+        if (searcher != null) return searcher.indexOf(startInclusive, endExclusive);
+        if (startInclusive >= endExclusive) return NOT_FOUND;
+        long inputLen = inputLength.getAsLong();
+        int valuesLen = targetLength.getAsInt();
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+
+        int[] next = KMPCache.shared().next(valuesLen, targetAccessor, compare, optimizedNext ? KMPCache.OPTIMIZED : 0);
+        long i = startInclusive;
+        int j = 0;
+        while (i < endExclusive && j < valuesLen) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(j))) {
+                i++;
+                j++;
+            } else {
+                j = next[j];
+            }
+        }
+        return j == valuesLen ? i - j : NOT_FOUND;
+    }
+
+    /**
+     * 在输入序列[0, offset]范围内查找目标序列最后一次出现的位置，与{@link KMP#lastIndexOf(int)}的约定一致。
+     *
+     * @param offset 查找范围的最后一个位置（包含）
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public long lastIndexOf(long offset) {
+        return this.lastIndexOf(0, offset == Long.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中最后一次出现的位置，从右向左扫描输入序列。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到目标序列，则返回其在输入序列中的起始索引；否则返回 -1
+     */
+    public long lastIndexOf(long startInclusive, long endExclusive) {
+        if (searcher != null) return searcher.lastIndexOf(startInclusive, endExclusive);
+        if (startInclusive >= endExclusive) return NOT_FOUND;
+        long inputLen = inputLength.getAsLong();
+        int valuesLen = targetLength.getAsInt();
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return NOT_FOUND;
+
+        int kind = optimizedNext ? KMPCache.REVERSED | KMPCache.OPTIMIZED : KMPCache.REVERSED;
+        int[] prev = KMPCache.shared().next(valuesLen, targetAccessor, compare, kind);
+        int last = valuesLen - 1;
+        long i = endExclusive - 1;
+        int j = 0;
+        while (i >= startInclusive && j < valuesLen) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(last - j))) {
+                i--;
+                j++;
+            } else {
+                j = prev[j];
+            }
+        }
+        return j == valuesLen ? i + 1 : NOT_FOUND;
+    }
+
+    /**
+     * 查找目标序列在输入序列中出现的所有位置。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public long[] findAll(boolean overlapping) {
+        return this.findAll(0, inputLength.getAsLong(), overlapping);
+    }
+
+    /**
+     * 在指定范围内查找目标序列在输入序列中出现的所有位置。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 按升序排列的所有匹配起始索引
+     */
+    public long[] findAll(long startInclusive, long endExclusive, boolean overlapping) {
+        LongStream.Builder matches = LongStream.builder();
+        this.scan(startInclusive, endExclusive, overlapping, matches);
+        return matches.build().toArray();
+    }
+
+    /**
+     * 统计目标序列在输入序列中出现的次数。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public long count(boolean overlapping) {
+        return this.scan(0, inputLength.getAsLong(), overlapping, null);
+    }
+
+    /**
+     * 统计目标序列在输入序列指定范围内出现的次数。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配的次数
+     */
+    public long count(long startInclusive, long endExclusive, boolean overlapping) {
+        return this.scan(startInclusive, endExclusive, overlapping, null);
+    }
+
+    /**
+     * 按升序把目标序列在输入序列中出现的每个位置传给回调。
+     *
+     * @param overlapping 是否允许匹配之间相互重叠
+     * @param action      接收匹配起始索引的回调
+     */
+    public void forEach(boolean overlapping, LongConsumer action) {
+        this.scan(0, inputLength.getAsLong(), overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 按升序把目标序列在输入序列指定范围内出现的每个位置传给回调。
+     * 整个过程只对输入做一次线性扫描，找到一个匹配后从当前自动机状态继续匹配。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调
+     */
+    public void forEach(long startInclusive, long endExclusive, boolean overlapping, LongConsumer action) {
+        this.scan(startInclusive, endExclusive, overlapping, Objects.requireNonNull(action, "action"));
+    }
+
+    /**
+     * 扫描指定范围内的所有匹配。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    private long scan(long startInclusive, long endExclusive, boolean overlapping, LongConsumer action) {
+        if (searcher != null) return searcher.scan(startInclusive, endExclusive, overlapping, action);
+        if (startInclusive >= endExclusive) return 0;
+        long inputLen = inputLength.getAsLong();
+        int valuesLen = targetLength.getAsInt();
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return 0;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return 0;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return 0;
+
+        int[] next = KMPCache.shared().next(valuesLen, targetAccessor, compare, optimizedNext ? KMPCache.OPTIMIZED : 0);
+        long i = startInclusive, count = 0;
+        int j = 0;
+        while (i < endExclusive) {
+            if (j == -1 || compare.test(inputAccessor.apply(i), targetAccessor.apply(j))) {
+                i++;
+                j++;
+                if (j == valuesLen) {
+                    count++;
+                    if (action != null) action.accept(i - j);
+                    // 重叠匹配时复用完整匹配的最长公共前后缀，否则从头开始匹配
+                    j = overlapping ? next[j] : 0;
+                }
+            } else {
+                j = next[j];
+            }
+        }
+        return count;
+    }
+}
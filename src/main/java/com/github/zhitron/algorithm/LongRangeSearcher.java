@@ -0,0 +1,43 @@
+package com.github.zhitron.algorithm;
+
+import java.util.function.LongConsumer;
+
+/**
+ * 绑定了输入序列和模式序列、使用long下标的区间查找器。
+ * <p>
+ * {@link LargeKMP}的工厂方法在能够确定元素类型时，会绑定一个特化的查找器，
+ * 以避免在查找过程中通过访问器读取元素和装箱。
+ * </p>
+ *
+ * @author zhitron
+ */
+interface LongRangeSearcher {
+    /**
+     * 在指定范围内查找模式第一次出现的位置，语义与{@link LargeKMP#indexOf(long, long)}一致。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    long indexOf(long startInclusive, long endExclusive);
+
+    /**
+     * 在指定范围内查找模式最后一次出现的位置，语义与{@link LargeKMP#lastIndexOf(long, long)}一致。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    long lastIndexOf(long startInclusive, long endExclusive);
+
+    /**
+     * 在指定范围内一次线性扫描出所有匹配。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    long scan(long startInclusive, long endExclusive, boolean overlapping, LongConsumer action);
+}
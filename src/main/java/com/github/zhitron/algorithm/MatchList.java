@@ -0,0 +1,37 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 收集匹配位置的可增长int数组，用于实现findAll
+ *
+ * @author zhitron
+ */
+final class MatchList implements IntConsumer {
+    /**
+     * 已收集的匹配位置
+     */
+    private int[] data = new int[8];
+    /**
+     * 已收集的匹配数量
+     */
+    private int size;
+
+    @Override
+    public void accept(int index) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size << 1);
+        }
+        data[size++] = index;
+    }
+
+    /**
+     * 获取收集到的匹配位置
+     *
+     * @return 按收集顺序排列的匹配位置
+     */
+    int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按需查找匹配位置的Spliterator，供各个模式的matches方法构造IntStream。
+ * <p>
+ * 候选的起始位置按{@link #BLOCK}个一段分批查找，每批只扫描能够容纳这些起始位置的输入，
+ * 因此findFirst和limit等短路操作在找到足够的匹配之后不会继续扫描剩余的输入；
+ * 每批重新开始匹配，与上一批重复扫描的输入不超过模式长度减一个元素。
+ * </p>
+ * <p>
+ * 允许重叠时每个起始位置是否匹配与其它匹配无关，起始位置的区间可以直接对半切分，
+ * 前一半扫描的输入延伸到后一半的开头，使跨越切分点的匹配不会丢失，并行流因此能够使用多个线程。
+ * 不允许重叠时每个匹配都取决于前一个匹配结束的位置，只能顺序查找，不支持切分。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class MatchSpliterator implements Spliterator.OfInt {
+    /**
+     * 每批查找的候选起始位置数量
+     */
+    static final int BLOCK = 4096;
+    /**
+     * 绑定了输入序列的查找器
+     */
+    private final RangeSearcher searcher;
+    /**
+     * 模式长度
+     */
+    private final int length;
+    /**
+     * 是否允许匹配之间相互重叠
+     */
+    private final boolean overlapping;
+    /**
+     * 下一个候选起始位置
+     */
+    private int position;
+    /**
+     * 候选起始位置的上界（不包含）
+     */
+    private final int stop;
+    /**
+     * 当前批次找到的匹配位置
+     */
+    private int[] buffer;
+    /**
+     * 当前批次中下一个要返回的匹配的下标
+     */
+    private int index;
+    /**
+     * 当前批次找到的匹配数量
+     */
+    private int size;
+
+    /**
+     * 创建按需查找的Spliterator，调用者已经把范围调整到有效边界内
+     *
+     * @param searcher    绑定了输入序列的查找器
+     * @param length      模式长度，大于0
+     * @param position    第一个候选起始位置
+     * @param stop        候选起始位置的上界（不包含）
+     * @param overlapping 是否允许匹配之间相互重叠
+     */
+    private MatchSpliterator(RangeSearcher searcher, int length, int position, int stop, boolean overlapping) {
+        this.searcher = searcher;
+        this.length = length;
+        this.position = position;
+        this.stop = stop;
+        this.overlapping = overlapping;
+    }
+
+    /**
+     * 创建按升序返回匹配起始索引的流，调整查找范围的方式与findAll一致
+     *
+     * @param searcher       绑定了输入序列的查找器
+     * @param valuesLen      模式长度
+     * @param inputLen       输入序列的长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @return 匹配起始索引的流
+     */
+    static IntStream stream(RangeSearcher searcher, int valuesLen, int inputLen, int startInclusive, int endExclusive, boolean overlapping) {
+        if (startInclusive >= endExclusive) return IntStream.empty();
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return IntStream.empty();
+        if (endExclusive <= 0 || startInclusive >= inputLen) return IntStream.empty();
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return IntStream.empty();
+        int stop = endExclusive - valuesLen + 1;
+        return StreamSupport.intStream(new MatchSpliterator(searcher, valuesLen, startInclusive, stop, overlapping), false);
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        while (index == size) {
+            if (position >= stop) return false;
+            this.fill();
+        }
+        action.accept(buffer[index++]);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        while (index < size) action.accept(buffer[index++]);
+        if (position >= stop) return;
+        // 剩余的范围一次扫描完成，不再分批
+        searcher.scan(position, stop + length - 1, overlapping, action);
+        position = stop;
+    }
+
+    /**
+     * 查找下一批候选起始位置上的匹配
+     */
+    private void fill() {
+        if (buffer == null) buffer = new int[Math.min(BLOCK, stop - position)];
+        int to = stop - position > BLOCK ? position + BLOCK : stop;
+        index = 0;
+        size = 0;
+        // 扫描的输入只到to + length - 1，找到的匹配的起始位置都小于to
+        searcher.scan(position, to + length - 1, overlapping, (p) -> buffer[size++] = p);
+        if (!overlapping && size > 0) {
+            position = Math.max(to, buffer[size - 1] + length);
+        } else {
+            position = to;
+        }
+    }
+
+    @Override
+    public OfInt trySplit() {
+        // 当前批次还有未返回的匹配时不切分，并行流在开始遍历之前就会完成切分
+        if (!overlapping || index < size) return null;
+        int remaining = stop - position;
+        if (remaining < BLOCK << 1) return null;
+        int mid = position + (remaining >>> 1);
+        MatchSpliterator prefix = new MatchSpliterator(searcher, length, position, mid, true);
+        position = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        // 不允许重叠时position可能越过stop，最后一个匹配结束于范围末尾时剩余的范围视为0
+        return Math.max(0L, (long) stop - position) + (size - index);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super Integer> getComparator() {
+        return null;
+    }
+}
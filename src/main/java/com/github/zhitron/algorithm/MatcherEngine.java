@@ -0,0 +1,23 @@
+package com.github.zhitron.algorithm;
+
+/**
+ * {@link PatternMatcher}使用的查找算法
+ *
+ * @author zhitron
+ */
+public enum MatcherEngine {
+    /**
+     * KMP算法，使用{@link ByteKMP}和{@link CharKMP}等特化的预编译模式，
+     * 尚未匹配任何元素时用紧凑的循环跳到下一个等于模式首元素的位置，适合短模式和大多数输入
+     */
+    KMP,
+    /**
+     * Crochemore-Perrin双向匹配算法，只使用常数个额外变量，失配时按已经比较的长度移动窗口，
+     * 模式较长并且字母表很小时比较次数更少，最坏情况下比较次数不超过输入长度的两倍
+     */
+    TWO_WAY,
+    /**
+     * Rabin-Karp滚动哈希算法，只使用常数个额外变量，每个输入元素的代价固定，与模式和输入的内容无关
+     */
+    RABIN_KARP
+}
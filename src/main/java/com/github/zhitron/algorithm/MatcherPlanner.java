@@ -0,0 +1,155 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 按模式长度、字母表大小和输入长度选择查找算法，创建{@link PatternMatcher}。
+ * <p>
+ * 返回的匹配器与{@link KMP#of(byte[], byte[])}等工厂方法的约定相同：模式在创建时被复制，之后对模式的修改不会生效；
+ * 输入不会被复制，查找时读取的是它当时的内容。
+ * 调用方只依赖{@link PatternMatcher}时，换用其它算法不需要修改调用代码。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class MatcherPlanner {
+    /**
+     * 输入长度小于该值时总是使用KMP，其它算法的预处理不值得
+     */
+    static final int MIN_INPUT_LENGTH = 1024;
+    /**
+     * 模式长度小于该值时总是使用KMP
+     */
+    static final int MIN_PATTERN_LENGTH = 16;
+    /**
+     * 模式中不同元素的数量不超过该值时，模式的首元素在输入中大概率频繁出现，KMP的预过滤很难跳过输入
+     */
+    static final int SMALL_ALPHABET = 4;
+
+    private MatcherPlanner() {
+    }
+
+    /**
+     * 按模式和输入的特点选择查找算法。
+     * <p>
+     * 字母表较大时，KMP尚未匹配任何元素时跳到下一个首元素的紧凑循环可以越过大部分输入，明显快于其它算法；
+     * 字母表很小并且模式较长时，KMP频繁地进入部分匹配和回退，双向匹配按已经比较的长度移动窗口，比较次数更少，
+     * 在形如aaa…ab的退化模式上尤其明显。滚动哈希每个元素的代价固定但较高，在单模式查找中没有领先的场景，
+     * 不会被自动选择，需要时通过{@link #create(MatcherEngine, byte[], byte[])}指定。
+     * </p>
+     *
+     * @param patternLength 模式的长度
+     * @param alphabetSize  模式中不同元素的数量
+     * @param inputLength   输入的长度
+     * @return 选择的算法
+     */
+    public static MatcherEngine choose(int patternLength, int alphabetSize, int inputLength) {
+        if (inputLength < MIN_INPUT_LENGTH || patternLength < MIN_PATTERN_LENGTH || patternLength > inputLength) {
+            return MatcherEngine.KMP;
+        }
+        return alphabetSize <= SMALL_ALPHABET ? MatcherEngine.TWO_WAY : MatcherEngine.KMP;
+    }
+
+    /**
+     * 创建在byte数组中查找目标子数组的匹配器，算法由{@link #choose(int, int, int)}选择。
+     *
+     * @param input  要搜索的byte数组
+     * @param target 要查找的目标byte子数组
+     * @return 匹配器
+     */
+    public static PatternMatcher plan(byte[] input, byte[] target) {
+        int[] symbols = symbols(target);
+        int inputLen = input == null ? 0 : input.length;
+        return create(choose(symbols.length, alphabetSize(symbols), inputLen), input, target);
+    }
+
+    /**
+     * 创建在字符序列中查找目标字符序列的匹配器，算法由{@link #choose(int, int, int)}选择。
+     *
+     * @param input  要搜索的字符序列
+     * @param target 要查找的目标字符序列
+     * @return 匹配器
+     */
+    public static PatternMatcher plan(CharSequence input, CharSequence target) {
+        int[] symbols = symbols(target);
+        int inputLen = input == null ? 0 : input.length();
+        return create(choose(symbols.length, alphabetSize(symbols), inputLen), input, target);
+    }
+
+    /**
+     * 使用指定的算法创建在byte数组中查找目标子数组的匹配器。
+     *
+     * @param engine 查找算法
+     * @param input  要搜索的byte数组
+     * @param target 要查找的目标byte子数组
+     * @return 匹配器
+     */
+    public static PatternMatcher create(MatcherEngine engine, byte[] input, byte[] target) {
+        switch (Objects.requireNonNull(engine, "engine")) {
+            case TWO_WAY:
+                return new TwoWayMatcher(() -> input == null ? 0 : input.length, (i) -> input[i] & 0xff, symbols(target));
+            case RABIN_KARP:
+                return new RabinKarpMatcher(() -> input == null ? 0 : input.length, (i) -> input[i] & 0xff, symbols(target));
+            default:
+                return KMP.of(input, target);
+        }
+    }
+
+    /**
+     * 使用指定的算法创建在字符序列中查找目标字符序列的匹配器。
+     *
+     * @param engine 查找算法
+     * @param input  要搜索的字符序列
+     * @param target 要查找的目标字符序列
+     * @return 匹配器
+     */
+    public static PatternMatcher create(MatcherEngine engine, CharSequence input, CharSequence target) {
+        switch (Objects.requireNonNull(engine, "engine")) {
+            case TWO_WAY:
+                return new TwoWayMatcher(() -> input == null ? 0 : input.length(), (i) -> input.charAt(i), symbols(target));
+            case RABIN_KARP:
+                return new RabinKarpMatcher(() -> input == null ? 0 : input.length(), (i) -> input.charAt(i), symbols(target));
+            default:
+                return KMP.of(input, target);
+        }
+    }
+
+    /**
+     * 把byte模式转换成无符号的int元素
+     *
+     * @param target 模式，为null时视为空模式
+     * @return 模式的快照
+     */
+    private static int[] symbols(byte[] target) {
+        int[] symbols = new int[target == null ? 0 : target.length];
+        for (int k = 0; k < symbols.length; k++) symbols[k] = target[k] & 0xff;
+        return symbols;
+    }
+
+    /**
+     * 把字符模式转换成int元素
+     *
+     * @param target 模式，为null时视为空模式
+     * @return 模式的快照
+     */
+    private static int[] symbols(CharSequence target) {
+        return target == null ? new int[0] : target.chars().toArray();
+    }
+
+    /**
+     * 统计模式中不同元素的数量
+     *
+     * @param symbols 模式
+     * @return 不同元素的数量
+     */
+    private static int alphabetSize(int[] symbols) {
+        int[] sorted = symbols.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (k == 0 || sorted[k] != sorted[k - 1]) size++;
+        }
+        return size;
+    }
+}
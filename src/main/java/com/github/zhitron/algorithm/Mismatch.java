@@ -0,0 +1,126 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.predicate.TwicePredicateInt;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * 只依赖元素比较器的近似查找，查找与模式相比至多k个元素不同（汉明距离不超过k）的位置。
+ * <p>
+ * 把模式切分成k + 1个连续的片段，根据抽屉原理，任何不同元素不超过k个的出现位置都至少包含一个完全相同的片段。
+ * 因此先用精确的KMP查找依次扫描每个片段，得到候选的起始位置，再逐个校验候选位置上不同元素的数量，
+ * 超过k个时立即放弃该候选。该方法只依赖元素比较器，供{@link KMPPattern}使用；基本类型的模式能够把元素映射成整数，使用{@link ShiftAdd}。
+ * </p>
+ * <p>
+ * 片段长度不足{@link #MIN_PIECE}时过滤的效果很差，此时直接校验每个起始位置，
+ * 由于模式长度小于2 × (k + 1)，每个位置的比较次数也不会超过模式长度。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class Mismatch {
+    /**
+     * 使用片段过滤时每个片段的最小长度
+     */
+    static final int MIN_PIECE = 2;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private Mismatch() {
+    }
+
+    /**
+     * 精确查找模式片段的函数
+     */
+    interface Pieces {
+        /**
+         * 在指定范围内扫描模式片段的所有出现位置，允许相互重叠。
+         *
+         * @param piece          片段的序号，从0开始；不允许不同元素时只有一个覆盖整个模式的片段
+         * @param from           片段在模式中的起始位置（包含）
+         * @param to             片段在模式中的结束位置（不包含）
+         * @param startInclusive 起始查找位置（包含）
+         * @param endExclusive   结束查找位置（不包含）
+         * @param action         接收片段起始索引的回调，为null时只计数
+         * @return 片段出现的次数
+         */
+        int scan(int piece, int from, int to, int startInclusive, int endExclusive, IntConsumer action);
+    }
+
+    /**
+     * 检查允许的不同元素数量
+     *
+     * @param maxMismatches 允许的不同元素数量
+     * @throws IllegalArgumentException 数量为负数时抛出
+     */
+    static void check(int maxMismatches) {
+        if (maxMismatches < 0) {
+            throw new IllegalArgumentException("maxMismatches < 0: " + maxMismatches);
+        }
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的出现位置，调用者已经把范围调整到有效边界内。
+     *
+     * @param valuesLen      模式序列的长度
+     * @param maxMismatches  允许的不同元素数量，不能为负数
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param pieces         精确查找模式片段的函数
+     * @param match          判断输入位置i的元素与模式位置j的元素是否相等
+     * @param action         按升序接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    static int scan(int valuesLen, int maxMismatches, int startInclusive, int endExclusive, Pieces pieces, TwicePredicateInt match, IntConsumer action) {
+        // 不允许不同元素时就是允许重叠的精确查找
+        if (maxMismatches == 0) return pieces.scan(0, 0, valuesLen, startInclusive, endExclusive, action);
+
+        int last = endExclusive - valuesLen;
+        int count = 0;
+        int parts = maxMismatches + 1;
+        if (valuesLen / parts < MIN_PIECE) {
+            for (int c = startInclusive; c <= last; c++) {
+                if (verify(match, c, valuesLen, maxMismatches)) {
+                    count++;
+                    if (action != null) action.accept(c);
+                }
+            }
+            return count;
+        }
+
+        // 片段[from, to)出现在p时，候选的起始位置为p - from，候选位置不超过last
+        BitSet candidates = new BitSet(last - startInclusive + 1);
+        for (int k = 0; k < parts; k++) {
+            int from = (int) ((long) k * valuesLen / parts);
+            int to = (int) ((long) (k + 1) * valuesLen / parts);
+            int offset = startInclusive + from;
+            pieces.scan(k, from, to, offset, last + to, (p) -> candidates.set(p - offset));
+        }
+        for (int c = candidates.nextSetBit(0); c >= 0; c = candidates.nextSetBit(c + 1)) {
+            if (verify(match, startInclusive + c, valuesLen, maxMismatches)) {
+                count++;
+                if (action != null) action.accept(startInclusive + c);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 校验候选位置上不同元素的数量是否不超过maxMismatches个
+     *
+     * @param match         判断输入位置i的元素与模式位置j的元素是否相等
+     * @param start         候选的起始位置
+     * @param valuesLen     模式序列的长度
+     * @param maxMismatches 允许的不同元素数量
+     * @return 不超过时返回true
+     */
+    private static boolean verify(TwicePredicateInt match, int start, int valuesLen, int maxMismatches) {
+        int mismatches = 0;
+        for (int j = 0; j < valuesLen; j++) {
+            if (!match.test(start + j, j) && ++mismatches > maxMismatches) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.zhitron.algorithm;
+
+/**
+ * next数组的紧凑存储。
+ * <p>
+ * next数组中的值都在[-1, m - 1]之间（m为模式长度），加一后可以用无符号数存放：
+ * 模式长度不超过{@link #BYTE_LIMIT}时每个元素占1个字节，不超过{@link #CHAR_LIMIT}时占2个字节，否则仍使用int数组。
+ * 常驻大量编译后的短模式时，next数组占用的内存可以减少到原来的1/4或1/2。
+ * 读取时先按存储类型分派，再进入为该类型特化的循环，循环内部只多一次零扩展和减法。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class NextTables {
+    /**
+     * 使用byte数组存放的最大模式长度
+     */
+    static final int BYTE_LIMIT = 0xff;
+    /**
+     * 使用char数组存放的最大模式长度
+     */
+    static final int CHAR_LIMIT = 0xffff;
+
+    private NextTables() {
+    }
+
+    /**
+     * 按模式长度选择存储类型
+     *
+     * @param next 长度为模式长度加一的next数组
+     * @return 模式不超过{@link #BYTE_LIMIT}时返回byte数组，不超过{@link #CHAR_LIMIT}时返回char数组，否则返回next本身
+     */
+    static Object compact(int[] next) {
+        int length = next.length - 1;
+        if (length <= BYTE_LIMIT) {
+            byte[] table = new byte[next.length];
+            for (int j = 0; j < next.length; j++) table[j] = (byte) (next[j] + 1);
+            return table;
+        }
+        if (length <= CHAR_LIMIT) {
+            char[] table = new char[next.length];
+            for (int j = 0; j < next.length; j++) table[j] = (char) (next[j] + 1);
+            return table;
+        }
+        return next;
+    }
+
+    /**
+     * 把紧凑存储还原成int数组
+     *
+     * @param table {@link #compact(int[])}返回的数组
+     * @return next数组，table本身是int数组时直接返回
+     */
+    static int[] expand(Object table) {
+        if (table instanceof int[]) return (int[]) table;
+        int[] next = new int[length(table)];
+        for (int j = 0; j < next.length; j++) next[j] = get(table, j);
+        return next;
+    }
+
+    /**
+     * 读取next数组中的一个值，用于不在热点循环中的读取
+     *
+     * @param table {@link #compact(int[])}返回的数组
+     * @param j     下标
+     * @return next[j]
+     */
+    static int get(Object table, int j) {
+        if (table instanceof byte[]) return (((byte[]) table)[j] & 0xff) - 1;
+        if (table instanceof char[]) return ((char[]) table)[j] - 1;
+        return ((int[]) table)[j];
+    }
+
+    /**
+     * 获取next数组的长度
+     *
+     * @param table {@link #compact(int[])}返回的数组
+     * @return 模式长度加一
+     */
+    static int length(Object table) {
+        if (table instanceof byte[]) return ((byte[]) table).length;
+        if (table instanceof char[]) return ((char[]) table).length;
+        return ((int[]) table).length;
+    }
+}
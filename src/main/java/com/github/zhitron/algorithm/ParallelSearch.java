@@ -0,0 +1,237 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于Fork/Join的并行查找实现。
+ * <p>
+ * 把匹配起始位置的范围切分成若干段，每段实际搜索的区间向后多延伸模式长度减一个元素，
+ * 这样跨越分段边界的匹配只会被起始位置所在的那一段找到，结果与顺序查找完全一致。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class ParallelSearch {
+    /**
+     * 每段匹配起始位置的最小数量，范围小于该值时直接顺序查找
+     */
+    static final int MIN_SEGMENT = 1 << 16;
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private ParallelSearch() {
+    }
+
+    /**
+     * 计算每段的大小
+     *
+     * @param length 匹配起始位置的数量
+     * @param pool   线程池
+     * @return 每段的大小
+     */
+    private static int segmentSize(int length, ForkJoinPool pool) {
+        return Math.max(MIN_SEGMENT, length / (pool.getParallelism() << 2) + 1);
+    }
+
+    /**
+     * 并行查找第一次出现的位置，范围必须已经调整到输入序列的有效边界内。
+     *
+     * @param searcher       区间查找器
+     * @param valuesLen      模式长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param pool           线程池
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    static int indexOf(RangeSearcher searcher, int valuesLen, int startInclusive, int endExclusive, ForkJoinPool pool) {
+        int last = endExclusive - valuesLen + 1;
+        if (last - startInclusive <= MIN_SEGMENT) return searcher.indexOf(startInclusive, endExclusive);
+        AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+        int result = pool.invoke(new FirstTask(searcher, valuesLen, endExclusive, startInclusive, last, segmentSize(last - startInclusive, pool), best));
+        return result == Integer.MAX_VALUE ? KMP.NOT_FOUND : result;
+    }
+
+    /**
+     * 并行查找最后一次出现的位置，范围必须已经调整到输入序列的有效边界内。
+     *
+     * @param searcher       区间查找器
+     * @param valuesLen      模式长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param pool           线程池
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    static int lastIndexOf(RangeSearcher searcher, int valuesLen, int startInclusive, int endExclusive, ForkJoinPool pool) {
+        int last = endExclusive - valuesLen + 1;
+        if (last - startInclusive <= MIN_SEGMENT) return searcher.lastIndexOf(startInclusive, endExclusive);
+        AtomicInteger best = new AtomicInteger(KMP.NOT_FOUND);
+        return pool.invoke(new LastTask(searcher, valuesLen, endExclusive, startInclusive, last, segmentSize(last - startInclusive, pool), best));
+    }
+
+    /**
+     * 并行查找所有出现的位置，范围必须已经调整到输入序列的有效边界内。
+     * 不重叠的结果由重叠的结果按从左到右贪心选取得到，与顺序扫描的语义一致。
+     *
+     * @param searcher       区间查找器
+     * @param valuesLen      模式长度
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param pool           线程池
+     * @return 按升序排列的所有匹配起始索引
+     */
+    static int[] findAll(RangeSearcher searcher, int valuesLen, int startInclusive, int endExclusive, boolean overlapping, ForkJoinPool pool) {
+        int last = endExclusive - valuesLen + 1;
+        if (last - startInclusive <= MIN_SEGMENT) {
+            MatchList matches = new MatchList();
+            searcher.scan(startInclusive, endExclusive, overlapping, matches);
+            return matches.toArray();
+        }
+        int[] all = pool.invoke(new AllTask(searcher, valuesLen, endExclusive, startInclusive, last, segmentSize(last - startInclusive, pool)));
+        if (overlapping) return all;
+        int size = 0;
+        int nextAllowed = Integer.MIN_VALUE;
+        for (int index : all) {
+            if (index >= nextAllowed) {
+                all[size++] = index;
+                nextAllowed = index + valuesLen;
+            }
+        }
+        return Arrays.copyOf(all, size);
+    }
+
+    /**
+     * 查找第一次出现位置的分段任务
+     */
+    private static final class FirstTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final RangeSearcher searcher;
+        private final int valuesLen;
+        private final int endExclusive;
+        private final int from;
+        private final int to;
+        private final int segment;
+        private final AtomicInteger best;
+
+        FirstTask(RangeSearcher searcher, int valuesLen, int endExclusive, int from, int to, int segment, AtomicInteger best) {
+            this.searcher = searcher;
+            this.valuesLen = valuesLen;
+            this.endExclusive = endExclusive;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+            this.best = best;
+        }
+
+        @Override
+        protected Integer compute() {
+            // 已经在更靠左的位置找到匹配，该段不可能产生更好的结果
+            if (from >= best.get()) return Integer.MAX_VALUE;
+            if (to - from <= segment) {
+                int index = searcher.indexOf(from, Math.min(endExclusive, to + valuesLen - 1));
+                if (index < 0) return Integer.MAX_VALUE;
+                best.accumulateAndGet(index, Math::min);
+                return index;
+            }
+            int mid = (from + to) >>> 1;
+            FirstTask right = new FirstTask(searcher, valuesLen, endExclusive, mid, to, segment, best);
+            right.fork();
+            int left = new FirstTask(searcher, valuesLen, endExclusive, from, mid, segment, best).compute();
+            if (left != Integer.MAX_VALUE) {
+                // 左半段已经确定了结果，尝试取消尚未开始的右半段
+                right.cancel(false);
+                return left;
+            }
+            return right.join();
+        }
+    }
+
+    /**
+     * 查找最后一次出现位置的分段任务
+     */
+    private static final class LastTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final RangeSearcher searcher;
+        private final int valuesLen;
+        private final int endExclusive;
+        private final int from;
+        private final int to;
+        private final int segment;
+        private final AtomicInteger best;
+
+        LastTask(RangeSearcher searcher, int valuesLen, int endExclusive, int from, int to, int segment, AtomicInteger best) {
+            this.searcher = searcher;
+            this.valuesLen = valuesLen;
+            this.endExclusive = endExclusive;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+            this.best = best;
+        }
+
+        @Override
+        protected Integer compute() {
+            // 已经在更靠右的位置找到匹配，该段不可能产生更好的结果
+            if (to <= best.get()) return KMP.NOT_FOUND;
+            if (to - from <= segment) {
+                int index = searcher.lastIndexOf(from, Math.min(endExclusive, to + valuesLen - 1));
+                if (index < 0) return KMP.NOT_FOUND;
+                best.accumulateAndGet(index, Math::max);
+                return index;
+            }
+            int mid = (from + to) >>> 1;
+            LastTask left = new LastTask(searcher, valuesLen, endExclusive, from, mid, segment, best);
+            left.fork();
+            int right = new LastTask(searcher, valuesLen, endExclusive, mid, to, segment, best).compute();
+            if (right != KMP.NOT_FOUND) {
+                // 右半段已经确定了结果，尝试取消尚未开始的左半段
+                left.cancel(false);
+                return right;
+            }
+            return left.join();
+        }
+    }
+
+    /**
+     * 查找所有重叠出现位置的分段任务
+     */
+    private static final class AllTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+        private final RangeSearcher searcher;
+        private final int valuesLen;
+        private final int endExclusive;
+        private final int from;
+        private final int to;
+        private final int segment;
+
+        AllTask(RangeSearcher searcher, int valuesLen, int endExclusive, int from, int to, int segment) {
+            this.searcher = searcher;
+            this.valuesLen = valuesLen;
+            this.endExclusive = endExclusive;
+            this.from = from;
+            this.to = to;
+            this.segment = segment;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= segment) {
+                MatchList matches = new MatchList();
+                searcher.scan(from, Math.min(endExclusive, to + valuesLen - 1), true, matches);
+                return matches.toArray();
+            }
+            int mid = (from + to) >>> 1;
+            AllTask right = new AllTask(searcher, valuesLen, endExclusive, mid, to, segment);
+            right.fork();
+            int[] left = new AllTask(searcher, valuesLen, endExclusive, from, mid, segment).compute();
+            int[] tail = right.join();
+            int[] all = Arrays.copyOf(left, left.length + tail.length);
+            System.arraycopy(tail, 0, all, left.length, tail.length);
+            return all;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.zhitron.algorithm;
+
+/**
+ * 绑定了输入序列和模式序列的匹配器，不同的查找算法都实现这个接口。
+ * <p>
+ * 范围的语义与{@link KMP}一致：范围会被截取到输入序列的有效边界内，
+ * 模式为空、范围无效或者范围内容纳不下模式时返回 -1。
+ * 调用方只依赖这个接口时，可以由{@link MatcherPlanner}按模式和输入的特点选择具体的算法，而不需要修改调用代码。
+ * </p>
+ *
+ * @author zhitron
+ */
+public interface PatternMatcher {
+    /**
+     * 从指定位置开始查找模式第一次出现的位置。
+     *
+     * @param offset 起始查找位置
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    default int indexOf(int offset) {
+        return this.indexOf(offset, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 在指定范围内查找模式第一次出现的位置。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int indexOf(int startInclusive, int endExclusive);
+
+    /**
+     * 查找模式最后一次出现的位置，整个匹配都要落在[0, offset]内，即匹配的最后一个元素的索引不超过offset，
+     * 等价于{@code lastIndexOf(0, offset + 1)}。
+     * 注意这与{@link String#lastIndexOf(String, int)}只限制匹配起始索引的语义不同，
+     * 例如在"abab"中查找"ab"、offset为2时返回0而不是2。
+     *
+     * @param offset 匹配的最后一个元素允许的最大索引（包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    default int lastIndexOf(int offset) {
+        return this.lastIndexOf(0, offset == Integer.MAX_VALUE ? offset : offset + 1);
+    }
+
+    /**
+     * 在指定范围内查找模式最后一次出现的位置，整个匹配都要落在范围内。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int lastIndexOf(int startInclusive, int endExclusive);
+}
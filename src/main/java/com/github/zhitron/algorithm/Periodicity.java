@@ -0,0 +1,317 @@
+package com.github.zhitron.algorithm;
+
+import com.github.zhitron.lambda.predicate.TwicePredicateInt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 序列的周期和边界分析结果，不可变且线程安全。
+ * <p>
+ * 边界是序列中既是真前缀又是真后缀的非空片段，长度为b的边界对应长度为m - b的周期。
+ * KMP的next数组中next[m]就是最长边界的长度，沿着next[b]继续回退可以依次得到所有更短的边界，
+ * 因此分析只需要构建一次长度为m + 1的next数组，时间复杂度为O(m)。
+ * 最短周期p整除序列长度时，序列是长度为p的本原根重复m / p次得到的。
+ * </p>
+ * <p>
+ * 访问器形式的{@link #of(int, TwicePredicateInt, int[])}可以传入一个可复用的临时数组，
+ * 在循环中分析大量序列时不必每次都分配next数组；分析结果不会引用该数组。
+ * 基本类型的重载直接读取数组元素比较，不会产生装箱。
+ * </p>
+ *
+ * @author zhitron
+ */
+public final class Periodicity {
+    /**
+     * 没有边界时使用的空数组
+     */
+    private static final int[] NO_BORDERS = new int[0];
+    /**
+     * 序列长度
+     */
+    private final int length;
+    /**
+     * 所有边界的长度，按降序排列，不包含0和序列长度本身
+     */
+    private final int[] borders;
+
+    /**
+     * 私有构造函数，只能通过of方法创建
+     *
+     * @param length  序列长度
+     * @param borders 所有边界的长度，按降序排列
+     */
+    private Periodicity(int length, int[] borders) {
+        this.length = length;
+        this.borders = borders;
+    }
+
+    /**
+     * 分析通过访问器描述的序列
+     *
+     * @param length  序列长度
+     * @param compare 判断序列位置i和位置j的元素是否相等
+     * @return 分析结果
+     * @throws IllegalArgumentException 长度为负数时抛出
+     */
+    public static Periodicity of(int length, TwicePredicateInt compare) {
+        return of(length, compare, null);
+    }
+
+    /**
+     * 分析通过访问器描述的序列，使用调用者提供的临时数组构建next数组
+     *
+     * @param length  序列长度
+     * @param compare 判断序列位置i和位置j的元素是否相等
+     * @param scratch 可复用的临时数组，为null或长度小于length + 1时临时分配
+     * @return 分析结果
+     * @throws IllegalArgumentException 长度为负数时抛出
+     */
+    public static Periodicity of(int length, TwicePredicateInt compare, int[] scratch) {
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0: " + length);
+        }
+        Objects.requireNonNull(compare, "compare");
+        if (length == 0) return new Periodicity(0, NO_BORDERS);
+        int[] next = scratch != null && scratch.length > length ? scratch : new int[length + 1];
+        KMP.generateNext(length + 1, compare, next);
+        // 先数出边界的数量，再沿着同一条回退链依次写入
+        int count = 0;
+        for (int b = next[length]; b > 0; b = next[b]) count++;
+        if (count == 0) return new Periodicity(length, NO_BORDERS);
+        int[] borders = new int[count];
+        for (int b = next[length], k = 0; b > 0; b = next[b]) borders[k++] = b;
+        return new Periodicity(length, borders);
+    }
+
+    /**
+     * 分析boolean数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(boolean[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析byte数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(byte[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析char数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(char[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析字符序列
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(CharSequence values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length(), (i, j) -> values.charAt(i) == values.charAt(j));
+    }
+
+    /**
+     * 分析short数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(short[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析int数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(int[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析long数组
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(long[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> values[i] == values[j]);
+    }
+
+    /**
+     * 分析float数组，元素按照{@link Float#compare(float, float)}的语义判断相等，NaN与NaN相等
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(float[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> Float.compare(values[i], values[j]) == 0);
+    }
+
+    /**
+     * 分析double数组，元素按照{@link Double#compare(double, double)}的语义判断相等，NaN与NaN相等
+     *
+     * @param values 序列，为null时视为空序列
+     * @return 分析结果
+     */
+    public static Periodicity of(double[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> Double.compare(values[i], values[j]) == 0);
+    }
+
+    /**
+     * 分析对象数组，元素使用{@link Objects#equals(Object, Object)}判断相等
+     *
+     * @param values 序列，为null时视为空序列
+     * @param <E>    元素类型
+     * @return 分析结果
+     */
+    public static <E> Periodicity of(E[] values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.length, (i, j) -> Objects.equals(values[i], values[j]));
+    }
+
+    /**
+     * 分析列表，元素使用{@link Objects#equals(Object, Object)}判断相等
+     *
+     * @param values 序列，为null时视为空序列
+     * @param <E>    元素类型
+     * @return 分析结果
+     */
+    public static <E> Periodicity of(List<E> values) {
+        if (values == null) return of(0, (i, j) -> true);
+        return of(values.size(), (i, j) -> Objects.equals(values.get(i), values.get(j)));
+    }
+
+    /**
+     * 获取序列长度
+     *
+     * @return 序列长度
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 获取最短周期，即满足s[i] == s[i + p]的最小正整数p；没有边界时为序列长度，空序列为0
+     *
+     * @return 最短周期
+     */
+    public int period() {
+        return length - this.longestBorder();
+    }
+
+    /**
+     * 判断p是否为序列的周期，不小于序列长度的正整数总是周期
+     *
+     * @param p 待判断的周期
+     * @return 是周期时返回true
+     */
+    public boolean isPeriod(int p) {
+        if (p <= 0) return false;
+        if (p >= length) return true;
+        // 边界按降序排列，长度为length - p的边界存在时p是周期
+        int border = length - p;
+        int low = 0, high = borders.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (borders[mid] > border) low = mid + 1;
+            else if (borders[mid] < border) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取最长边界的长度，没有边界时为0
+     *
+     * @return 最长边界的长度
+     */
+    public int longestBorder() {
+        return borders.length == 0 ? 0 : borders[0];
+    }
+
+    /**
+     * 获取所有边界的长度，按降序排列，不包含0和序列长度本身
+     *
+     * @return 所有边界长度的副本
+     */
+    public int[] borders() {
+        return borders.clone();
+    }
+
+    /**
+     * 获取本原根的长度，即序列能够由其重复若干次得到的最短前缀；最短周期不整除序列长度时为序列长度
+     *
+     * @return 本原根的长度，空序列为0
+     */
+    public int primitiveRoot() {
+        int period = this.period();
+        return period == 0 || length % period != 0 ? length : period;
+    }
+
+    /**
+     * 获取本原根重复的次数
+     *
+     * @return 重复的次数，空序列为0
+     */
+    public int exponent() {
+        return length == 0 ? 0 : length / this.primitiveRoot();
+    }
+
+    /**
+     * 判断序列是否由某个更短的片段重复至少两次得到
+     *
+     * @return 是重复序列时返回true
+     */
+    public boolean isRepetition() {
+        return this.exponent() >= 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Periodicity)) return false;
+        Periodicity that = (Periodicity) o;
+        return length == that.length && Arrays.equals(borders, that.borders);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * length + Arrays.hashCode(borders);
+    }
+
+    @Override
+    public String toString() {
+        return "Periodicity{length=" + length
+                + ", period=" + this.period()
+                + ", primitiveRoot=" + this.primitiveRoot()
+                + ", borders=" + Arrays.toString(borders)
+                + '}';
+    }
+}
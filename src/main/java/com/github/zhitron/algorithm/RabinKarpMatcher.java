@@ -0,0 +1,149 @@
+package com.github.zhitron.algorithm;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Rabin-Karp滚动哈希匹配算法。
+ * <p>
+ * 窗口的哈希值是以base为底、模2^31 - 1的多项式，窗口移动一个元素时只需要减去移出的元素、乘以base再加上移入的元素，
+ * 每个输入元素的代价是固定的几次乘法，与模式的内容和字母表大小无关；哈希值相同时再逐个比较确认，因此不会误报。
+ * base在创建时随机选取，构造冲突的输入没有办法针对所有匹配器生效，期望时间复杂度为O(n + m)，只使用常数个额外变量。
+ * </p>
+ * <p>
+ * 元素必须是[0, 65536)之间的int，输入通过访问器读取，反向查找对从右向左读取的窗口计算同样的哈希值。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class RabinKarpMatcher implements PatternMatcher {
+    /**
+     * 哈希值的模数，梅森素数2^31 - 1，取模只需要移位和加法
+     */
+    private static final long MODULUS = (1L << 31) - 1;
+    /**
+     * 输入序列的长度提供器
+     */
+    private final IntSupplier inputLength;
+    /**
+     * 输入序列的访问器
+     */
+    private final IntUnaryOperator input;
+    /**
+     * 模式序列的快照
+     */
+    private final int[] target;
+    /**
+     * 多项式的底
+     */
+    private final long base;
+    /**
+     * base的m - 1次方，用于移出窗口的第一个元素
+     */
+    private final long power;
+    /**
+     * 从左向右读取的模式的哈希值
+     */
+    private final long hash;
+    /**
+     * 从右向左读取的模式的哈希值
+     */
+    private final long reversedHash;
+
+    /**
+     * 创建滚动哈希匹配器
+     *
+     * @param inputLength 输入序列的长度提供器
+     * @param input       输入序列的访问器，返回值在[0, 65536)之间
+     * @param target      模式序列的快照，元素在[0, 65536)之间，不会再被修改
+     */
+    RabinKarpMatcher(IntSupplier inputLength, IntUnaryOperator input, int[] target) {
+        this.inputLength = inputLength;
+        this.input = input;
+        this.target = target;
+        this.base = ThreadLocalRandom.current().nextLong(1 << 16, MODULUS - 1);
+        long power = 1, hash = 0, reversedHash = 0;
+        for (int k = 0; k < target.length; k++) {
+            if (k > 0) power = mod(power * base);
+            hash = mod(hash * base + target[k]);
+            reversedHash = mod(reversedHash * base + target[target.length - 1 - k]);
+        }
+        this.power = power;
+        this.hash = hash;
+        this.reversedHash = reversedHash;
+    }
+
+    /**
+     * 对2^31 - 1取模
+     *
+     * @param x 非负数，小于2^63
+     * @return x mod (2^31 - 1)
+     */
+    private static long mod(long x) {
+        x = (x & MODULUS) + (x >>> 31);
+        x = (x & MODULUS) + (x >>> 31);
+        return x >= MODULUS ? x - MODULUS : x;
+    }
+
+    @Override
+    public int indexOf(int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        int j = this.search(hash, false, startInclusive, 1, endExclusive - startInclusive);
+        return j < 0 ? KMP.NOT_FOUND : startInclusive + j;
+    }
+
+    @Override
+    public int lastIndexOf(int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        // 从右向左滚动窗口，与反转的模式比较，第一个匹配就是原输入中的最后一个匹配
+        int j = this.search(reversedHash, true, endExclusive - 1, -1, endExclusive - startInclusive);
+        return j < 0 ? KMP.NOT_FOUND : endExclusive - j - valuesLen;
+    }
+
+    /**
+     * 滚动哈希的扫描循环，文本的第k个元素为input[first + step × k]
+     *
+     * @param expected 模式按文本方向读取时的哈希值
+     * @param reversed 是否按反转的模式比较
+     * @param first    文本第一个元素在输入中的下标
+     * @param step     读取输入的方向，1或-1
+     * @param n        文本的长度
+     * @return 第一个匹配在文本中的起始位置，没有匹配时返回 -1
+     */
+    private int search(long expected, boolean reversed, int first, int step, int n) {
+        IntUnaryOperator y = this.input;
+        int[] x = this.target;
+        int m = x.length, last = m - 1;
+        long base = this.base, power = this.power, h = 0;
+        for (int k = 0; k < m; k++) h = mod(h * base + y.applyAsInt(first + step * k));
+        for (int j = 0; ; j++) {
+            if (h == expected) {
+                // 哈希值相同时逐个比较，排除冲突
+                int k = 0;
+                while (k < m && x[reversed ? last - k : k] == y.applyAsInt(first + step * (j + k))) k++;
+                if (k == m) return j;
+            }
+            if (j == n - m) return KMP.NOT_FOUND;
+            h -= mod(y.applyAsInt(first + step * j) * power);
+            if (h < 0) h += MODULUS;
+            h = mod(h * base + y.applyAsInt(first + step * (j + m)));
+        }
+    }
+}
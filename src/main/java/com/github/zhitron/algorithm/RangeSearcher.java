@@ -0,0 +1,54 @@
+package com.github.zhitron.algorithm;
+
+import java.util.function.IntConsumer;
+
+/**
+ * 绑定了输入序列和模式序列的区间查找器。
+ * <p>
+ * {@link KMP}的工厂方法在能够确定元素类型时，会绑定一个特化的查找器，
+ * 以避免在查找过程中通过访问器读取元素和装箱。
+ * </p>
+ *
+ * @author zhitron
+ */
+interface RangeSearcher {
+    /**
+     * 在指定范围内查找模式第一次出现的位置，语义与{@link KMP#indexOf(int, int)}一致。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int indexOf(int startInclusive, int endExclusive);
+
+    /**
+     * 在指定范围内查找模式最后一次出现的位置，语义与{@link KMP#lastIndexOf(int, int)}一致。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 如果找到则返回起始索引；否则返回 -1
+     */
+    int lastIndexOf(int startInclusive, int endExclusive);
+
+    /**
+     * 在指定范围内一次线性扫描出所有匹配。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(int startInclusive, int endExclusive, boolean overlapping, IntConsumer action);
+
+    /**
+     * 在指定范围内扫描出所有不同元素不超过maxMismatches个的位置，语义与{@link KMP#findAllApproximate(int, int, int)}一致。
+     *
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param maxMismatches  允许不同的元素数量
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scanApproximate(int startInclusive, int endExclusive, int maxMismatches, IntConsumer action);
+}
@@ -0,0 +1,215 @@
+package com.github.zhitron.algorithm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ * 在查找的同时改写输入的回调，用于实现replaceAll和redact。
+ * <p>
+ * 匹配位置按升序传入，每收到一个匹配就把上一个匹配之后、这个匹配之前的元素原样写出，
+ * 再写出替换内容或者掩码，因此输入只扫描一次，不需要先收集所有匹配再复制。
+ * 替换时匹配之间不允许重叠；掩码时允许重叠，相互重叠的匹配覆盖的所有元素都会被掩盖。
+ * </p>
+ *
+ * @author zhitron
+ */
+abstract class Rewriter implements IntConsumer {
+    /**
+     * 模式的长度
+     */
+    private final int length;
+    /**
+     * 是否用掩码覆盖匹配的元素，否则用替换内容代替整个匹配
+     */
+    private final boolean redact;
+    /**
+     * 输入中已经写出的位置
+     */
+    private int written;
+    /**
+     * 已经处理的匹配数量
+     */
+    private int count;
+
+    /**
+     * 创建改写回调
+     *
+     * @param length 模式的长度
+     * @param redact 是否用掩码覆盖匹配的元素
+     */
+    Rewriter(int length, boolean redact) {
+        this.length = length;
+        this.redact = redact;
+    }
+
+    @Override
+    public void accept(int index) {
+        count++;
+        if (redact) {
+            // 与上一个匹配重叠的部分已经被掩盖
+            int from = Math.max(written, index);
+            this.copy(written, from);
+            this.mask(from, index + length);
+        } else {
+            this.copy(written, index);
+            this.replace();
+        }
+        written = index + length;
+    }
+
+    /**
+     * 写出最后一个匹配之后剩余的元素
+     *
+     * @param end 输入的长度
+     * @return 处理的匹配数量
+     */
+    int finish(int end) {
+        this.copy(written, end);
+        return count;
+    }
+
+    /**
+     * 原样写出输入中的元素
+     *
+     * @param from 起始位置（包含）
+     * @param to   结束位置（不包含）
+     */
+    abstract void copy(int from, int to);
+
+    /**
+     * 写出替换内容
+     */
+    abstract void replace();
+
+    /**
+     * 写出与输入中指定范围等长的掩码
+     *
+     * @param from 起始位置（包含）
+     * @param to   结束位置（不包含）
+     */
+    abstract void mask(int from, int to);
+
+    /**
+     * 计算替换所有匹配之后的长度
+     *
+     * @param inputLen    输入的长度
+     * @param length      模式的长度
+     * @param replacement 替换内容的长度
+     * @param count       匹配的数量
+     * @return 替换后的长度
+     * @throws OutOfMemoryError 替换后的长度超过int范围时抛出
+     */
+    static int replacedLength(int inputLen, int length, int replacement, int count) {
+        long size = inputLen + (long) count * (replacement - length);
+        if (size > Integer.MAX_VALUE) throw new OutOfMemoryError("Required length exceeds implementation limit");
+        return (int) size;
+    }
+
+    /**
+     * 把byte数组改写到缓冲区中
+     *
+     * @param input       输入
+     * @param length      模式的长度
+     * @param replacement 替换内容，为null时用掩码覆盖匹配的元素
+     * @param mask        掩码
+     * @param sink        接收输出的缓冲区，从当前position开始写入
+     * @return 改写回调
+     */
+    static Rewriter of(byte[] input, int length, byte[] replacement, byte mask, ByteBuffer sink) {
+        return new Rewriter(length, replacement == null) {
+            @Override
+            void copy(int from, int to) {
+                sink.put(input, from, to - from);
+            }
+
+            @Override
+            void replace() {
+                sink.put(replacement);
+            }
+
+            @Override
+            void mask(int from, int to) {
+                for (int i = from; i < to; i++) sink.put(mask);
+            }
+        };
+    }
+
+    /**
+     * 把char数组改写到另一个char数组中
+     *
+     * @param input       输入
+     * @param length      模式的长度
+     * @param replacement 替换内容，为null时用掩码覆盖匹配的元素
+     * @param mask        掩码
+     * @param output      接收输出的数组，长度必须足够
+     * @return 改写回调
+     */
+    static Rewriter of(char[] input, int length, char[] replacement, char mask, char[] output) {
+        return new Rewriter(length, replacement == null) {
+            /**
+             * 输出中的写入位置
+             */
+            private int position;
+
+            @Override
+            void copy(int from, int to) {
+                System.arraycopy(input, from, output, position, to - from);
+                position += to - from;
+            }
+
+            @Override
+            void replace() {
+                System.arraycopy(replacement, 0, output, position, replacement.length);
+                position += replacement.length;
+            }
+
+            @Override
+            void mask(int from, int to) {
+                for (int i = from; i < to; i++) output[position++] = mask;
+            }
+        };
+    }
+
+    /**
+     * 把字符序列改写到Appendable中，写出时的IOException包装成UncheckedIOException抛出
+     *
+     * @param input       输入
+     * @param length      模式的长度
+     * @param replacement 替换内容，为null时用掩码覆盖匹配的元素
+     * @param mask        掩码
+     * @param sink        接收输出的Appendable
+     * @return 改写回调
+     */
+    static Rewriter of(CharSequence input, int length, CharSequence replacement, char mask, Appendable sink) {
+        return new Rewriter(length, replacement == null) {
+            @Override
+            void copy(int from, int to) {
+                try {
+                    sink.append(input, from, to);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            void replace() {
+                try {
+                    sink.append(replacement);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            void mask(int from, int to) {
+                try {
+                    for (int i = from; i < to; i++) sink.append(mask);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
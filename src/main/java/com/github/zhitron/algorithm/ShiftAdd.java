@@ -0,0 +1,320 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 允许至多k个元素不同（汉明距离）的近似查找的实现，只能在单个线程内使用。
+ * <p>
+ * 元素统一转换成long类型的键，再映射成掩码行：模式元素的取值跨度较小时直接按值索引，否则使用开放寻址的散列表，
+ * 模式中没有出现的元素共用最后一行。各个基本类型的模式只需要把一段输入批量转换成行号，
+ * 之后的查找都在行号上进行，查找循环因此不需要为每种类型各写一份。
+ * </p>
+ * <p>
+ * 查找先逐个位置比较并在不同元素超过k个时立即放弃，对于元素分布较散的输入，每个位置只需要比较k + 1次左右。
+ * 当一段输入的平均比较次数明显超过该值时（字母表很小或输入高度重复），改用位并行的计数自动机（Shift-Add）：
+ * 模式的每个位置在状态中占用一个b位的计数字段，b - 1位计数，最高位作为溢出标志，2<sup>b - 1</sup> &gt; k；
+ * 读入一个元素时整个状态左移一个字段，再加上该元素的不同位置掩码，第j个字段就是输入当前后缀与模式前j + 1个元素之间不同的数量，
+ * 计数溢出时把标志移入单独的溢出状态并清零，因此字段之间不会产生进位。
+ * 自动机读入每个元素的代价只与状态占用的long数量有关，最坏时间复杂度为O(n × ⌈m × b / 64⌉)。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class ShiftAdd {
+    /**
+     * 每次批量转换的候选位置数量
+     */
+    static final int BLOCK = 1024;
+    /**
+     * 模式元素的取值跨度不超过该值时直接按值索引掩码行，不再使用散列表
+     */
+    static final int DIRECT = 1024;
+    /**
+     * 模式长度
+     */
+    private final int length;
+    /**
+     * 允许不同的元素数量
+     */
+    private final int maxMismatches;
+    /**
+     * 每个计数字段的位数
+     */
+    private final int bits;
+    /**
+     * 每个long中的字段数量
+     */
+    private final int fields;
+    /**
+     * 每个状态占用的long数量
+     */
+    private final int words;
+    /**
+     * 每个long中被字段占用的位
+     */
+    private final long used;
+    /**
+     * 每个字段的溢出标志位
+     */
+    private final long flags;
+    /**
+     * 掩码表，第row行占用[row × words, (row + 1) × words)，模式位置与元素不同时对应字段为1
+     */
+    private final long[] table;
+    /**
+     * 模式每个位置的元素对应的掩码行的起始下标
+     */
+    private final int[] pattern;
+    /**
+     * 模式中没有出现的元素对应的掩码行的起始下标
+     */
+    private final int other;
+    /**
+     * 直接索引的行下标表，为null时使用散列表
+     */
+    private final int[] direct;
+    /**
+     * 直接索引时模式元素的最小值
+     */
+    private final long low;
+    /**
+     * 散列表中的键
+     */
+    private final long[] keys;
+    /**
+     * 散列表中键对应的行下标加一，为0表示空槽
+     */
+    private final int[] slots;
+    /**
+     * 散列表的位移量，散列值右移该位数得到槽位
+     */
+    private final int shift;
+    /**
+     * 批量转换得到的行下标，包含一段候选位置以及其后模式长度减一个元素
+     */
+    private final int[] rows;
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置，调用者已经把范围调整到有效边界内
+     *
+     * @param pattern        模式元素转换成的键
+     * @param maxMismatches  允许不同的元素数量
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param source         批量转换输入元素的函数
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    static int scan(long[] pattern, int maxMismatches, int startInclusive, int endExclusive, Rows source, IntConsumer action) {
+        // 允许全部不同时每个位置都匹配
+        if (maxMismatches >= pattern.length) {
+            int count = 0;
+            for (int c = startInclusive, last = endExclusive - pattern.length; c <= last; c++) {
+                count++;
+                if (action != null) action.accept(c);
+            }
+            return count;
+        }
+        return new ShiftAdd(pattern, maxMismatches).scan(source, startInclusive, endExclusive, action);
+    }
+
+    /**
+     * 根据模式的键构建自动机
+     *
+     * @param pattern       模式元素转换成的键，长度不能为0
+     * @param maxMismatches 允许不同的元素数量，小于模式长度
+     */
+    ShiftAdd(long[] pattern, int maxMismatches) {
+        int length = pattern.length;
+        this.length = length;
+        this.maxMismatches = maxMismatches;
+        this.bits = 33 - Integer.numberOfLeadingZeros(maxMismatches);
+        this.fields = 64 / bits;
+        this.words = (length + fields - 1) / fields;
+        this.used = fields * bits == 64 ? -1L : (1L << (fields * bits)) - 1;
+        long flags = 0;
+        for (int f = 0; f < fields; f++) flags |= 1L << (f * bits + bits - 1);
+        this.flags = flags;
+        this.rows = new int[BLOCK + length - 1];
+
+        // 散列表的负载不超过四分之一，大多数不在模式中的元素第一次探测就能遇到空槽
+        int capacity = Integer.highestOneBit(Math.max(2, length) * 4 - 1) << 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.keys = new long[capacity];
+        this.slots = new int[capacity];
+        int distinct = 0;
+        this.pattern = new int[length];
+        for (int j = 0; j < length; j++) {
+            int slot = this.slot(pattern[j]);
+            if (slots[slot] == 0) {
+                keys[slot] = pattern[j];
+                slots[slot] = distinct++ * words + 1;
+            }
+            this.pattern[j] = slots[slot] - 1;
+        }
+        // 最后一行对应模式中没有出现的元素，每个位置都不同
+        this.other = distinct * words;
+        this.table = new long[(distinct + 1) * words];
+        for (int row = 0; row <= other; row += words) {
+            for (int j = 0; j < length; j++) {
+                if (this.pattern[j] != row) table[row + j / fields] |= 1L << (j % fields * bits);
+            }
+        }
+
+        long low = pattern[0], high = pattern[0];
+        for (long key : pattern) {
+            low = Math.min(low, key);
+            high = Math.max(high, key);
+        }
+        this.low = low;
+        if (high - low >= 0 && high - low < DIRECT) {
+            this.direct = new int[(int) (high - low) + 1];
+            Arrays.fill(direct, other);
+            for (int j = 0; j < length; j++) direct[(int) (pattern[j] - low)] = this.pattern[j];
+        } else {
+            this.direct = null;
+        }
+    }
+
+    /**
+     * 查找键所在的槽位，键不存在时返回应当插入的空槽
+     *
+     * @param key 键
+     * @return 槽位
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (slots[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * 获取键对应的掩码行的起始下标
+     *
+     * @param key 元素转换成的键
+     * @return 掩码行的起始下标
+     */
+    int row(long key) {
+        int[] direct = this.direct;
+        if (direct != null) {
+            long offset = key - low;
+            return offset >= 0 && offset < direct.length ? direct[(int) offset] : other;
+        }
+        int row = slots[this.slot(key)];
+        return row == 0 ? other : row - 1;
+    }
+
+    /**
+     * 批量转换输入元素的函数
+     */
+    interface Rows {
+        /**
+         * 把[from, to)内的输入元素转换成掩码行的起始下标，依次写入rows数组
+         *
+         * @param automaton 使用{@link #row(long)}转换元素的自动机
+         * @param from      起始位置（包含）
+         * @param to        结束位置（不包含）
+         * @param rows      接收行下标的数组
+         */
+        void convert(ShiftAdd automaton, int from, int to, int[] rows);
+    }
+
+    /**
+     * 扫描指定范围内所有不同元素不超过maxMismatches个的位置，调用者已经把范围调整到有效边界内
+     *
+     * @param source         批量转换输入元素的函数
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(Rows source, int startInclusive, int endExclusive, IntConsumer action) {
+        int[] rows = this.rows, pattern = this.pattern;
+        int length = this.length, maxMismatches = this.maxMismatches;
+        int last = endExclusive - length;
+        // 逐个比较时每个位置允许的平均比较次数的两倍，超过之后改用自动机，自动机每多占用两个long多允许一次
+        long allowed = ((maxMismatches + 1L) << 1) + words;
+        boolean automaton = false;
+        int count = 0;
+        for (int base = startInclusive; base <= last; ) {
+            int to = Math.min(last + 1, base + BLOCK);
+            source.convert(this, base, to + length - 1, rows);
+            int c = base;
+            if (!automaton) {
+                long budget = (to - base) * allowed >> 1, compared = 0;
+                for (; c < to && compared <= budget; c++) {
+                    int mismatches = 0, j = 0;
+                    for (int r = c - base; j < length; j++) {
+                        if (rows[r + j] != pattern[j] && ++mismatches > maxMismatches) break;
+                    }
+                    compared += j == length ? length : j + 1;
+                    if (j == length) {
+                        count++;
+                        if (action != null) action.accept(c);
+                    }
+                }
+                automaton = c < to;
+            }
+            if (c < to) count += this.run(rows, c - base, to - base, c, action);
+            base = to;
+        }
+        return count;
+    }
+
+    /**
+     * 使用计数自动机检查一段已经转换的候选位置，状态从第一个候选位置开始重新计算
+     *
+     * @param rows   已经转换的行下标
+     * @param from   第一个候选位置在rows中的下标（包含）
+     * @param to     最后一个候选位置在rows中的下标（不包含）
+     * @param offset 第一个候选位置在输入中的索引
+     * @param action 接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    private int run(int[] rows, int from, int to, int offset, IntConsumer action) {
+        long[] table = this.table;
+        int bits = this.bits, length = this.length, maxMismatches = this.maxMismatches;
+        long used = this.used, flags = this.flags;
+        // 模式最后一个位置所在的long和字段偏移
+        int lastWord = (length - 1) / fields, lastShift = (length - 1) % fields * bits;
+        long counter = (1L << (bits - 1)) - 1, overflow = 1L << (bits - 1);
+        int end = to + length - 1, first = from + length - 1;
+        int count = 0;
+        if (words == 1) {
+            long d = 0, o = 0;
+            for (int i = from; i < end; i++) {
+                d = ((d << bits) & used) + table[rows[i]];
+                long f = d & flags;
+                d ^= f;
+                o = ((o << bits) & used) | f;
+                if (((o >>> lastShift) & overflow) == 0 && ((d >>> lastShift) & counter) <= maxMismatches && i >= first) {
+                    count++;
+                    if (action != null) action.accept(offset + i - first);
+                }
+            }
+            return count;
+        }
+        int words = this.words, top = (fields - 1) * bits;
+        long[] d = new long[words], o = new long[words];
+        for (int i = from; i < end; i++) {
+            int row = rows[i];
+            long dc = 0, oc = 0;
+            for (int w = 0; w < words; w++) {
+                long x = d[w], y = o[w];
+                long v = (((x << bits) & used) | dc) + table[row + w];
+                long f = v & flags;
+                d[w] = v ^ f;
+                o[w] = ((y << bits) & used) | oc | f;
+                dc = x >>> top;
+                oc = y >>> top;
+            }
+            if (((o[lastWord] >>> lastShift) & overflow) == 0 && ((d[lastWord] >>> lastShift) & counter) <= maxMismatches && i >= first) {
+                count++;
+                if (action != null) action.accept(offset + i - first);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,331 @@
+package com.github.zhitron.algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+/**
+ * 通配符和字符类模式使用的位并行自动机（Shift-And），不可变且线程安全。
+ * <p>
+ * 每个模式位置是一个元素集合，元素为通配符时集合为整个字母表。自动机的状态是一个位向量，
+ * 第j位为1表示输入的当前后缀与模式的前j + 1个位置匹配；每读入一个元素只需要一次移位和一次按位与，
+ * 与集合的形状无关，因此即使比较关系不满足传递性也能得到正确的结果，时间复杂度为O(n × ⌈m / 64⌉)。
+ * </p>
+ * <p>
+ * 掩码表为[0, 256)中的每个值各保留一行；更大的字符按模式中出现的区间边界划分成若干段，
+ * 同一段中的字符掩码相同，查找时二分定位所在的段。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class ShiftAnd {
+    /**
+     * 直接按值索引的掩码行数
+     */
+    static final int LOW = 256;
+    /**
+     * 模式长度
+     */
+    final int length;
+    /**
+     * 每个状态占用的long数量
+     */
+    final int words;
+    /**
+     * 正向掩码表，第row行占用[row × words, (row + 1) × words)
+     */
+    private final long[] masks;
+    /**
+     * 反向掩码表，模式位置j对应第length - 1 - j位
+     */
+    private final long[] reverseMasks;
+    /**
+     * 大于等于LOW的字符所在各段的起点，按升序排列
+     */
+    private final int[] starts;
+    /**
+     * 最高位模式位置在最后一个long中的掩码
+     */
+    private final long hit;
+
+    /**
+     * 根据各个模式位置的元素集合构建自动机。
+     *
+     * @param positions 每个模式位置的元素集合，按[lo, hi]闭区间成对排列，区间升序且互不相交
+     */
+    ShiftAnd(List<int[]> positions) {
+        int length = positions.size();
+        this.length = length;
+        this.words = Math.max(1, (length + 63) >>> 6);
+        TreeSet<Integer> bounds = new TreeSet<>();
+        bounds.add(LOW);
+        for (int[] ranges : positions) {
+            for (int k = 0; k < ranges.length; k += 2) {
+                if (ranges[k] > LOW) bounds.add(ranges[k]);
+                if (ranges[k + 1] + 1 > LOW && ranges[k + 1] < Character.MAX_VALUE) bounds.add(ranges[k + 1] + 1);
+            }
+        }
+        this.starts = bounds.stream().mapToInt(Integer::intValue).toArray();
+        int rows = LOW + starts.length;
+        this.masks = new long[rows * words];
+        this.reverseMasks = new long[rows * words];
+        for (int row = 0; row < rows; row++) {
+            int symbol = row < LOW ? row : starts[row - LOW];
+            for (int j = 0; j < length; j++) {
+                if (!contains(positions.get(j), symbol)) continue;
+                masks[row * words + (j >>> 6)] |= 1L << j;
+                int r = length - 1 - j;
+                reverseMasks[row * words + (r >>> 6)] |= 1L << r;
+            }
+        }
+        this.hit = length == 0 ? 0 : 1L << (length - 1);
+    }
+
+    /**
+     * 判断元素是否属于区间集合
+     *
+     * @param ranges 按[lo, hi]闭区间成对排列的区间集合
+     * @param symbol 元素
+     * @return 属于时返回true
+     */
+    private static boolean contains(int[] ranges, int symbol) {
+        for (int k = 0; k < ranges.length; k += 2) {
+            if (symbol >= ranges[k] && symbol <= ranges[k + 1]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取元素对应的掩码行的起始下标
+     *
+     * @param symbol 元素，范围为[0, 65536)
+     * @return 掩码行的起始下标
+     */
+    private int row(int symbol) {
+        if (symbol < LOW) return symbol * words;
+        int k = Arrays.binarySearch(starts, symbol);
+        if (k < 0) k = -k - 2;
+        return (LOW + k) * words;
+    }
+
+    /**
+     * 多字状态前进一步
+     *
+     * @param state 状态位向量，原地更新
+     * @param table 掩码表
+     * @param row   掩码行的起始下标
+     * @return 最高位模式位置匹配时返回true
+     */
+    private boolean step(long[] state, long[] table, int row) {
+        long carry = 1;
+        for (int k = 0; k < state.length; k++) {
+            long x = state[k];
+            state[k] = ((x << 1) | carry) & table[row + k];
+            carry = x >>> 63;
+        }
+        return (state[state.length - 1] & hit) != 0;
+    }
+
+    /**
+     * 在byte数组的指定范围内查找第一次匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 匹配的起始索引；未找到时返回 -1
+     */
+    int indexOf(byte[] input, int startInclusive, int endExclusive) {
+        long[] masks = this.masks;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = startInclusive; i < endExclusive; i++) {
+                d = ((d << 1) | 1) & masks[input[i] & 0xff];
+                if ((d & hit) != 0) return i + 1 - length;
+            }
+            return KMP.NOT_FOUND;
+        }
+        long[] state = new long[words];
+        for (int i = startInclusive; i < endExclusive; i++) {
+            if (step(state, masks, (input[i] & 0xff) * words)) return i + 1 - length;
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    /**
+     * 在byte数组的指定范围内从右向左查找最后一次匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 匹配的起始索引；未找到时返回 -1
+     */
+    int lastIndexOf(byte[] input, int startInclusive, int endExclusive) {
+        long[] masks = this.reverseMasks;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = endExclusive - 1; i >= startInclusive; i--) {
+                d = ((d << 1) | 1) & masks[input[i] & 0xff];
+                if ((d & hit) != 0) return i;
+            }
+            return KMP.NOT_FOUND;
+        }
+        long[] state = new long[words];
+        for (int i = endExclusive - 1; i >= startInclusive; i--) {
+            if (step(state, masks, (input[i] & 0xff) * words)) return i;
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    /**
+     * 扫描byte数组指定范围内的所有匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(byte[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        long[] masks = this.masks;
+        int count = 0;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = startInclusive; i < endExclusive; i++) {
+                d = ((d << 1) | 1) & masks[input[i] & 0xff];
+                if ((d & hit) != 0) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - length);
+                    // 清空状态后，之后的匹配只能从当前匹配结束之后开始
+                    if (!overlapping) d = 0;
+                }
+            }
+            return count;
+        }
+        long[] state = new long[words];
+        for (int i = startInclusive; i < endExclusive; i++) {
+            if (step(state, masks, (input[i] & 0xff) * words)) {
+                count++;
+                if (action != null) action.accept(i + 1 - length);
+                if (!overlapping) Arrays.fill(state, 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在char数组的指定范围内查找第一次匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 匹配的起始索引；未找到时返回 -1
+     */
+    int indexOf(char[] input, int startInclusive, int endExclusive) {
+        long[] masks = this.masks;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = startInclusive; i < endExclusive; i++) {
+                char c = input[i];
+                d = ((d << 1) | 1) & masks[c < LOW ? c : row(c)];
+                if ((d & hit) != 0) return i + 1 - length;
+            }
+            return KMP.NOT_FOUND;
+        }
+        long[] state = new long[words];
+        for (int i = startInclusive; i < endExclusive; i++) {
+            if (step(state, masks, row(input[i]))) return i + 1 - length;
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    /**
+     * 在char数组的指定范围内从右向左查找最后一次匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 匹配的起始索引；未找到时返回 -1
+     */
+    int lastIndexOf(char[] input, int startInclusive, int endExclusive) {
+        long[] masks = this.reverseMasks;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = endExclusive - 1; i >= startInclusive; i--) {
+                char c = input[i];
+                d = ((d << 1) | 1) & masks[c < LOW ? c : row(c)];
+                if ((d & hit) != 0) return i;
+            }
+            return KMP.NOT_FOUND;
+        }
+        long[] state = new long[words];
+        for (int i = endExclusive - 1; i >= startInclusive; i--) {
+            if (step(state, masks, row(input[i]))) return i;
+        }
+        return KMP.NOT_FOUND;
+    }
+
+    /**
+     * 扫描char数组指定范围内的所有匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入数组
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @param overlapping    是否允许匹配之间相互重叠
+     * @param action         接收匹配起始索引的回调，为null时只计数
+     * @return 匹配的次数
+     */
+    int scan(char[] input, int startInclusive, int endExclusive, boolean overlapping, IntConsumer action) {
+        long[] masks = this.masks;
+        int count = 0;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = startInclusive; i < endExclusive; i++) {
+                char c = input[i];
+                d = ((d << 1) | 1) & masks[c < LOW ? c : row(c)];
+                if ((d & hit) != 0) {
+                    count++;
+                    if (action != null) action.accept(i + 1 - length);
+                    if (!overlapping) d = 0;
+                }
+            }
+            return count;
+        }
+        long[] state = new long[words];
+        for (int i = startInclusive; i < endExclusive; i++) {
+            if (step(state, masks, row(input[i]))) {
+                count++;
+                if (action != null) action.accept(i + 1 - length);
+                if (!overlapping) Arrays.fill(state, 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 在字符序列的指定范围内查找第一次匹配，调用者已经把范围调整到有效边界内
+     *
+     * @param input          输入字符序列
+     * @param startInclusive 起始查找位置（包含）
+     * @param endExclusive   结束查找位置（不包含）
+     * @return 匹配的起始索引；未找到时返回 -1
+     */
+    int indexOf(CharSequence input, int startInclusive, int endExclusive) {
+        long[] masks = this.masks;
+        if (words == 1) {
+            long d = 0, hit = this.hit;
+            for (int i = startInclusive; i < endExclusive; i++) {
+                char c = input.charAt(i);
+                d = ((d << 1) | 1) & masks[c < LOW ? c : row(c)];
+                if ((d & hit) != 0) return i + 1 - length;
+            }
+            return KMP.NOT_FOUND;
+        }
+        long[] state = new long[words];
+        for (int i = startInclusive; i < endExclusive; i++) {
+            if (step(state, masks, row(input.charAt(i)))) return i + 1 - length;
+        }
+        return KMP.NOT_FOUND;
+    }
+}
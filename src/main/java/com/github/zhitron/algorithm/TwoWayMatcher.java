@@ -0,0 +1,195 @@
+package com.github.zhitron.algorithm;
+
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Crochemore-Perrin双向匹配算法。
+ * <p>
+ * 预处理按两种相反的字典序求模式的最大后缀，得到关键分解x = uv：
+ * 查找时先从左向右比较v，失配时直接按已经比较的长度移动窗口；v完全匹配后再从右向左比较u，
+ * 整个匹配成功或者失败后按模式的周期移动窗口。模式有周期性时记住已经确认的前缀，避免重复比较。
+ * 除了模式本身只使用常数个额外变量，最坏情况下的时间复杂度为O(n + m)，比较次数不超过2n。
+ * </p>
+ * <p>
+ * 元素按int比较，输入通过访问器读取，反向查找在反转的模式上执行同样的算法。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class TwoWayMatcher implements PatternMatcher {
+    /**
+     * 输入序列的长度提供器
+     */
+    private final IntSupplier inputLength;
+    /**
+     * 输入序列的访问器
+     */
+    private final IntUnaryOperator input;
+    /**
+     * 模式序列的快照
+     */
+    private final int[] target;
+    /**
+     * 反转的模式序列，用于反向查找
+     */
+    private final int[] reversed;
+    /**
+     * 正向查找的分解参数，依次为u的最后一个下标、移动的距离、模式是否有周期性（1或0）
+     */
+    private final int[] forward;
+    /**
+     * 反向查找的分解参数，含义与forward相同
+     */
+    private final int[] backward;
+
+    /**
+     * 创建双向匹配器
+     *
+     * @param inputLength 输入序列的长度提供器
+     * @param input       输入序列的访问器
+     * @param target      模式序列的快照，不会再被修改
+     */
+    TwoWayMatcher(IntSupplier inputLength, IntUnaryOperator input, int[] target) {
+        this.inputLength = inputLength;
+        this.input = input;
+        this.target = target;
+        this.reversed = new int[target.length];
+        for (int k = 0; k < target.length; k++) reversed[k] = target[target.length - 1 - k];
+        this.forward = factorize(target);
+        this.backward = factorize(reversed);
+    }
+
+    /**
+     * 计算模式的关键分解
+     *
+     * @param x 模式
+     * @return u的最后一个下标、移动的距离、模式是否有周期性（1或0）
+     */
+    private static int[] factorize(int[] x) {
+        int m = x.length;
+        if (m == 0) return new int[]{-1, 1, 0};
+        // 分别按两种相反的字典序求最大后缀，起点较大的一个就是关键分解的位置
+        int[] less = maxSuffix(x, false);
+        int[] greater = maxSuffix(x, true);
+        int[] split = less[0] > greater[0] ? less : greater;
+        int ell = split[0], period = split[1];
+        // 最大后缀的周期满足ell + 1 + period <= m；x[0, ell]与x[period, period + ell]相同时整个模式以period为周期，
+        // 否则模式的周期大于max(|u|, |v|)，可以按max(|u|, |v|) + 1移动
+        for (int k = 0; k <= ell; k++) {
+            if (x[k] != x[k + period]) return new int[]{ell, Math.max(ell + 1, m - ell - 1) + 1, 0};
+        }
+        return new int[]{ell, period, 1};
+    }
+
+    /**
+     * 求模式在指定字典序下的最大后缀
+     *
+     * @param x        模式
+     * @param reversed 是否使用相反的字典序
+     * @return 最大后缀起点的前一个下标，以及最大后缀的周期
+     */
+    private static int[] maxSuffix(int[] x, boolean reversed) {
+        int m = x.length;
+        int ms = -1, j = 0, k = 1, p = 1;
+        while (j + k < m) {
+            int a = x[j + k], b = x[ms + k];
+            if (reversed ? a > b : a < b) {
+                j += k;
+                k = 1;
+                p = j - ms;
+            } else if (a == b) {
+                if (k != p) {
+                    k++;
+                } else {
+                    j += p;
+                    k = 1;
+                }
+            } else {
+                ms = j;
+                j = ms + 1;
+                k = p = 1;
+            }
+        }
+        return new int[]{ms, p};
+    }
+
+    @Override
+    public int indexOf(int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        int j = this.search(target, forward, startInclusive, 1, endExclusive - startInclusive);
+        return j < 0 ? KMP.NOT_FOUND : startInclusive + j;
+    }
+
+    @Override
+    public int lastIndexOf(int startInclusive, int endExclusive) {
+        if (startInclusive >= endExclusive) return KMP.NOT_FOUND;
+        int inputLen = inputLength.getAsInt();
+        int valuesLen = target.length;
+        if (inputLen <= 0 || valuesLen <= 0 || valuesLen > inputLen) return KMP.NOT_FOUND;
+        if (endExclusive <= 0 || startInclusive >= inputLen) return KMP.NOT_FOUND;
+        if (startInclusive < 0) startInclusive = 0;
+        if (endExclusive > inputLen) endExclusive = inputLen;
+        if (valuesLen > endExclusive - startInclusive) return KMP.NOT_FOUND;
+
+        // 在从右向左读取的输入中查找反转的模式，第一个匹配就是原输入中的最后一个匹配
+        int j = this.search(reversed, backward, endExclusive - 1, -1, endExclusive - startInclusive);
+        return j < 0 ? KMP.NOT_FOUND : endExclusive - j - valuesLen;
+    }
+
+    /**
+     * 双向匹配的扫描循环，文本的第k个元素为input[base + step × k]
+     *
+     * @param x     模式
+     * @param split 模式的分解参数
+     * @param base  文本第一个元素在输入中的下标
+     * @param step  读取输入的方向，1或-1
+     * @param n     文本的长度
+     * @return 第一个匹配在文本中的起始位置，没有匹配时返回 -1
+     */
+    private int search(int[] x, int[] split, int base, int step, int n) {
+        IntUnaryOperator y = this.input;
+        int m = x.length, ell = split[0], shift = split[1];
+        int j = 0;
+        if (split[2] != 0) {
+            // memory为上一次按周期移动后已经确认匹配的前缀的最后一个下标
+            int memory = -1;
+            while (j <= n - m) {
+                int i = Math.max(ell, memory) + 1;
+                while (i < m && x[i] == y.applyAsInt(base + step * (i + j))) i++;
+                if (i >= m) {
+                    i = ell;
+                    while (i > memory && x[i] == y.applyAsInt(base + step * (i + j))) i--;
+                    if (i <= memory) return j;
+                    j += shift;
+                    memory = m - shift - 1;
+                } else {
+                    j += i - ell;
+                    memory = -1;
+                }
+            }
+        } else {
+            while (j <= n - m) {
+                int i = ell + 1;
+                while (i < m && x[i] == y.applyAsInt(base + step * (i + j))) i++;
+                if (i >= m) {
+                    i = ell;
+                    while (i >= 0 && x[i] == y.applyAsInt(base + step * (i + j))) i--;
+                    if (i < 0) return j;
+                    j += shift;
+                } else {
+                    j += i - ell;
+                }
+            }
+        }
+        return KMP.NOT_FOUND;
+    }
+}
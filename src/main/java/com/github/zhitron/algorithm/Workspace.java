@@ -0,0 +1,53 @@
+package com.github.zhitron.algorithm;
+
+/**
+ * 每个线程一块可复用的next数组缓冲区，供{@link KMP#setThreadLocalWorkspace(boolean)}使用。
+ * <p>
+ * 缓冲区按取出和归还的方式使用：取出后线程的槽位为空，比较器中嵌套的查找会临时分配新的数组，
+ * 而不会覆盖外层查找正在使用的next数组。查找抛出异常时缓冲区不会被归还，之后的查找重新分配一次即可。
+ * 超过{@link #MAX_RETAINED}个元素的数组不会被保留，避免长模式的一次查找使线程长期占用大块内存。
+ * </p>
+ *
+ * @author zhitron
+ */
+final class Workspace {
+    /**
+     * 每个线程保留的缓冲区的最大长度
+     */
+    static final int MAX_RETAINED = 1 << 16;
+    /**
+     * 每个线程的槽位，元素为null表示缓冲区已被取出或尚未分配
+     */
+    private static final ThreadLocal<int[][]> LOCAL = ThreadLocal.withInitial(() -> new int[1][]);
+
+    /**
+     * 私有构造函数，防止外部实例化
+     */
+    private Workspace() {
+    }
+
+    /**
+     * 取出当前线程的缓冲区，缓冲区不存在或长度不足时分配新的数组
+     *
+     * @param length 需要的最小长度
+     * @return 长度不小于length的数组，使用完毕后应当通过{@link #release(int[])}归还
+     */
+    static int[] acquire(int length) {
+        int[][] slot = LOCAL.get();
+        int[] buffer = slot[0];
+        if (buffer == null || buffer.length < length) return new int[length];
+        slot[0] = null;
+        return buffer;
+    }
+
+    /**
+     * 把缓冲区归还给当前线程，槽位中已有更长的缓冲区时丢弃
+     *
+     * @param buffer 通过{@link #acquire(int)}取出的数组，为null时忽略
+     */
+    static void release(int[] buffer) {
+        if (buffer == null || buffer.length > MAX_RETAINED) return;
+        int[][] slot = LOCAL.get();
+        if (slot[0] == null || slot[0].length < buffer.length) slot[0] = buffer;
+    }
+}
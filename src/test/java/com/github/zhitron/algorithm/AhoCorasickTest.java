@@ -0,0 +1,117 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 多模式匹配器测试类
+ */
+public class AhoCorasickTest {
+
+    /**
+     * 把匹配结果编码为“模式编号:起始位置”并排序，便于比较
+     */
+    private static List<String> sorted(List<String> matches) {
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * 测试byte多模式匹配与逐个模式的KMP查找结果一致
+     */
+    @Test
+    public void test_byte_Random() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            byte[] input = new byte[random.nextInt(300)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(3);
+            byte[][] patterns = new byte[1 + random.nextInt(6)][];
+            for (int p = 0; p < patterns.length; p++) {
+                patterns[p] = new byte[random.nextInt(5)];
+                for (int i = 0; i < patterns[p].length; i++) patterns[p][i] = (byte) random.nextInt(3);
+            }
+
+            List<String> expected = new ArrayList<>();
+            for (int p = 0; p < patterns.length; p++) {
+                for (int index : ByteKMP.compile(patterns[p]).findAll(input, true)) expected.add(p + ":" + index);
+            }
+            List<String> actual = new ArrayList<>();
+            ByteAhoCorasick matcher = ByteAhoCorasick.compile(patterns);
+            int count = matcher.forEach(input, (p, index) -> actual.add(p + ":" + index));
+            assertEquals(sorted(expected), sorted(actual));
+            assertEquals(expected.size(), count);
+            assertEquals(expected.size(), matcher.count(input));
+            assertEquals(!expected.isEmpty(), matcher.containsAny(input));
+        }
+    }
+
+    /**
+     * 测试状态数量超过初始容量时状态转移表扩容后的结果，以及状态数量的上限
+     */
+    @Test
+    public void test_byte_Grow() {
+        Random random = new Random(6);
+        byte[][] patterns = new byte[80][];
+        byte[] input = new byte[20000];
+        random.nextBytes(input);
+        for (int p = 0; p < patterns.length; p++) {
+            int from = random.nextInt(input.length - 64);
+            patterns[p] = Arrays.copyOfRange(input, from, from + 16 + random.nextInt(48));
+        }
+        List<String> expected = new ArrayList<>();
+        for (int p = 0; p < patterns.length; p++) {
+            for (int index : ByteKMP.compile(patterns[p]).findAll(input, true)) expected.add(p + ":" + index);
+        }
+        List<String> actual = new ArrayList<>();
+        ByteAhoCorasick.compile(patterns).forEach(input, (p, index) -> actual.add(p + ":" + index));
+        assertEquals(sorted(expected), sorted(actual));
+
+        assertEquals(2048, ByteAhoCorasick.grow(1024));
+        assertEquals(ByteAhoCorasick.MAX_STATES, ByteAhoCorasick.grow(ByteAhoCorasick.MAX_STATES - 1));
+        try {
+            ByteAhoCorasick.grow(ByteAhoCorasick.MAX_STATES);
+            fail();
+        } catch (IllegalArgumentException expectedException) {
+            assertTrue(expectedException.getMessage().contains("too many states"));
+        }
+    }
+
+    /**
+     * 测试字符多模式匹配
+     */
+    @Test
+    public void test_char() {
+        CharAhoCorasick matcher = CharAhoCorasick.compile("he", "she", "his", "hers", "she");
+        List<String> actual = new ArrayList<>();
+        matcher.forEach("ushers", (p, index) -> actual.add(p + ":" + index));
+        assertEquals(Arrays.asList("1:1", "4:1", "0:2", "3:2"), actual);
+        assertEquals(5, matcher.patternCount());
+        assertTrue(matcher.containsAny("this"));
+        assertFalse(matcher.containsAny("xyz"));
+        assertEquals(3, matcher.forEach("ushers", 0, 4, (p, index) -> {
+        }));
+    }
+
+    /**
+     * 测试通用元素的多模式匹配和自定义比较器
+     */
+    @Test
+    public void test_generic() {
+        List<List<String>> patterns = Arrays.asList(Arrays.asList("A", "B"), Arrays.asList("b", "c"), Collections.<String>emptyList());
+        AhoCorasick<String> matcher = AhoCorasick.compile(patterns, String::equalsIgnoreCase);
+        List<String> actual = new ArrayList<>();
+        int count = matcher.forEach(Arrays.asList("a", "b", "C", "a", "B"), (p, index) -> actual.add(p + ":" + index));
+        assertEquals(3, count);
+        assertEquals(Arrays.asList("0:0", "1:1", "0:3"), actual);
+    }
+}
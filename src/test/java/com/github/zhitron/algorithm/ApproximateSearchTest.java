@@ -0,0 +1,199 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 允许k个元素不同的近似查找测试类
+ */
+public class ApproximateSearchTest {
+
+    /**
+     * 朴素地统计每个起始位置上不同元素的数量
+     *
+     * @param input         输入数组
+     * @param target        模式数组
+     * @param start         起始查找位置（包含）
+     * @param end           结束查找位置（不包含）
+     * @param maxMismatches 允许不同的元素数量
+     * @return 所有匹配的起始索引
+     */
+    private static int[] naive(int[] input, int[] target, int start, int end, int maxMismatches) {
+        MatchList matches = new MatchList();
+        start = Math.max(start, 0);
+        end = Math.min(end, input.length);
+        if (target.length == 0) return matches.toArray();
+        for (int c = start; c + target.length <= end; c++) {
+            int mismatches = 0;
+            for (int j = 0; j < target.length; j++) {
+                if (input[c + j] != target[j]) mismatches++;
+            }
+            if (mismatches <= maxMismatches) matches.accept(c);
+        }
+        return matches.toArray();
+    }
+
+    /**
+     * 生成随机数组，alphabet越小近似匹配越多
+     */
+    private static int[] random(Random random, int length, int alphabet) {
+        int[] values = new int[length];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt(alphabet);
+        return values;
+    }
+
+    /**
+     * 测试int数组的近似查找与朴素实现的结果一致，覆盖片段过滤和直接校验两种路径
+     */
+    @Test
+    public void test_int_Random() {
+        Random random = new Random(18);
+        for (int round = 0; round < 2000; round++) {
+            int alphabet = 2 + random.nextInt(4);
+            int[] input = random(random, random.nextInt(200), alphabet);
+            int[] target = random(random, 1 + random.nextInt(16), alphabet);
+            // 一部分模式从输入中截取后再随机修改几个元素
+            if (input.length > target.length && random.nextBoolean()) {
+                int from = random.nextInt(input.length - target.length);
+                System.arraycopy(input, from, target, 0, target.length);
+                for (int e = random.nextInt(3); e > 0; e--) target[random.nextInt(target.length)] = random.nextInt(alphabet);
+            }
+            int k = random.nextInt(target.length + 2);
+            int start = random.nextInt(20) - 5;
+            int end = input.length - random.nextInt(20) + 5;
+            IntKMP pattern = IntKMP.compile(target);
+            assertArrayEquals(naive(input, target, 0, input.length, k), pattern.findAllApproximate(input, k));
+            assertArrayEquals(naive(input, target, start, end, k), pattern.findAllApproximate(input, start, end, k));
+            assertArrayEquals(naive(input, target, start, end, k), KMP.of(input, target).findAllApproximate(start, end, k));
+        }
+    }
+
+    /**
+     * 测试跨越多个批次的长输入和占用多个long的长模式，取值分散时使用散列表映射元素
+     */
+    @Test
+    public void test_int_Long() {
+        Random random = new Random(20);
+        for (int round = 0; round < 40; round++) {
+            int alphabet = 2 + random.nextInt(round % 2 == 0 ? 3 : 200);
+            // 把小字母表映射到分散的取值上
+            int[] spread = new int[alphabet];
+            for (int a = 0; a < alphabet; a++) spread[a] = round % 4 < 2 ? random.nextInt() : a;
+            int[] input = random(random, 3000 + random.nextInt(3000), alphabet);
+            int[] target = new int[1 + random.nextInt(120)];
+            int from = random.nextInt(input.length - target.length);
+            System.arraycopy(input, from, target, 0, target.length);
+            for (int e = random.nextInt(6); e > 0; e--) target[random.nextInt(target.length)] = random.nextInt(alphabet);
+            for (int i = 0; i < input.length; i++) input[i] = spread[input[i]];
+            for (int j = 0; j < target.length; j++) target[j] = spread[target[j]];
+            int k = random.nextInt(Math.min(target.length, 12));
+            assertArrayEquals(naive(input, target, 0, input.length, k), IntKMP.compile(target).findAllApproximate(input, k));
+        }
+    }
+
+    /**
+     * 测试其它基本类型、通用模式和访问器模式的近似查找
+     */
+    @Test
+    public void test_Other_Random() {
+        Random random = new Random(19);
+        for (int round = 0; round < 500; round++) {
+            int[] input = random(random, random.nextInt(120), 3);
+            int[] target = random(random, 1 + random.nextInt(12), 3);
+            int k = random.nextInt(4);
+            int[] expected = naive(input, target, 0, input.length, k);
+
+            byte[] bytes = new byte[input.length], byteTarget = new byte[target.length];
+            double[] doubles = new double[input.length], doubleTarget = new double[target.length];
+            char[] chars = new char[input.length], charTarget = new char[target.length];
+            Integer[] boxed = new Integer[input.length], boxedTarget = new Integer[target.length];
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < input.length; i++) {
+                bytes[i] = (byte) input[i];
+                // 值为0的位置使用NaN，按照Double.compare的语义NaN与NaN相等
+                doubles[i] = input[i] == 0 ? Double.NaN : input[i];
+                chars[i] = (char) ('a' + input[i]);
+                boxed[i] = input[i] + 1000;
+                list.add(input[i] + 1000);
+            }
+            for (int j = 0; j < target.length; j++) {
+                byteTarget[j] = (byte) target[j];
+                doubleTarget[j] = target[j] == 0 ? Double.NaN : target[j];
+                // 模式使用大写字母，忽略大小写后与输入相同
+                charTarget[j] = (char) ('A' + target[j]);
+                boxedTarget[j] = target[j] + 1000;
+            }
+            assertArrayEquals(expected, ByteKMP.compile(byteTarget).findAllApproximate(bytes, k));
+            assertArrayEquals(expected, KMP.of(ByteBuffer.wrap(bytes), byteTarget).findAllApproximate(k));
+            assertArrayEquals(expected, DoubleKMP.compile(doubleTarget).findAllApproximate(doubles, k));
+            assertArrayEquals(expected, CharKMP.compile(charTarget).withIgnoreCase().findAllApproximate(chars, k));
+            assertArrayEquals(expected, CharKMP.compile(charTarget).withIgnoreCase().findAllApproximate(new String(chars), k));
+            assertArrayEquals(expected, KMP.ofIgnoreCase(new String(chars), new String(charTarget)).findAllApproximate(k));
+            // 不忽略大小写时大小写不同的字符都算作不同，只有k不小于模式长度时才有匹配
+            int[] all = k >= target.length ? naive(input, target, 0, input.length, Integer.MAX_VALUE) : new int[0];
+            assertArrayEquals(all, CharKMP.compile(charTarget).findAllApproximate(chars, k));
+            assertArrayEquals(expected, KMPPattern.compile(boxedTarget).findAllApproximate(boxed, k));
+            assertArrayEquals(expected, KMPPattern.compile(boxedTarget).findAllApproximate(list, k));
+            assertArrayEquals(expected, KMP.of(boxed, boxedTarget).findAllApproximate(k));
+        }
+    }
+
+    /**
+     * 测试同一个通用模式在不同的k和输入上反复近似查找时结果不变，片段的next数组不进入共享缓存
+     */
+    @Test
+    public void test_KMPPattern_Reuse() {
+        KMPCache cache = KMPCache.shared();
+        int capacity = cache.capacity();
+        cache.setCapacity(128);
+        try {
+            Random random = new Random(23);
+            int[] target = random(random, 24, 3);
+            Integer[] boxedTarget = new Integer[target.length];
+            for (int j = 0; j < target.length; j++) boxedTarget[j] = target[j];
+            KMPPattern<Integer> pattern = KMPPattern.compile(boxedTarget);
+            KMPPattern<Integer> optimized = pattern.withOptimizedNext();
+            int size = cache.size();
+            for (int round = 0; round < 60; round++) {
+                int[] input = random(random, random.nextInt(300), 3);
+                Integer[] boxed = new Integer[input.length];
+                for (int i = 0; i < input.length; i++) boxed[i] = input[i];
+                int k = round % 20 < 10 ? 3 : random.nextInt(6);
+                assertArrayEquals(naive(input, target, 0, input.length, k), pattern.findAllApproximate(boxed, k));
+                assertArrayEquals(naive(input, target, 0, input.length, k), optimized.findAllApproximate(boxed, k));
+            }
+            assertEquals(size, cache.size());
+        } finally {
+            cache.setCapacity(capacity);
+        }
+    }
+
+    /**
+     * 测试边界情况：k不小于模式长度时每个位置都匹配，空模式和空输入没有匹配
+     */
+    @Test
+    public void test_Bounds() {
+        int[] input = {1, 2, 3, 4, 5};
+        assertArrayEquals(new int[]{0, 1, 2}, IntKMP.compile(new int[]{7, 8, 9}).findAllApproximate(input, 3));
+        assertArrayEquals(new int[]{}, IntKMP.compile(new int[]{7, 8, 9}).findAllApproximate(input, 2));
+        assertArrayEquals(new int[]{1}, IntKMP.compile(new int[]{2, 0, 4}).findAllApproximate(input, 1));
+        assertArrayEquals(new int[]{}, IntKMP.compile(new int[0]).findAllApproximate(input, 1));
+        assertArrayEquals(new int[]{}, IntKMP.compile(new int[]{1}).findAllApproximate(null, 1));
+        assertArrayEquals(new int[]{}, KMPPattern.compile(new Integer[]{1}).findAllApproximate((Integer[]) null, 1));
+    }
+
+    /**
+     * 测试k为负数时抛出异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_NegativeMismatches() {
+        KMP.of(new int[]{1, 2, 3}, new int[]{2}).findAllApproximate(-1);
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 批量查找测试类
+ */
+public class BatchSearchTest {
+
+    /**
+     * 测试批量查找与逐个查找的结果一致，并行与顺序的结果一致
+     */
+    @Test
+    public void test_indexOfEach() {
+        Random random = new Random(17);
+        List<byte[]> inputs = new ArrayList<>();
+        for (int k = 0; k < 1000; k++) {
+            byte[] input = new byte[random.nextInt(64)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(3);
+            inputs.add(k % 97 == 0 ? null : input);
+        }
+        ByteKMP pattern = ByteKMP.compile(new byte[]{1, 2, 1});
+        int[] expected = new int[inputs.size()];
+        int found = 0;
+        for (int k = 0; k < expected.length; k++) {
+            expected[k] = pattern.indexOf(inputs.get(k));
+            if (expected[k] >= 0) found++;
+        }
+        int[] results = new int[inputs.size() + 3];
+        assertEquals(found, pattern.indexOfEach(inputs, results));
+        assertArrayEquals(expected, Arrays.copyOf(results, expected.length));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            int[] parallel = new int[inputs.size()];
+            assertEquals(found, pattern.indexOfEach(inputs, parallel, pool));
+            assertArrayEquals(expected, parallel);
+            // 少于一段的批次直接顺序查找
+            int[] small = new int[BatchSearch.MIN_BATCH];
+            pattern.indexOfEach(inputs.subList(0, small.length), small, pool);
+            assertArrayEquals(Arrays.copyOf(expected, small.length), small);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 测试其它类型的批量查找和结果数组长度不足的情况
+     */
+    @Test
+    public void test_indexOfEach_Other() {
+        CharKMP chars = CharKMP.compile("ab".toCharArray());
+        int[] results = new int[3];
+        assertEquals(2, chars.indexOfEach(Arrays.asList("xab".toCharArray(), "ba".toCharArray(), "ab".toCharArray()), results));
+        assertArrayEquals(new int[]{1, -1, 0}, results);
+
+        KMPPattern<Integer> pattern = KMPPattern.compile(new Integer[]{3, 4});
+        List<List<Integer>> lists = Arrays.asList(Arrays.asList(1, 3, 4), Arrays.asList(4, 3), null);
+        assertEquals(1, pattern.indexOfEach(lists, results, ForkJoinPool.commonPool()));
+        assertArrayEquals(new int[]{1, -1, -1}, results);
+
+        try {
+            pattern.indexOfEach(lists, new int[2]);
+            throw new AssertionError();
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 文件查找测试类
+ */
+public class FileKMPTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 测试不同窗口大小下与数组查找结果一致
+     */
+    @Test
+    public void test_windows() throws Exception {
+        Random random = new Random(3);
+        byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) random.nextInt(3);
+        byte[] target = {1, 2, 0, 1, 2};
+        ByteKMP pattern = ByteKMP.compile(target);
+        File file = folder.newFile("data.bin");
+        Files.write(file.toPath(), data);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            for (int windowSize : new int[]{5, 7, 64, 1000, FileKMP.DEFAULT_WINDOW_SIZE}) {
+                assertEquals(pattern.indexOf(data), FileKMP.indexOf(channel, pattern, 0, Long.MAX_VALUE, windowSize));
+                assertEquals(pattern.indexOf(data, 100), FileKMP.indexOf(channel, pattern, 100, Long.MAX_VALUE, windowSize));
+                assertEquals(pattern.lastIndexOf(data), FileKMP.lastIndexOf(channel, pattern, 0, Long.MAX_VALUE, windowSize));
+                assertEquals(pattern.lastIndexOf(data, 0, 3000), FileKMP.lastIndexOf(channel, pattern, 0, 3000, windowSize));
+
+                MatchList matches = new MatchList();
+                long count = FileKMP.forEach(channel, pattern, 0, Long.MAX_VALUE, true, windowSize, (index) -> matches.accept((int) index));
+                assertArrayEquals(pattern.findAll(data, true), matches.toArray());
+                assertEquals(pattern.count(data, true), count);
+            }
+            assertEquals(pattern.count(data, false), FileKMP.count(channel, pattern, false));
+            assertEquals(-1, FileKMP.indexOf(channel, ByteKMP.compile(new byte[]{9})));
+        }
+    }
+
+    /**
+     * 测试直接缓冲区的查找
+     */
+    @Test
+    public void test_byteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+        buffer.put(new byte[]{1, 2, 3, 4, 1, 2, 3, 5}).flip();
+        KMP<Byte> kmp = KMP.of(buffer, new byte[]{1, 2, 3});
+        assertEquals(0, kmp.indexOf(0));
+        assertEquals(4, kmp.indexOf(1));
+        assertEquals(4, kmp.lastIndexOf(buffer.limit()));
+        assertArrayEquals(new int[]{0, 4}, kmp.findAll(true));
+        assertEquals(0, buffer.position());
+    }
+}
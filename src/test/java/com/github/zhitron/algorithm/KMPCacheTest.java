@@ -0,0 +1,154 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * next数组缓存测试类
+ */
+public class KMPCacheTest {
+
+    /**
+     * 测试命中、未命中以及键中比较器的区分
+     */
+    @Test
+    public void test_next_HitAndMiss() {
+        KMPCache cache = new KMPCache(64);
+        byte[] target = {1, 2, 1, 2, 3};
+        int[] first = cache.next(target.clone(), null, 0, target.length, (i, j) -> target[i] == target[j]);
+        int[] second = cache.next(target.clone(), null, 0, target.length, (i, j) -> target[i] == target[j]);
+        assertSame(first, second);
+        assertArrayEquals(KMP.generateNext(target.length + 1, (i, j) -> target[i] == target[j]), first);
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        // 内容相同但元素类型不同的快照不能共享
+        char[] chars = {1, 2, 1, 2, 3};
+        cache.next(chars, null, 0, chars.length, (i, j) -> chars[i] == chars[j]);
+        assertEquals(2, cache.missCount());
+
+        // 比较器按对象标识区分
+        BiPredicate<String, String> ignoreCase = String::equalsIgnoreCase;
+        List<String> words = Arrays.asList("a", "A", "b");
+        int[] exact = cache.next(words.size(), words::get, Objects::equals, 0);
+        int[] folded = cache.next(words.size(), words::get, ignoreCase, 0);
+        assertNotSame(exact, folded);
+        assertArrayEquals(new int[]{-1, 0, 1, 0}, folded);
+        assertSame(folded, cache.next(words.size(), words::get, ignoreCase, 0));
+        assertEquals(4, cache.size());
+
+        // 不同种类的next数组分别缓存
+        int[] reversed = cache.next(target.clone(), null, KMPCache.REVERSED, target.length, (i, j) -> target[i] == target[j]);
+        assertArrayEquals(new int[]{-1, 0, 0, 0, 0, 0}, reversed);
+        assertEquals(5, cache.size());
+    }
+
+    /**
+     * 测试容量限制、淘汰计数和关闭缓存
+     */
+    @Test
+    public void test_setCapacity() {
+        KMPCache cache = new KMPCache(KMPCache.SEGMENTS);
+        for (int n = 0; n < 200; n++) {
+            int[] target = {n, n + 1};
+            cache.next(target, null, 0, target.length, (i, j) -> target[i] == target[j]);
+        }
+        assertTrue(cache.size() <= KMPCache.SEGMENTS);
+        assertEquals(200 - cache.size(), cache.evictionCount());
+
+        cache.setCapacity(0);
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.size());
+        long misses = cache.missCount();
+        int[] target = {7, 7};
+        cache.next(target, null, 0, target.length, (i, j) -> target[i] == target[j]);
+        assertEquals(misses, cache.missCount());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * 测试并发访问同一组模式时结果正确
+     */
+    @Test
+    public void test_next_Concurrent() throws Exception {
+        KMPCache cache = new KMPCache(32);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int n = 0; n < 2000; n++) {
+                        int[] target = {n % 50, 1, n % 50, 1};
+                        int[] next = cache.next(target, null, 0, target.length, (i, j) -> target[i] == target[j]);
+                        assertArrayEquals(KMP.generateNext(target.length + 1, (i, j) -> target[i] == target[j]), next);
+                    }
+                });
+            }
+            for (Future<?> future : futures) future.get();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(16000, cache.hitCount() + cache.missCount());
+    }
+
+    /**
+     * 测试开启共享缓存后KMP的查找结果不变
+     */
+    @Test
+    public void test_shared() {
+        KMPCache cache = KMPCache.shared();
+        int capacity = cache.capacity();
+        cache.setCapacity(128);
+        try {
+            Integer[] input = {1, 2, 3, 1, 2, 3, 1};
+            Integer[] target = {3, 1};
+            long hits = cache.hitCount();
+            for (int round = 0; round < 3; round++) {
+                KMP<Integer> kmp = KMP.of(input, target);
+                assertEquals(2, kmp.indexOf(0));
+                assertEquals(5, kmp.lastIndexOf(input.length));
+                assertArrayEquals(new int[]{2, 5}, kmp.findAll(true));
+                assertEquals(2, IntKMP.compile(new int[]{3, 1}).indexOf(new int[]{1, 2, 3, 1}));
+            }
+            assertTrue(cache.hitCount() - hits >= 9);
+        } finally {
+            cache.setCapacity(capacity);
+        }
+    }
+
+    /**
+     * 测试比较器比equals更严格时，equals相等但比较器下不相等的模式不会共享next数组
+     */
+    @Test
+    public void test_shared_StrictComparator() {
+        KMPCache cache = KMPCache.shared();
+        int capacity = cache.capacity();
+        cache.setCapacity(128);
+        try {
+            BiPredicate<String, String> same = (a, b) -> a == b;
+            String x = "x";
+            String[] input = {x, x, x};
+            assertEquals(0, KMP.of(input, new String[]{x, new String(x)}).setCompare(same).count(true));
+            assertEquals(2, KMP.of(input, new String[]{x, x}).setCompare(same).count(true));
+            assertEquals(2, KMP.of(input, new String[]{x, new String(x)}).count(true));
+        } finally {
+            cache.setCapacity(capacity);
+        }
+    }
+}
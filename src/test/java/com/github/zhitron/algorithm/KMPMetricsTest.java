@@ -0,0 +1,96 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 查找统计测试类
+ */
+public class KMPMetricsTest {
+
+    /**
+     * 测试绑定统计后查找结果不变，并且计数与查找循环的实际工作量一致
+     */
+    @Test
+    public void test_withMetrics_Random() {
+        Random random = new Random(23);
+        KMPMetrics metrics = new KMPMetrics();
+        long searches = 0, matches = 0, scanned = 0;
+        for (int round = 0; round < 300; round++) {
+            byte[] input = new byte[random.nextInt(200)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(3);
+            byte[] target = new byte[1 + random.nextInt(5)];
+            for (int i = 0; i < target.length; i++) target[i] = (byte) random.nextInt(3);
+            ByteKMP plain = ByteKMP.compile(target).withDfa();
+            ByteKMP metered = plain.withMetrics(metrics);
+
+            int index = plain.indexOf(input);
+            assertEquals(index, metered.indexOf(input));
+            assertEquals(plain.lastIndexOf(input), metered.lastIndexOf(input));
+            assertEquals(plain.lastIndexOf(input), metered.lastIndexOf(ByteBuffer.wrap(input), 0, input.length));
+            int[] all = plain.findAll(input, true);
+            assertArrayEquals(all, metered.findAll(input, true));
+            assertEquals(plain.count(input, false), metered.count(input, false));
+            if (target.length <= input.length) {
+                searches += 5;
+                matches += all.length + plain.count(input, false) + (index >= 0 ? 3 : 0);
+                scanned += input.length * 2L + (index >= 0 ? index + target.length : input.length);
+            }
+        }
+        assertEquals(searches, metrics.searchCount());
+        assertEquals(matches, metrics.matchCount());
+        assertTrue(metrics.scannedCount() >= scanned);
+        // 经典next数组的比较次数不超过扫描元素数的两倍
+        assertTrue(metrics.comparisonCount() <= 2 * metrics.scannedCount());
+        assertTrue(metrics.fallbackCount() < metrics.comparisonCount());
+        assertEquals(0, metrics.tableBuildCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.searchCount());
+        assertEquals(0, metrics.comparisonCount());
+    }
+
+    /**
+     * 测试比较次数与{@link KMP#comparisonCount}一致，以及表构建的统计
+     */
+    @Test
+    public void test_setMetrics() {
+        Integer[] input = {1, 1, 1, 1, 2, 1, 1, 1, 1, 1, 3};
+        Integer[] target = {1, 1, 1, 1, 3};
+        KMPMetrics metrics = new KMPMetrics();
+        KMP<Integer> kmp = KMP.of(input, target).setMetrics(metrics);
+        assertEquals(6, kmp.indexOf(0));
+        assertEquals(kmp.comparisonCount(0, input.length, false), metrics.comparisonCount());
+        assertEquals(input.length, metrics.scannedCount());
+        assertEquals(1, metrics.matchCount());
+        assertEquals(1, metrics.tableBuildCount());
+
+        assertEquals(6, kmp.lastIndexOf(input.length));
+        assertArrayEquals(new int[]{6}, kmp.findAll(true));
+        assertEquals(3, metrics.searchCount());
+        assertEquals(3, metrics.tableBuildCount());
+
+        // 编译后的模式绑定同一个统计，编译本身计为一次表构建
+        KMPPattern<Integer> pattern = kmp.compile();
+        assertEquals(4, metrics.tableBuildCount());
+        assertEquals(6, pattern.indexOf(Arrays.asList(input)));
+        assertEquals(4, metrics.searchCount());
+        assertSame(pattern, pattern.withMetrics(metrics));
+        assertEquals(6, pattern.withMetrics(null).indexOf(input));
+        assertEquals(4, metrics.searchCount());
+
+        // 绑定统计后构建的DFA计为一次表构建
+        CharKMP chars = CharKMP.compile("abab".toCharArray()).withMetrics(metrics).withDfa(128);
+        assertEquals(5, metrics.tableBuildCount());
+        assertEquals(2, chars.indexOf("xxabab".toCharArray()));
+        assertEquals(5, metrics.searchCount());
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 预编译KMP模式测试类
+ */
+public class KMPPatternTest {
+
+    /**
+     * 测试编译后的模式与KMP的查找结果一致
+     */
+    @Test
+    public void test_compile() {
+        Character[] input = {'A', 'B', 'A', 'B', 'C', 'A', 'B', 'C'};
+        Character[] target = {'A', 'B', 'C'};
+        KMPPattern<Character> pattern = KMP.of(input, target).compile();
+        assertEquals(3, pattern.length());
+        assertEquals(2, pattern.indexOf(input));
+        assertEquals(5, pattern.lastIndexOf(input));
+        assertEquals(5, pattern.indexOf((i) -> input[i], input.length, 3, input.length));
+        assertEquals(2, pattern.lastIndexOf((i) -> input[i], input.length, 0, 5));
+        assertEquals(-1, pattern.indexOf((i) -> input[i], input.length, 5, 3));
+    }
+
+    /**
+     * 测试编译时对模式做快照，之后修改原数组不影响结果
+     */
+    @Test
+    public void test_compile_Snapshot() {
+        String[] target = {"B", "C"};
+        KMPPattern<String> pattern = KMPPattern.compile(target);
+        target[0] = "X";
+        assertEquals(1, pattern.indexOf(Arrays.asList("A", "B", "C")));
+    }
+
+    /**
+     * 测试空模式与空输入
+     */
+    @Test
+    public void test_compile_Empty() {
+        KMPPattern<String> empty = KMPPattern.compile(Collections.<String>emptyList());
+        assertEquals(-1, empty.indexOf(Arrays.asList("A", "B")));
+        KMPPattern<String> pattern = KMPPattern.compile(Collections.singletonList("A"));
+        assertEquals(-1, pattern.indexOf(Collections.<String>emptyList()));
+        assertEquals(-1, pattern.lastIndexOf((String[]) null));
+    }
+
+    /**
+     * 测试自定义比较器
+     */
+    @Test
+    public void test_compile_Compare() {
+        List<String> input = Arrays.asList("a", "b", "c", "e", "f");
+        KMPPattern<String> pattern = KMPPattern.compile(Arrays.asList("B", "C"), String::equalsIgnoreCase);
+        assertEquals(1, pattern.indexOf(input));
+    }
+
+    /**
+     * 测试多个线程共享同一个编译后的模式
+     */
+    @Test
+    public void test_compile_Shared() throws Exception {
+        Integer[] input = new Integer[10000];
+        for (int i = 0; i < input.length; i++) input[i] = i % 100;
+        KMPPattern<Integer> pattern = KMPPattern.compile(new Integer[]{97, 98, 99});
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = executor.invokeAll(Collections.nCopies(16, () -> pattern.lastIndexOf(input)));
+            for (Future<Integer> future : futures) {
+                assertEquals(9997, future.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 测试一次扫描出所有匹配
+     */
+    @Test
+    public void test_findAll() {
+        String[] input = {"x", "y", "x", "y", "x", "z", "x", "y", "x"};
+        KMPPattern<String> pattern = KMPPattern.compile(new String[]{"x", "y", "x"});
+        assertArrayEquals(new int[]{0, 2, 6}, pattern.findAll(input, true));
+        assertArrayEquals(new int[]{0, 6}, pattern.findAll(Arrays.asList(input), false));
+        assertEquals(3, pattern.count(input, true));
+        assertEquals(1, pattern.count((i) -> input[i], input.length, 1, 6, true));
+        assertArrayEquals(new int[0], pattern.findAll((String[]) null, true));
+    }
+}
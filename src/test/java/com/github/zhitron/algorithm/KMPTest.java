@@ -435,4 +435,52 @@ public class KMPTest {
 
         assertEquals(1, kmp.indexOf(0));
     }
+
+    /**
+     * 测试findAll、count和forEach方法
+     * 包括重叠与不重叠两种匹配语义
+     */
+    @Test
+    public void test_findAll() {
+        List<String> input = Arrays.asList("A", "A", "A", "B", "A", "A");
+        List<String> pattern = Arrays.asList("A", "A");
+        KMP<String> kmp = KMP.of(input, pattern);
+        assertArrayEquals(new int[]{0, 1, 4}, kmp.findAll(true));
+        assertArrayEquals(new int[]{0, 4}, kmp.findAll(false));
+        assertArrayEquals(new int[]{1}, kmp.findAll(1, 4, true));
+        assertEquals(3, kmp.count(true));
+        assertEquals(0, kmp.count(3, 1, true));
+
+        int[] sum = {0};
+        kmp.forEach(false, (index) -> sum[0] += index);
+        assertEquals(4, sum[0]);
+
+        // 基本类型工厂方法走特化路径，结果应一致
+        KMP<Character> charKmp = KMP.of("abababa".toCharArray(), "aba".toCharArray());
+        assertArrayEquals(new int[]{0, 2, 4}, charKmp.findAll(true));
+        assertArrayEquals(new int[]{0, 4}, charKmp.findAll(false));
+        assertEquals(0, KMP.of(new int[0], new int[]{1}).count(true));
+    }
+
+    /**
+     * 测试优化的next数组以及节省的比较次数
+     */
+    @Test
+    public void test_generateOptimizedNext() {
+        String pattern = "AAAAB";
+        assertArrayEquals(new int[]{-1, 0, 1, 2, 3, 0}, KMP.generateNext(pattern.length() + 1, (i, j) -> pattern.charAt(i) == pattern.charAt(j)));
+        assertArrayEquals(new int[]{-1, -1, -1, -1, 3, 0}, KMP.generateOptimizedNext(pattern.length(), (i, j) -> pattern.charAt(i) == pattern.charAt(j)));
+        String abab = "ABAB";
+        assertArrayEquals(new int[]{-1, 0, -1, 0, 2}, KMP.generateOptimizedNext(abab.length(), (i, j) -> abab.charAt(i) == abab.charAt(j)));
+
+        List<String> input = Arrays.asList("A", "A", "A", "A", "C", "A", "A", "A", "A", "B");
+        KMP<String> kmp = KMP.of(input, Arrays.asList("A", "A", "A", "A", "B"));
+        long classic = kmp.comparisonCount(0, input.size(), false);
+        long optimized = kmp.comparisonCount(0, input.size(), true);
+        assertEquals(14, classic);
+        assertEquals(11, optimized);
+        assertEquals(5, kmp.setOptimizedNext(true).indexOf(0));
+        assertArrayEquals(new int[]{5}, kmp.findAll(true));
+        assertEquals(5, kmp.compile().indexOf(input));
+    }
 }
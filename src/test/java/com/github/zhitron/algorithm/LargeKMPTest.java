@@ -0,0 +1,115 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * long下标查找的测试类
+ */
+public class LargeKMPTest {
+
+    /**
+     * 把int下标的匹配位置转换成long
+     */
+    private static long[] widen(int[] matches) {
+        return Arrays.stream(matches).asLongStream().toArray();
+    }
+
+    /**
+     * 把字节数组随机切分成多个缓冲区，包括长度为0和比模式还短的缓冲区
+     */
+    private static ByteBuffer[] split(Random random, byte[] input) {
+        List<ByteBuffer> segments = new ArrayList<>();
+        for (int from = 0; from < input.length; ) {
+            int length = Math.min(input.length - from, random.nextInt(random.nextBoolean() ? 4 : 40));
+            ByteBuffer segment = random.nextBoolean() ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+            segment.put(input, from, length);
+            segments.add(segment);
+            from += length;
+        }
+        return segments.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * 测试分段缓冲区和通用访问器的查找结果与int下标的查找一致
+     */
+    @Test
+    public void test_Random() {
+        Random random = new Random(22);
+        for (int round = 0; round < 1000; round++) {
+            byte[] input = new byte[random.nextInt(200)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(2);
+            byte[] target = new byte[1 + random.nextInt(6)];
+            for (int j = 0; j < target.length; j++) target[j] = (byte) random.nextInt(2);
+            int start = random.nextInt(20) - 5;
+            int end = input.length - random.nextInt(20) + 5;
+            boolean overlapping = random.nextBoolean();
+            ByteKMP pattern = ByteKMP.compile(target);
+            Byte[] boxedTarget = new Byte[target.length];
+            for (int j = 0; j < target.length; j++) boxedTarget[j] = target[j];
+
+            LargeKMP<Byte> segmented = LargeKMP.of(split(random, input), target);
+            LargeKMP<Byte> generic = LargeKMP.of(input.length, (i) -> input[(int) i], boxedTarget).setOptimizedNext(random.nextBoolean());
+            // 调用设置方法后退回到通用的查找方式
+            LargeKMP<Byte> fallback = LargeKMP.of(split(random, input), target).setOptimizedNext(true).setCompare(Byte::equals);
+            for (LargeKMP<Byte> kmp : Arrays.asList(segmented, generic, fallback)) {
+                assertEquals(input.length, kmp.getInputLength());
+                assertEquals(pattern.indexOf(input, start, end), kmp.indexOf(start, end));
+                assertEquals(pattern.lastIndexOf(input, start, end), kmp.lastIndexOf(start, end));
+                assertEquals(pattern.indexOf(input, Math.max(0, start)), kmp.indexOf(Math.max(0, start)));
+                assertEquals(KMP.of(input, target).lastIndexOf(Math.max(0, end)), kmp.lastIndexOf(Math.max(0, end)));
+                assertArrayEquals(widen(pattern.findAll(input, start, end, overlapping)), kmp.findAll(start, end, overlapping));
+                assertArrayEquals(widen(pattern.findAll(input, overlapping)), kmp.findAll(overlapping));
+                assertEquals(pattern.count(input, overlapping), kmp.count(overlapping));
+            }
+        }
+    }
+
+    /**
+     * 测试超过Integer.MAX_VALUE个元素的输入，同一个缓冲区重复拼接，不需要真正分配这么多内存
+     */
+    @Test
+    public void test_BeyondIntRange() {
+        byte[] chunk = new byte[1 << 20];
+        chunk[chunk.length - 2] = 1;
+        chunk[chunk.length - 1] = 2;
+        chunk[0] = 3;
+        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+        ByteBuffer[] segments = new ByteBuffer[3000];
+        Arrays.fill(segments, buffer);
+        long total = (long) chunk.length * segments.length;
+        LargeKMP<Byte> kmp = LargeKMP.of(segments, new byte[]{1, 2, 3});
+        assertEquals(total, kmp.getInputLength());
+
+        // 模式跨越两个缓冲区的边界，第k个边界处的匹配起始位置为(k + 1) × 2^20 - 2
+        long near = 2500L << 20;
+        assertEquals(near + chunk.length - 2, kmp.indexOf(near));
+        assertEquals(total - chunk.length - 2, kmp.lastIndexOf(total - chunk.length));
+        assertEquals(total - 2 * chunk.length - 2, kmp.lastIndexOf(total - chunk.length - 1));
+        assertArrayEquals(new long[]{near - 2, near + chunk.length - 2}, kmp.findAll(near - 10, near + chunk.length + 1, false));
+        assertEquals(LargeKMP.NOT_FOUND, kmp.indexOf(total - 2));
+
+        // 通用访问器的输入同样可以超过int范围
+        LargeKMP<Integer> generic = LargeKMP.of(5_000_000_000L, (i) -> i == 4_000_000_123L ? 7 : 0, new Integer[]{0, 7, 0});
+        assertEquals(4_000_000_122L, generic.indexOf(4_000_000_000L));
+        assertEquals(4_000_000_122L, generic.lastIndexOf(4_000_000_000L, 4_000_001_000L));
+        assertEquals(1, generic.count(4_000_000_000L, 4_000_001_000L, true));
+    }
+
+    /**
+     * 测试空输入和空模式
+     */
+    @Test
+    public void test_Empty() {
+        assertEquals(LargeKMP.NOT_FOUND, LargeKMP.of(null, new byte[]{1}).indexOf(0));
+        assertEquals(0, LargeKMP.of(new ByteBuffer[]{ByteBuffer.allocate(4)}, new byte[0]).count(true));
+        assertArrayEquals(new long[0], LargeKMP.of(0, (i) -> 1, new Integer[]{1}).findAll(true));
+    }
+}
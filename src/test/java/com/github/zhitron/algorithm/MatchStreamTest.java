@@ -0,0 +1,143 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * 匹配位置流的测试类
+ */
+public class MatchStreamTest {
+
+    /**
+     * 生成随机数组，alphabet越小匹配越多
+     */
+    private static int[] random(Random random, int length, int alphabet) {
+        int[] values = new int[length];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt(alphabet);
+        return values;
+    }
+
+    /**
+     * 测试顺序和并行流的结果与findAll一致，输入跨越多个批次
+     */
+    @Test
+    public void test_Random() {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            int[] input = random(random, random.nextInt(round % 10 == 0 ? 30000 : 300), 2);
+            int[] target = random(random, 1 + random.nextInt(6), 2);
+            int start = random.nextInt(20) - 5;
+            int end = input.length - random.nextInt(20) + 5;
+            boolean overlapping = random.nextBoolean();
+            IntKMP pattern = IntKMP.compile(target);
+            int[] expected = pattern.findAll(input, start, end, overlapping);
+            assertArrayEquals(expected, pattern.matches(input, start, end, overlapping).toArray());
+            assertArrayEquals(expected, pattern.matches(input, start, end, overlapping).parallel().toArray());
+            assertArrayEquals(pattern.findAll(input, overlapping), pattern.matches(input, overlapping).toArray());
+            assertArrayEquals(expected, KMP.of(input, target).matches(start, end, overlapping).toArray());
+
+            // 逐个取出匹配时按批查找
+            AtomicInteger taken = new AtomicInteger();
+            Spliterator.OfInt matches = pattern.matches(input, start, end, overlapping).spliterator();
+            int[] collected = new int[expected.length];
+            while (matches.tryAdvance((int p) -> collected[taken.getAndIncrement()] = p)) {
+                assertTrue(taken.get() <= expected.length);
+            }
+            assertArrayEquals(expected, collected);
+
+            Integer[] boxed = Arrays.stream(input).boxed().toArray(Integer[]::new);
+            Integer[] boxedTarget = Arrays.stream(target).boxed().toArray(Integer[]::new);
+            assertArrayEquals(pattern.findAll(input, overlapping), KMPPattern.compile(boxedTarget).matches(boxed, overlapping).parallel().toArray());
+            assertArrayEquals(pattern.findAll(input, overlapping), KMPPattern.compile(boxedTarget).matches(Arrays.asList(boxed), overlapping).toArray());
+            assertArrayEquals(expected, KMP.of(boxed, boxedTarget).matches(start, end, overlapping).parallel().toArray());
+        }
+    }
+
+    /**
+     * 测试字符序列、缓冲区和其它基本类型的流
+     */
+    @Test
+    public void test_Types() {
+        String text = "abracadabra, abracadabra";
+        assertArrayEquals(new int[]{0, 7, 13, 20}, CharKMP.compile("abra").matches(text, true).toArray());
+        assertArrayEquals(new int[]{0, 7, 13, 20}, CharKMP.compile("ABRA").withIgnoreCase().matches(text.toCharArray(), true).toArray());
+        assertArrayEquals(new int[]{0, 2}, LongKMP.compile(new long[]{1, 1}).matches(new long[]{1, 1, 1, 1}, false).toArray());
+        assertArrayEquals(new int[]{0, 1, 2}, BooleanKMP.compile(new boolean[]{true, true}).matches(new boolean[]{true, true, true, true}, true).toArray());
+        assertArrayEquals(new int[]{1}, DoubleKMP.compile(new double[]{Double.NaN}).matches(new double[]{0, Double.NaN}, true).toArray());
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 2, 1, 2, 1, 2});
+        assertArrayEquals(new int[]{2, 4}, ByteKMP.compile(new byte[]{1, 2}).matches(buffer, 1, 6, true).toArray());
+        assertEquals(0, ShortKMP.compile(new short[0]).matches(new short[]{1}, true).count());
+        assertEquals(0, FloatKMP.compile(new float[]{1}).matches(null, true).count());
+        assertEquals(0, KMPPattern.compile(new Integer[]{1}).matches((Integer[]) null, true).count());
+    }
+
+    /**
+     * 测试findFirst和limit只扫描到找到足够的匹配为止
+     */
+    @Test
+    public void test_ShortCircuit() {
+        int[] input = new int[1 << 20];
+        input[10] = 1;
+        input[100] = 1;
+        input[input.length - 1] = 1;
+        AtomicInteger reads = new AtomicInteger();
+        KMP<Integer> kmp = KMP.<Integer>of()
+                .setInputLength(() -> input.length)
+                .setInputAccessor((i) -> {
+                    reads.incrementAndGet();
+                    return input[i];
+                })
+                .setTargetLength(() -> 1)
+                .setTargetAccessor((i) -> 1);
+        assertEquals(10, kmp.matches(true).findFirst().getAsInt());
+        assertTrue("reads: " + reads.get(), reads.get() <= MatchSpliterator.BLOCK);
+        reads.set(0);
+        assertArrayEquals(new int[]{10, 100}, kmp.matches(false).limit(2).toArray());
+        assertTrue("reads: " + reads.get(), reads.get() <= MatchSpliterator.BLOCK);
+        assertEquals(3, kmp.matches(true).count());
+    }
+
+    /**
+     * 测试允许重叠时流可以切分，不允许重叠时不切分
+     */
+    @Test
+    public void test_Split() {
+        int[] input = new int[100000];
+        for (int i = 0; i < input.length; i += 3) input[i] = 1;
+        IntKMP pattern = IntKMP.compile(new int[]{1, 0, 0, 1});
+        Spliterator.OfInt whole = pattern.matches(input, true).spliterator();
+        Spliterator.OfInt prefix = whole.trySplit();
+        assertNotNull(prefix);
+        int[] left = StreamSupport.intStream(prefix, false).toArray();
+        int[] right = StreamSupport.intStream(whole, false).toArray();
+        int[] joined = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, joined, left.length, right.length);
+        assertArrayEquals(pattern.findAll(input, true), joined);
+        assertTrue(whole.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.ORDERED));
+        assertNull(pattern.matches(input, false).spliterator().trySplit());
+    }
+
+    /**
+     * 测试最后一个匹配结束于范围末尾时，不允许重叠的流剩余的估计大小不为负数
+     */
+    @Test
+    public void test_estimateSize_MatchAtEnd() {
+        byte[] input = new byte[5000];
+        byte[] target = new byte[100];
+        Arrays.fill(target, (byte) 1);
+        System.arraycopy(target, 0, input, input.length - target.length, target.length);
+        Spliterator.OfInt spliterator = ByteKMP.compile(target).matches(input, false).spliterator();
+        assertTrue(spliterator.tryAdvance((int p) -> assertEquals(4900, p)));
+        assertEquals(0, spliterator.estimateSize());
+        assertFalse(spliterator.tryAdvance((int p) -> fail()));
+        assertEquals(0, spliterator.estimateSize());
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多种查找算法和算法选择的测试类
+ */
+public class MatcherPlannerTest {
+
+    /**
+     * 生成随机数组，周期性的模式由较短的片段重复得到，用于覆盖双向匹配的周期分支
+     */
+    private static byte[] random(Random random, int length, int alphabet) {
+        byte[] values = new byte[length];
+        int period = random.nextBoolean() ? length : 1 + random.nextInt(3);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i < period ? (byte) (random.nextInt(alphabet) - 128) : values[i - period];
+        }
+        return values;
+    }
+
+    /**
+     * 测试所有算法的正向和反向查找结果与KMP一致
+     */
+    @Test
+    public void test_Random() {
+        Random random = new Random(25);
+        for (int round = 0; round < 5000; round++) {
+            int alphabet = round % 3 == 0 ? 256 : 2 + round % 2;
+            byte[] input = random(random, random.nextInt(100), alphabet);
+            byte[] target = random(random, random.nextInt(8), alphabet);
+            if (random.nextBoolean() && input.length > target.length) {
+                System.arraycopy(target, 0, input, random.nextInt(input.length - target.length), target.length);
+            }
+            int start = random.nextInt(20) - 5;
+            int end = input.length - random.nextInt(20) + 5;
+            ByteKMP pattern = ByteKMP.compile(target);
+            String text = new String(input, StandardCharsets.ISO_8859_1);
+            String delimiter = new String(target, StandardCharsets.ISO_8859_1);
+            for (MatcherEngine engine : MatcherEngine.values()) {
+                PatternMatcher bytes = MatcherPlanner.create(engine, input, target);
+                PatternMatcher chars = MatcherPlanner.create(engine, text, delimiter);
+                for (PatternMatcher matcher : new PatternMatcher[]{bytes, chars}) {
+                    String message = engine + " " + text + " / " + delimiter;
+                    assertEquals(message, pattern.indexOf(input, start, end), matcher.indexOf(start, end));
+                    assertEquals(message, pattern.lastIndexOf(input, start, end), matcher.lastIndexOf(start, end));
+                    assertEquals(message, pattern.indexOf(input, Math.max(0, start)), matcher.indexOf(Math.max(0, start)));
+                    assertEquals(message, pattern.lastIndexOf(input, Math.max(0, end)), matcher.lastIndexOf(Math.max(0, end)));
+                }
+                if (target.length > 0) {
+                    assertEquals(text.indexOf(delimiter), chars.indexOf(0));
+                    assertEquals(text.lastIndexOf(delimiter), chars.lastIndexOf(Integer.MAX_VALUE));
+                }
+            }
+            assertEquals(pattern.indexOf(input, start, end), MatcherPlanner.plan(input, target).indexOf(start, end));
+            assertEquals(pattern.lastIndexOf(input, start, end), MatcherPlanner.plan(text, delimiter).lastIndexOf(start, end));
+        }
+    }
+
+    /**
+     * 测试长模式和长输入，输入的内容在创建匹配器之后修改时读取最新的内容
+     */
+    @Test
+    public void test_Long() {
+        Random random = new Random(26);
+        for (int alphabet : new int[]{2, 4, 256}) {
+            byte[] input = random(random, 1 << 16, alphabet);
+            byte[] target = random(random, 300, alphabet);
+            ByteKMP pattern = ByteKMP.compile(target);
+            PatternMatcher[] matchers = new PatternMatcher[MatcherEngine.values().length];
+            for (MatcherEngine engine : MatcherEngine.values()) matchers[engine.ordinal()] = MatcherPlanner.create(engine, input, target);
+            for (int k = 0; k < 3; k++) {
+                System.arraycopy(target, 0, input, random.nextInt(input.length - target.length), target.length);
+                for (PatternMatcher matcher : matchers) {
+                    assertEquals(pattern.indexOf(input), matcher.indexOf(0));
+                    assertEquals(pattern.lastIndexOf(input), matcher.lastIndexOf(Integer.MAX_VALUE));
+                    assertEquals(pattern.indexOf(input, 1000, 40000), matcher.indexOf(1000, 40000));
+                    assertEquals(pattern.lastIndexOf(input, 1000, 40000), matcher.lastIndexOf(1000, 40000));
+                }
+            }
+        }
+    }
+
+    /**
+     * 测试算法选择和空输入
+     */
+    @Test
+    public void test_Choose() {
+        assertEquals(MatcherEngine.KMP, MatcherPlanner.choose(4, 4, 1 << 20));
+        assertEquals(MatcherEngine.KMP, MatcherPlanner.choose(64, 26, 100));
+        assertEquals(MatcherEngine.KMP, MatcherPlanner.choose(64, 26, 32));
+        assertEquals(MatcherEngine.KMP, MatcherPlanner.choose(64, 40, 1 << 20));
+        assertEquals(MatcherEngine.TWO_WAY, MatcherPlanner.choose(64, 4, 1 << 20));
+        assertEquals(MatcherEngine.TWO_WAY, MatcherPlanner.choose(16, 2, 1024));
+        assertTrue(MatcherPlanner.plan(new byte[0], new byte[]{1}) instanceof KMP);
+        assertTrue(MatcherPlanner.plan((byte[]) null, null) instanceof KMP);
+
+        PatternMatcher matcher = MatcherPlanner.create(MatcherEngine.TWO_WAY, (CharSequence) null, "a");
+        assertEquals(KMP.NOT_FOUND, matcher.indexOf(0));
+        assertEquals(KMP.NOT_FOUND, MatcherPlanner.create(MatcherEngine.RABIN_KARP, "abc", "").indexOf(0));
+    }
+}
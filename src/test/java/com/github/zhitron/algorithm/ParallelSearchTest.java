@@ -0,0 +1,57 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 并行查找测试类
+ */
+public class ParallelSearchTest {
+
+    /**
+     * 测试并行查找与顺序查找的结果一致
+     */
+    @Test
+    public void test_parallel() {
+        Random random = new Random(13);
+        byte[] input = new byte[1 << 20];
+        for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(4);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int length : new int[]{3, 8, 11}) {
+                byte[] target = new byte[length];
+                System.arraycopy(input, input.length / 2 + length, target, 0, length);
+                KMP<Byte> kmp = KMP.of(input, target);
+                for (int[] range : new int[][]{{0, input.length}, {12345, 900000}, {ParallelSearch.MIN_SEGMENT - 1, ParallelSearch.MIN_SEGMENT * 3 + 1}}) {
+                    assertEquals(kmp.indexOf(range[0], range[1]), kmp.indexOf(range[0], range[1], pool));
+                    assertEquals(kmp.lastIndexOf(range[0], range[1]), kmp.lastIndexOf(range[0], range[1], pool));
+                    assertArrayEquals(kmp.findAll(range[0], range[1], true), kmp.findAll(range[0], range[1], true, pool));
+                    assertArrayEquals(kmp.findAll(range[0], range[1], false), kmp.findAll(range[0], range[1], false, pool));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 测试通用访问器路径和未找到的情况
+     */
+    @Test
+    public void test_parallel_Generic() {
+        Integer[] input = new Integer[300000];
+        for (int i = 0; i < input.length; i++) input[i] = i % 1000;
+        KMP<Integer> kmp = KMP.of(input, new Integer[]{998, 999, 0});
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        assertEquals(998, kmp.indexOf(0, input.length, pool));
+        assertEquals(298998, kmp.lastIndexOf(0, input.length, pool));
+        assertEquals(299, kmp.findAll(0, input.length, true, pool).length);
+        assertEquals(-1, KMP.of(input, new Integer[]{5, 4}).indexOf(0, input.length, pool));
+        assertEquals(-1, kmp.indexOf(10, 5, pool));
+    }
+}
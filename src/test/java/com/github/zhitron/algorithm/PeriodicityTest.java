@@ -0,0 +1,155 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 周期和边界分析测试类
+ */
+public class PeriodicityTest {
+
+    /**
+     * 朴素地计算所有边界的长度，按降序排列
+     *
+     * @param values 序列
+     * @return 所有边界的长度
+     */
+    private static int[] naiveBorders(int[] values) {
+        MatchList borders = new MatchList();
+        for (int b = values.length - 1; b > 0; b--) {
+            if (Arrays.equals(Arrays.copyOfRange(values, 0, b), Arrays.copyOfRange(values, values.length - b, values.length))) {
+                borders.accept(b);
+            }
+        }
+        return borders.toArray();
+    }
+
+    /**
+     * 朴素地计算最短周期
+     *
+     * @param values 序列
+     * @return 最短周期
+     */
+    private static int naivePeriod(int[] values) {
+        for (int p = 1; p < values.length; p++) {
+            boolean period = true;
+            for (int i = 0; i + p < values.length && period; i++) period = values[i] == values[i + p];
+            if (period) return p;
+        }
+        return values.length;
+    }
+
+    /**
+     * 测试随机序列的分析结果与朴素实现一致，各种形式的分析结果相同
+     */
+    @Test
+    public void test_Random() {
+        Random random = new Random(19);
+        int[] scratch = new int[8];
+        for (int round = 0; round < 2000; round++) {
+            int alphabet = 1 + random.nextInt(3);
+            // 一部分序列由一个随机片段重复若干次再截断得到
+            int[] values = new int[random.nextInt(40)];
+            int root = 1 + random.nextInt(6);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i < root || random.nextInt(4) == 0 ? random.nextInt(alphabet) : values[i - root];
+            }
+            Periodicity periodicity = Periodicity.of(values);
+            int period = naivePeriod(values);
+            assertEquals(values.length, periodicity.length());
+            assertArrayEquals(naiveBorders(values), periodicity.borders());
+            assertEquals(period, periodicity.period());
+            int primitive = values.length % Math.max(1, period) == 0 ? period : values.length;
+            assertEquals(primitive, periodicity.primitiveRoot());
+            assertEquals(values.length > 0 && primitive < values.length, periodicity.isRepetition());
+            for (int p = 0; p <= values.length + 1; p++) {
+                boolean expected = p > 0;
+                for (int i = 0; i + p < values.length && expected; i++) expected = values[i] == values[i + p];
+                assertEquals(expected, periodicity.isPeriod(p));
+            }
+
+            long[] longs = new long[values.length];
+            double[] doubles = new double[values.length];
+            char[] chars = new char[values.length];
+            Integer[] boxed = new Integer[values.length];
+            for (int i = 0; i < values.length; i++) {
+                longs[i] = values[i];
+                doubles[i] = values[i] == 0 ? Double.NaN : values[i];
+                chars[i] = (char) ('a' + values[i]);
+                boxed[i] = values[i] + 1000;
+            }
+            assertEquals(periodicity, Periodicity.of(longs));
+            assertEquals(periodicity, Periodicity.of(doubles));
+            assertEquals(periodicity, Periodicity.of(new String(chars)));
+            assertEquals(periodicity, Periodicity.of(boxed));
+            assertEquals(periodicity, Periodicity.of(Arrays.asList(boxed)));
+            // 临时数组长度不足时会重新分配，结果不引用临时数组
+            assertEquals(periodicity, Periodicity.of(values.length, (i, j) -> values[i] == values[j], scratch));
+            Arrays.fill(scratch, -7);
+            assertArrayEquals(naiveBorders(values), periodicity.borders());
+
+            assertEquals(periodicity, IntKMP.compile(values).periodicity());
+            assertEquals(periodicity, DoubleKMP.compile(doubles).periodicity());
+            assertEquals(periodicity, CharKMP.compile(new String(chars).toUpperCase()).withIgnoreCase().periodicity());
+            assertEquals(periodicity, KMPPattern.compile(boxed).periodicity());
+            assertEquals(periodicity, KMP.of(values, values).periodicity());
+        }
+    }
+
+    /**
+     * 测试典型的序列
+     */
+    @Test
+    public void test_Examples() {
+        Periodicity abab = Periodicity.of("abababab");
+        assertEquals(2, abab.period());
+        assertEquals(2, abab.primitiveRoot());
+        assertEquals(4, abab.exponent());
+        assertTrue(abab.isRepetition());
+        assertArrayEquals(new int[]{6, 4, 2}, abab.borders());
+
+        Periodicity abaab = Periodicity.of("abaababaab");
+        assertEquals(5, abaab.period());
+        assertEquals(2, abaab.exponent());
+        assertArrayEquals(new int[]{5, 2}, abaab.borders());
+
+        Periodicity aba = Periodicity.of("abaab");
+        assertEquals(3, aba.period());
+        assertEquals(5, aba.primitiveRoot());
+        assertEquals(1, aba.exponent());
+        assertFalse(aba.isRepetition());
+
+        Periodicity single = Periodicity.of(new boolean[]{true});
+        assertEquals(1, single.period());
+        assertFalse(single.isRepetition());
+        assertArrayEquals(new int[0], single.borders());
+
+        Periodicity empty = Periodicity.of((byte[]) null);
+        assertEquals(0, empty.length());
+        assertEquals(0, empty.period());
+        assertEquals(0, empty.primitiveRoot());
+        assertEquals(0, empty.exponent());
+        assertFalse(empty.isRepetition());
+        assertEquals(empty, Periodicity.of(new short[0]));
+    }
+
+    /**
+     * 测试传入较小的next数组时抛出异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_GenerateNextTooSmall() {
+        KMP.generateNext(4, (i, j) -> true, new int[3]);
+    }
+
+    /**
+     * 测试长度为负数时抛出异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_NegativeLength() {
+        Periodicity.of(-1, (i, j) -> true);
+    }
+}
@@ -0,0 +1,387 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 基本类型特化的KMP模式测试类
+ */
+public class PrimitiveKMPTest {
+
+    /**
+     * 朴素查找，作为对照结果
+     */
+    private static int naiveIndexOf(int[] input, int[] target, int start, int end) {
+        for (int i = Math.max(start, 0); i + target.length <= Math.min(end, input.length); i++) {
+            int j = 0;
+            while (j < target.length && input[i + j] == target[j]) j++;
+            if (j == target.length && target.length > 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 朴素的反向查找，作为对照结果
+     */
+    private static int naiveLastIndexOf(int[] input, int[] target, int start, int end) {
+        for (int i = Math.min(end, input.length) - target.length; i >= Math.max(start, 0); i--) {
+            int j = 0;
+            while (j < target.length && input[i + j] == target[j]) j++;
+            if (j == target.length && target.length > 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 测试各基本类型的查找
+     */
+    @Test
+    public void test_compile() {
+        assertEquals(1, ByteKMP.compile(new byte[]{2, 3, 4}).indexOf(new byte[]{1, 2, 3, 4, 1, 2, 3, 5}));
+        assertEquals(5, CharKMP.compile("AB".toCharArray()).lastIndexOf("ABABCABC".toCharArray()));
+        assertEquals(4, ShortKMP.compile(new short[]{1, 2, 3}).indexOf(new short[]{1, 2, 3, 4, 1, 2, 3, 5}, 1));
+        assertEquals(4, IntKMP.compile(new int[]{1, 2, 3}).lastIndexOf(new int[]{1, 2, 3, 4, 1, 2, 3, 5}));
+        assertEquals(2, LongKMP.compile(new long[]{3L, 4L}).indexOf(new long[]{1L, 2L, 3L, 4L}));
+        assertEquals(1, BooleanKMP.compile(new boolean[]{false, true}).indexOf(new boolean[]{true, false, true}));
+        assertEquals(-1, IntKMP.compile(new int[0]).indexOf(new int[]{1, 2}));
+        assertEquals(-1, IntKMP.compile(new int[]{1}).indexOf(null));
+        assertEquals(-1, IntKMP.compile(new int[]{1, 2}).indexOf(new int[]{1, 2, 1, 2}, 3, 1));
+    }
+
+    /**
+     * 测试浮点数按照compare语义判断相等
+     */
+    @Test
+    public void test_compile_FloatingPoint() {
+        assertEquals(1, FloatKMP.compile(new float[]{Float.NaN}).indexOf(new float[]{1f, Float.NaN}));
+        assertEquals(-1, FloatKMP.compile(new float[]{-0f}).indexOf(new float[]{0f}));
+        assertEquals(1, DoubleKMP.compile(new double[]{Double.NaN, 2d}).indexOf(new double[]{1d, Double.NaN, 2d}));
+        assertEquals(-1, DoubleKMP.compile(new double[]{0d}).indexOf(new double[]{-0d}));
+    }
+
+    /**
+     * 测试反向查找的偏移量为Integer.MAX_VALUE时不会溢出
+     */
+    @Test
+    public void test_lastIndexOf_MaxOffset() {
+        int max = Integer.MAX_VALUE;
+        assertEquals(3, ByteKMP.compile("ab".getBytes()).lastIndexOf("abcab".getBytes(), max));
+        assertEquals(3, CharKMP.compile("ab".toCharArray()).lastIndexOf("abcab".toCharArray(), max));
+        assertEquals(3, CharKMP.compile("ab".toCharArray()).lastIndexOf("abcab", max));
+        assertEquals(2, ShortKMP.compile(new short[]{1, 2}).lastIndexOf(new short[]{1, 2, 1, 2}, max));
+        assertEquals(2, IntKMP.compile(new int[]{1, 2}).lastIndexOf(new int[]{1, 2, 1, 2}, max));
+        assertEquals(2, LongKMP.compile(new long[]{1L, 2L}).lastIndexOf(new long[]{1L, 2L, 1L, 2L}, max));
+        assertEquals(2, FloatKMP.compile(new float[]{1f, 2f}).lastIndexOf(new float[]{1f, 2f, 1f, 2f}, max));
+        assertEquals(2, DoubleKMP.compile(new double[]{1d, 2d}).lastIndexOf(new double[]{1d, 2d, 1d, 2d}, max));
+        assertEquals(2, BooleanKMP.compile(new boolean[]{true, false}).lastIndexOf(new boolean[]{true, false, true, false}, max));
+        assertEquals(3, KMP.of("abcab", "ab").lastIndexOf(max));
+    }
+
+    /**
+     * 测试KMP工厂方法使用特化查找器后结果不变
+     */
+    @Test
+    public void test_of_Routing() {
+        int[] input = {1000, 2000, 3000, 1000, 2000};
+        int[] target = {1000, 2000};
+        KMP<Integer> kmp = KMP.of(input, target);
+        assertEquals(0, kmp.indexOf(0));
+        assertEquals(3, kmp.lastIndexOf(input.length));
+        // 修改输入长度后退回通用查找，超出缓存范围的装箱值也能正确比较
+        kmp.setInputLength(() -> input.length);
+        assertEquals(3, kmp.indexOf(1));
+        assertEquals(3, kmp.lastIndexOf(0, input.length));
+
+        char[] chars = "hello world".toCharArray();
+        assertEquals(6, KMP.of(chars, "wor".toCharArray()).indexOf(0));
+        assertEquals(-1, KMP.of((byte[]) null, new byte[]{1}).indexOf(0));
+    }
+
+    /**
+     * 与朴素查找对比随机数据的结果
+     */
+    @Test
+    public void test_indexOf_Random() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            int[] input = new int[random.nextInt(40)];
+            for (int i = 0; i < input.length; i++) input[i] = random.nextInt(3);
+            int[] target = new int[1 + random.nextInt(4)];
+            for (int i = 0; i < target.length; i++) target[i] = random.nextInt(3);
+            int start = random.nextInt(10) - 2;
+            int end = input.length - random.nextInt(10) + 2;
+            assertEquals(naiveIndexOf(input, target, start, end), IntKMP.compile(target).indexOf(input, start, end));
+
+            // byte和char的正向查找带有首元素预过滤
+            byte[] bytes = new byte[input.length];
+            char[] chars = new char[input.length];
+            for (int i = 0; i < input.length; i++) chars[i] = (char) (bytes[i] = (byte) input[i]);
+            byte[] byteTarget = new byte[target.length];
+            char[] charTarget = new char[target.length];
+            for (int i = 0; i < target.length; i++) charTarget[i] = (char) (byteTarget[i] = (byte) target[i]);
+            assertEquals(naiveIndexOf(input, target, start, end), ByteKMP.compile(byteTarget).indexOf(bytes, start, end));
+            assertEquals(naiveIndexOf(input, target, start, end), CharKMP.compile(charTarget).indexOf(chars, start, end));
+            assertArrayEquals(IntKMP.compile(target).findAll(input, start, end, true), ByteKMP.compile(byteTarget).findAll(bytes, start, end, true));
+            assertArrayEquals(IntKMP.compile(target).findAll(input, start, end, false), CharKMP.compile(charTarget).findAll(chars, start, end, false));
+        }
+    }
+
+    /**
+     * 与逐个调用indexOf的结果对比findAll
+     */
+    @Test
+    public void test_findAll_Random() {
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            byte[] input = new byte[random.nextInt(60)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(2);
+            byte[] target = new byte[1 + random.nextInt(3)];
+            for (int i = 0; i < target.length; i++) target[i] = (byte) random.nextInt(2);
+            ByteKMP pattern = ByteKMP.compile(target);
+
+            MatchList overlapping = new MatchList();
+            MatchList disjoint = new MatchList();
+            for (int i = pattern.indexOf(input); i >= 0; i = pattern.indexOf(input, i + 1)) {
+                overlapping.accept(i);
+            }
+            for (int i = pattern.indexOf(input); i >= 0; i = pattern.indexOf(input, i + target.length)) {
+                disjoint.accept(i);
+            }
+            assertArrayEquals(overlapping.toArray(), pattern.findAll(input, true));
+            assertArrayEquals(disjoint.toArray(), pattern.findAll(input, false));
+            assertEquals(overlapping.toArray().length, pattern.count(input, true));
+        }
+    }
+
+    /**
+     * 测试DFA模式与next数组查找的结果一致
+     */
+    @Test
+    public void test_withDfa_Random() {
+        Random random = new Random(9);
+        for (int round = 0; round < 300; round++) {
+            int[] input = new int[random.nextInt(80)];
+            for (int i = 0; i < input.length; i++) input[i] = random.nextInt(5) - 1;
+            int[] target = new int[1 + random.nextInt(5)];
+            for (int i = 0; i < target.length; i++) target[i] = random.nextInt(3);
+            int start = random.nextInt(10) - 2;
+            int end = input.length - random.nextInt(10) + 2;
+            byte[] bytes = new byte[input.length];
+            char[] chars = new char[input.length];
+            for (int i = 0; i < input.length; i++) chars[i] = (char) (bytes[i] = (byte) input[i]);
+            byte[] byteTarget = new byte[target.length];
+            char[] charTarget = new char[target.length];
+            for (int i = 0; i < target.length; i++) charTarget[i] = (char) (byteTarget[i] = (byte) target[i]);
+
+            ByteKMP byteKmp = ByteKMP.compile(byteTarget);
+            ByteKMP byteDfa = byteKmp.withDfa();
+            CharKMP charKmp = CharKMP.compile(charTarget);
+            CharKMP charDfa = charKmp.withDfa(3);
+            IntKMP intKmp = IntKMP.compile(target);
+            IntKMP intDfa = intKmp.withDfa(3);
+            assertTrue(byteDfa.hasDfa() && charDfa.hasDfa() && intDfa.hasDfa());
+
+            assertEquals(naiveIndexOf(input, target, start, end), intDfa.indexOf(input, start, end));
+            assertEquals(byteKmp.indexOf(bytes, start, end), byteDfa.indexOf(bytes, start, end));
+            assertEquals(byteKmp.indexOf(ByteBuffer.wrap(bytes), start, end), byteDfa.indexOf(ByteBuffer.wrap(bytes), start, end));
+            assertEquals(charKmp.indexOf(chars, start, end), charDfa.indexOf(chars, start, end));
+            for (boolean overlapping : new boolean[]{true, false}) {
+                assertArrayEquals(byteKmp.findAll(bytes, overlapping), byteDfa.findAll(bytes, overlapping));
+                assertArrayEquals(charKmp.findAll(chars, start, end, overlapping), charDfa.findAll(chars, start, end, overlapping));
+                assertArrayEquals(intKmp.findAll(input, overlapping), intDfa.findAll(input, overlapping));
+            }
+        }
+    }
+
+    /**
+     * 测试超出内存预算或字母表时退回next数组查找
+     */
+    @Test
+    public void test_withDfa_Fallback() {
+        ByteKMP pattern = ByteKMP.compile(new byte[4000]);
+        assertFalse(pattern.withDfa().hasDfa());
+        assertTrue(pattern.withDfa(Long.MAX_VALUE).hasDfa());
+        assertFalse(ByteKMP.compile(new byte[0]).withDfa().hasDfa());
+        assertFalse(CharKMP.compile("abc".toCharArray()).withDfa('b').hasDfa());
+        assertTrue(CharKMP.compile("abc".toCharArray()).withDfa(128).hasDfa());
+        assertFalse(IntKMP.compile(new int[]{1, -1}).withDfa(2).hasDfa());
+        assertEquals(1, CharKMP.compile("ab".toCharArray()).withDfa(128).indexOf("\u4e2dab".toCharArray()));
+    }
+
+    /**
+     * 测试按模式长度选择的紧凑next数组与int类型next数组的查找结果一致
+     */
+    @Test
+    public void test_CompactNext() {
+        Random random = new Random(24);
+        for (int length : new int[]{1, 200, 255, 256, 300, 65535, 65536, 70000}) {
+            // 周期为3的模式，next数组中出现接近模式长度的值
+            byte[] target = new byte[length];
+            for (int j = 0; j < length; j++) target[j] = (byte) (j % 3 == 2 ? 1 : 0);
+            byte[] input = new byte[length * 3 + 10];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) (i % 3 == 2 ? 1 : 0);
+            for (int k = 0; k < 4; k++) input[random.nextInt(input.length)] = 2;
+
+            ByteKMP pattern = ByteKMP.compile(target);
+            Class<?> expected = length <= 255 ? byte[].class : length <= 65535 ? char[].class : int[].class;
+            assertEquals(expected, pattern.next.getClass());
+            assertEquals(expected, pattern.prev.getClass());
+            assertEquals(expected, pattern.withOptimizedNext().next.getClass());
+            int[] next = KMP.generateNext(length + 1, (i, j) -> target[i] == target[j]);
+            assertArrayEquals(next, NextTables.expand(pattern.next));
+
+            // 带计数的查找循环使用int数组，作为对照结果
+            ByteKMP reference = pattern.withMetrics(new KMPMetrics());
+            assertEquals(int[].class, reference.next.getClass());
+            assertEquals(expected, reference.withMetrics(null).next.getClass());
+            int start = random.nextInt(length), end = input.length - random.nextInt(length);
+            for (ByteKMP kmp : new ByteKMP[]{pattern, pattern.withOptimizedNext()}) {
+                assertEquals(reference.indexOf(input, start, end), kmp.indexOf(input, start, end));
+                assertEquals(reference.lastIndexOf(input, start, end), kmp.lastIndexOf(input, start, end));
+                assertArrayEquals(reference.findAll(input, true), kmp.findAll(input, true));
+                assertArrayEquals(reference.findAll(input, start, end, false), kmp.findAll(input, start, end, false));
+                ByteBuffer buffer = ByteBuffer.wrap(input);
+                assertEquals(reference.indexOf(input, start, end), kmp.indexOf(buffer, start, end));
+                assertEquals(reference.lastIndexOf(input, start, end), kmp.lastIndexOf(buffer, start, end));
+                assertEquals(reference.count(input, true), ByteStreamMatcher.of(kmp, true).feed(input, (p) -> {
+                }));
+            }
+        }
+    }
+
+    /**
+     * 测试优化的next数组与经典next数组的查找结果一致
+     */
+    @Test
+    public void test_withOptimizedNext_Random() {
+        Random random = new Random(21);
+        for (int round = 0; round < 300; round++) {
+            byte[] input = new byte[random.nextInt(80)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(2);
+            byte[] target = new byte[1 + random.nextInt(6)];
+            for (int i = 0; i < target.length; i++) target[i] = (byte) random.nextInt(2);
+            int start = random.nextInt(10) - 2;
+            int end = input.length - random.nextInt(10) + 2;
+            ByteKMP classic = ByteKMP.compile(target);
+            ByteKMP optimized = classic.withOptimizedNext();
+            assertEquals(classic.indexOf(input, start, end), optimized.indexOf(input, start, end));
+            assertEquals(classic.lastIndexOf(input, start, end), optimized.lastIndexOf(input, start, end));
+            assertArrayEquals(classic.findAll(input, true), optimized.findAll(input, true));
+            assertArrayEquals(classic.findAll(input, false), optimized.findAll(input, false));
+            assertArrayEquals(classic.findAll(input, true), optimized.withDfa().findAll(input, true));
+
+            Byte[] boxed = new Byte[target.length];
+            for (int i = 0; i < target.length; i++) boxed[i] = target[i];
+            KMPPattern<Byte> pattern = KMPPattern.compile(boxed).withOptimizedNext();
+            Byte[] boxedInput = new Byte[input.length];
+            for (int i = 0; i < input.length; i++) boxedInput[i] = input[i];
+            assertArrayEquals(classic.findAll(input, true), pattern.findAll(boxedInput, true));
+        }
+    }
+
+    /**
+     * 与朴素的反向查找对比各条反向查找路径的结果
+     */
+    @Test
+    public void test_lastIndexOf_Random() {
+        Random random = new Random(17);
+        for (int round = 0; round < 1000; round++) {
+            int alphabet = 1 + random.nextInt(3);
+            int[] input = new int[random.nextInt(60)];
+            for (int i = 0; i < input.length; i++) input[i] = random.nextInt(alphabet);
+            int[] target = new int[1 + random.nextInt(6)];
+            for (int i = 0; i < target.length; i++) target[i] = random.nextInt(alphabet);
+            int start = random.nextInt(10) - 2;
+            int end = input.length - random.nextInt(10) + 2;
+            int expected = naiveLastIndexOf(input, target, start, end);
+
+            byte[] bytes = new byte[input.length];
+            Integer[] boxed = new Integer[input.length];
+            for (int i = 0; i < input.length; i++) boxed[i] = (int) (bytes[i] = (byte) input[i]);
+            byte[] byteTarget = new byte[target.length];
+            Integer[] boxedTarget = new Integer[target.length];
+            for (int i = 0; i < target.length; i++) boxedTarget[i] = (int) (byteTarget[i] = (byte) target[i]);
+
+            assertEquals(expected, IntKMP.compile(target).lastIndexOf(input, start, end));
+            assertEquals(expected, IntKMP.compile(target).withOptimizedNext().lastIndexOf(input, start, end));
+            assertEquals(expected, ByteKMP.compile(byteTarget).lastIndexOf(bytes, start, end));
+            assertEquals(expected, ByteKMP.compile(byteTarget).lastIndexOf(ByteBuffer.wrap(bytes), start, end));
+            assertEquals(expected, KMP.of(boxed, boxedTarget).lastIndexOf(start, end));
+            assertEquals(expected, KMP.of(boxed, boxedTarget).setOptimizedNext(true).lastIndexOf(start, end));
+            assertEquals(expected, KMPPattern.compile(boxedTarget).withOptimizedNext().lastIndexOf((i) -> boxed[i], boxed.length, start, end));
+        }
+    }
+
+    /**
+     * 与String的查找对比字符序列输入的结果
+     */
+    @Test
+    public void test_CharSequence_Random() {
+        Random random = new Random(29);
+        for (int round = 0; round < 500; round++) {
+            String input = randomText(random, random.nextInt(60), "ab");
+            String target = randomText(random, 1 + random.nextInt(4), "ab");
+            CharKMP pattern = CharKMP.compile(target);
+            for (CharSequence sequence : new CharSequence[]{input, new StringBuilder(input), CharBuffer.wrap(input)}) {
+                assertEquals(input.indexOf(target), pattern.indexOf(sequence));
+                assertEquals(input.indexOf(target, 7), pattern.indexOf(sequence, 7));
+                assertEquals(input.lastIndexOf(target), pattern.lastIndexOf(sequence));
+                assertEquals(input.indexOf(target), pattern.withDfa(128).indexOf(sequence));
+                assertArrayEquals(pattern.findAll(input.toCharArray(), true), pattern.findAll(sequence, true));
+                assertEquals(pattern.count(input.toCharArray(), false), pattern.withDfa(128).count(sequence, false));
+            }
+            KMP<Character> kmp = KMP.of(input, target);
+            assertEquals(input.indexOf(target), kmp.indexOf(0));
+            assertEquals(input.lastIndexOf(target), kmp.lastIndexOf(input.length()));
+        }
+        assertEquals(-1, CharKMP.compile("a").indexOf((CharSequence) null));
+        assertEquals(-1, KMP.of((CharSequence) null, "a").indexOf(0));
+    }
+
+    /**
+     * 与逐个折叠字符后的朴素查找对比忽略大小写的结果
+     */
+    @Test
+    public void test_withIgnoreCase_Random() {
+        Random random = new Random(31);
+        for (int round = 0; round < 500; round++) {
+            String input = randomText(random, random.nextInt(60), "aAbBkK\u212a");
+            String target = randomText(random, 1 + random.nextInt(4), "aAbBkK\u212a");
+            int[] foldedInput = input.chars().map((c) -> CharKMP.fold((char) c)).toArray();
+            int[] foldedTarget = target.chars().map((c) -> CharKMP.fold((char) c)).toArray();
+            int expected = naiveIndexOf(foldedInput, foldedTarget, 0, foldedInput.length);
+            int expectedLast = naiveLastIndexOf(foldedInput, foldedTarget, 0, foldedInput.length);
+
+            CharKMP pattern = CharKMP.compile(target).withIgnoreCase();
+            assertTrue(pattern.isIgnoreCase());
+            assertFalse(pattern.withDfa(256).hasDfa());
+            assertEquals(expected, pattern.indexOf(input));
+            assertEquals(expected, pattern.indexOf(input.toCharArray()));
+            assertEquals(expected, pattern.withOptimizedNext().indexOf(new StringBuilder(input)));
+            assertEquals(expectedLast, pattern.lastIndexOf(input));
+            assertEquals(expectedLast, pattern.lastIndexOf(input.toCharArray()));
+            assertArrayEquals(pattern.findAll(input, true), pattern.findAll(input.toCharArray(), true));
+            assertEquals(expected, KMP.ofIgnoreCase(input, target).indexOf(0));
+            assertEquals(expectedLast, KMP.ofIgnoreCase(input, target).setOptimizedNext(true).lastIndexOf(0, input.length()));
+            if (expected >= 0) assertTrue(input.regionMatches(true, expected, target, 0, target.length()));
+        }
+        assertEquals(4, CharKMP.compile("WORLD").withIgnoreCase().indexOf("Hi, World"));
+    }
+
+    /**
+     * 从给定字符中随机生成一段文本
+     */
+    private static String randomText(Random random, int length, String chars) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) builder.append(chars.charAt(random.nextInt(chars.length())));
+        return builder.toString();
+    }
+}
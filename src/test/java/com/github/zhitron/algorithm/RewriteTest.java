@@ -0,0 +1,130 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * 切分、替换和掩盖的测试类
+ */
+public class RewriteTest {
+
+    /**
+     * 测试与String的split和replace结果一致
+     */
+    @Test
+    public void test_Random() throws IOException {
+        Random random = new Random(23);
+        for (int round = 0; round < 1000; round++) {
+            char[] chars = new char[random.nextInt(60)];
+            for (int i = 0; i < chars.length; i++) chars[i] = (char) ('a' + random.nextInt(2));
+            char[] target = new char[1 + random.nextInt(4)];
+            for (int j = 0; j < target.length; j++) target[j] = (char) ('a' + random.nextInt(2));
+            String text = new String(chars), delimiter = new String(target);
+            String replacement = round % 3 == 0 ? "" : round % 3 == 1 ? "X" : "XYZW";
+            CharKMP pattern = CharKMP.compile(target);
+
+            String[] expected = text.split(Pattern.quote(delimiter), -1);
+            assertArrayEquals(expected, pattern.split(text));
+            char[][] pieces = pattern.split(chars);
+            assertEquals(expected.length, pieces.length);
+            for (int k = 0; k < pieces.length; k++) assertEquals(expected[k], new String(pieces[k]));
+
+            String replaced = text.replace(delimiter, replacement);
+            assertEquals(replaced, pattern.replaceAll(text, replacement));
+            assertEquals(replaced, new String(pattern.replaceAll(chars, replacement.toCharArray())));
+            StringWriter writer = new StringWriter();
+            assertEquals(pattern.count(text, false), pattern.replaceAll(text, replacement, writer));
+            assertEquals(replaced, writer.toString());
+
+            // 掩盖所有匹配覆盖的字符，包括相互重叠的匹配
+            char[] masked = chars.clone();
+            for (int p : pattern.findAll(chars, true)) Arrays.fill(masked, p, p + target.length, '*');
+            assertEquals(new String(masked), pattern.redact(text, '*'));
+            assertArrayEquals(masked, pattern.redact(chars, '*'));
+            StringBuilder builder = new StringBuilder("> ");
+            assertEquals(pattern.count(text, true), pattern.redact(text, '*', builder));
+            assertEquals("> " + new String(masked), builder.toString());
+
+            byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            ByteKMP bytePattern = ByteKMP.compile(delimiter.getBytes(StandardCharsets.ISO_8859_1));
+            byte[][] bytePieces = bytePattern.split(bytes);
+            ByteBuffer[] views = bytePattern.split(ByteBuffer.wrap(bytes));
+            assertEquals(expected.length, bytePieces.length);
+            assertEquals(expected.length, views.length);
+            for (int k = 0; k < bytePieces.length; k++) {
+                assertArrayEquals(expected[k].getBytes(StandardCharsets.ISO_8859_1), bytePieces[k]);
+                assertEquals(ByteBuffer.wrap(bytePieces[k]), views[k]);
+            }
+            byte[] replacementBytes = replacement.getBytes(StandardCharsets.ISO_8859_1);
+            assertArrayEquals(replaced.getBytes(StandardCharsets.ISO_8859_1), bytePattern.replaceAll(bytes, replacementBytes));
+            ByteBuffer sink = ByteBuffer.allocateDirect(replaced.length() + 1);
+            sink.put((byte) '>');
+            assertEquals(pattern.count(text, false), bytePattern.replaceAll(bytes, replacementBytes, sink));
+            assertEquals(replaced.length() + 1, sink.position());
+            sink.flip();
+            assertEquals(ByteBuffer.wrap((">" + replaced).getBytes(StandardCharsets.ISO_8859_1)), sink);
+            assertArrayEquals(new String(masked).getBytes(StandardCharsets.ISO_8859_1), bytePattern.redact(bytes, (byte) '*'));
+        }
+    }
+
+    /**
+     * 测试忽略大小写、空模式、空输入和写入失败
+     */
+    @Test
+    public void test_Edge() {
+        CharKMP ignoreCase = CharKMP.compile("key").withIgnoreCase();
+        assertEquals("a=***, b=***", ignoreCase.redact("a=KEY, b=Key", '*'));
+        assertArrayEquals(new String[]{"a=", ", b=", ""}, ignoreCase.split("a=KEY, b=Key"));
+        assertEquals("a=v, b=v", ignoreCase.replaceAll("a=KEY, b=Key", "v"));
+
+        assertArrayEquals(new String[]{"abc"}, CharKMP.compile("").split("abc"));
+        assertEquals("abc", CharKMP.compile("").replaceAll("abc", "x"));
+        assertArrayEquals(new String[]{""}, CharKMP.compile("a").split((CharSequence) null));
+        assertEquals(1, ByteKMP.compile(new byte[]{1}).split((byte[]) null).length);
+        assertArrayEquals(new byte[0], ByteKMP.compile(new byte[]{1}).redact(null, (byte) 0));
+
+        // 切分缓冲区得到的片段共享输入的内容
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1, 0, 0, 2, 0, 0, 3});
+        ByteBuffer[] views = ByteKMP.compile(new byte[]{0, 0}).split(buffer);
+        assertEquals(3, views.length);
+        buffer.put(3, (byte) 9);
+        assertEquals(9, views[1].get(0));
+        assertEquals(0, buffer.position());
+
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("closed");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            CharKMP.compile("a").replaceAll("banana", "o", failing);
+            fail();
+        } catch (IOException e) {
+            assertEquals("closed", e.getMessage());
+        }
+        try {
+            ByteKMP.compile(new byte[]{1}).replaceAll(new byte[]{1, 1}, new byte[]{2, 2}, ByteBuffer.allocate(3));
+            fail();
+        } catch (java.nio.BufferOverflowException ignored) {
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 增量匹配器测试类
+ */
+public class StreamMatcherTest {
+
+    /**
+     * 测试随机切分的数据块与整体查找结果一致
+     */
+    @Test
+    public void test_feed_RandomChunks() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            byte[] input = new byte[random.nextInt(200)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(2);
+            byte[] target = new byte[1 + random.nextInt(5)];
+            for (int i = 0; i < target.length; i++) target[i] = (byte) random.nextInt(2);
+            ByteKMP pattern = random.nextBoolean() ? ByteKMP.compile(target) : ByteKMP.compile(target).withDfa();
+            boolean overlapping = random.nextBoolean();
+
+            ByteStreamMatcher matcher = ByteStreamMatcher.of(pattern, overlapping);
+            MatchList matches = new MatchList();
+            int offset = 0;
+            while (offset < input.length) {
+                int length = Math.min(input.length - offset, random.nextInt(8));
+                if (random.nextBoolean()) {
+                    matcher.feed(input, offset, length, (index) -> matches.accept((int) index));
+                } else {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+                    buffer.put(input, offset, length).flip();
+                    matcher.feed(buffer, (index) -> matches.accept((int) index));
+                    assertEquals(0, buffer.remaining());
+                }
+                offset += length;
+            }
+            assertEquals(input.length, matcher.position());
+            assertArrayEquals(pattern.findAll(input, overlapping), matches.toArray());
+        }
+    }
+
+    /**
+     * 测试跨越块边界的字符匹配
+     */
+    @Test
+    public void test_feed_Chars() {
+        CharKMP pattern = CharKMP.compile("needle".toCharArray());
+        for (CharKMP compiled : new CharKMP[]{pattern, pattern.withDfa(128)}) {
+            CharStreamMatcher matcher = CharStreamMatcher.of(compiled, false);
+            MatchList matches = new MatchList();
+            assertEquals(0, matcher.feed("hay nee", (index) -> matches.accept((int) index)));
+            assertEquals(3, matcher.matchedLength());
+            assertEquals(1, matcher.feed("dle hay ne".toCharArray(), (index) -> matches.accept((int) index)));
+            assertEquals(1, matcher.feed(CharBuffer.wrap("edle"), (index) -> matches.accept((int) index)));
+            assertArrayEquals(new int[]{4, 15}, matches.toArray());
+
+            matcher.reset();
+            assertEquals(0, matcher.position());
+            assertEquals(0, matcher.matchedLength());
+        }
+
+        // 忽略大小写的模式在每个块上折叠输入字符
+        CharStreamMatcher matcher = CharStreamMatcher.of(pattern.withIgnoreCase(), true);
+        MatchList matches = new MatchList();
+        matcher.feed("NeE", (index) -> matches.accept((int) index));
+        matcher.feed("DLE needLE".toCharArray(), (index) -> matches.accept((int) index));
+        assertArrayEquals(new int[]{0, 7}, matches.toArray());
+    }
+}
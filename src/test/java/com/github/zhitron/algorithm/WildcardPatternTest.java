@@ -0,0 +1,126 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 通配符和字符类模式测试类
+ */
+public class WildcardPatternTest {
+
+    /**
+     * 朴素查找，mask为0的位置匹配任意值，作为对照结果
+     */
+    private static int naiveIndexOf(byte[] input, byte[] values, byte[] mask, int from, boolean last) {
+        int m = values.length;
+        for (int k = 0; k + m <= input.length; k++) {
+            int i = last ? input.length - m - k : from + k;
+            if (i < from || i + m > input.length) break;
+            int j = 0;
+            while (j < m && (input[i + j] & mask[j]) == (values[j] & mask[j])) j++;
+            if (j == m && m > 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 与朴素查找对比随机数据的结果，覆盖单字和多字状态
+     */
+    @Test
+    public void test_ByteWildcardPattern_Random() {
+        Random random = new Random(37);
+        for (int round = 0; round < 1000; round++) {
+            int m = 1 + (round % 10 == 0 ? random.nextInt(140) : random.nextInt(6));
+            byte[] input = new byte[random.nextInt(400)];
+            for (int i = 0; i < input.length; i++) input[i] = (byte) random.nextInt(3);
+            byte[] values = new byte[m], mask = new byte[m];
+            for (int j = 0; j < m; j++) {
+                values[j] = (byte) random.nextInt(3);
+                mask[j] = (byte) (random.nextInt(4) == 0 ? 0 : 0xff);
+            }
+            // 多字模式从输入中截取，保证存在匹配
+            if (m > 6 && input.length > m) System.arraycopy(input, random.nextInt(input.length - m), values, 0, m);
+            ByteWildcardPattern pattern = ByteWildcardPattern.compile(values, mask);
+            int expected = naiveIndexOf(input, values, mask, 0, false);
+            assertEquals(expected, pattern.indexOf(input));
+            assertEquals(naiveIndexOf(input, values, mask, 0, true), pattern.lastIndexOf(input));
+
+            MatchList overlapping = new MatchList(), disjoint = new MatchList();
+            for (int i = 0, next = 0; i + m <= input.length; i++) {
+                if (naiveIndexOf(input, values, mask, i, false) != i) continue;
+                overlapping.accept(i);
+                if (i >= next) {
+                    disjoint.accept(i);
+                    next = i + m;
+                }
+            }
+            assertArrayEquals(overlapping.toArray(), pattern.findAll(input, true));
+            assertArrayEquals(disjoint.toArray(), pattern.findAll(input, false));
+            assertEquals(disjoint.toArray().length, pattern.count(input, false));
+        }
+    }
+
+    /**
+     * 测试文本格式的解析
+     */
+    @Test
+    public void test_ByteWildcardPattern_Compile() {
+        byte[] input = {0x00, 0x4D, 0x5A, (byte) 0x90, 0x00, 0x50, 0x45, 0x4D, 0x5A, 0x37, 0x41};
+        assertEquals(1, ByteWildcardPattern.compile("4D 5A ?? ?? 50 45").indexOf(input));
+        assertEquals(6, ByteWildcardPattern.compile("4D 5A ??  ?? 50 45").length());
+        assertEquals(7, ByteWildcardPattern.compile("4D 5A [30-39] [41,42]").indexOf(input));
+        assertEquals(7, ByteWildcardPattern.compile("4? ?A[^00 90]").indexOf(input));
+        assertEquals(-1, ByteWildcardPattern.compile("4D 5A [^90 37]").lastIndexOf(input));
+        assertEquals("4D 5A ??", ByteWildcardPattern.compile("4D 5A ??").toString());
+        assertEquals(-1, ByteWildcardPattern.compile("").indexOf(input));
+        for (String invalid : new String[]{"4", "4D5A", "GG", "[30-", "[39-30]", "[^00-FF]", "4D [30"}) {
+            try {
+                ByteWildcardPattern.compile(invalid);
+                fail(invalid);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 测试字符模式的通配符、字符类、转义和大于255的字符
+     */
+    @Test
+    public void test_CharWildcardPattern() {
+        String text = "id: ID-42x, ID-7?, 中文-编号";
+        assertEquals(4, CharWildcardPattern.compile("ID-[0-9][0-9]?").indexOf(text));
+        assertEquals(12, CharWildcardPattern.compile("ID-[0-9]\\?").indexOf(text.toCharArray()));
+        assertEquals(12, CharWildcardPattern.compile("[A-Z][^a-z]-").lastIndexOf(text.toCharArray()));
+        assertEquals(19, CharWildcardPattern.compile("[一-鿿]?-[^ -~]").indexOf(text));
+        assertEquals(19, CharWildcardPattern.compile("中?").indexOf(text));
+        assertArrayEquals(new int[]{4, 12}, CharWildcardPattern.compile("ID-").findAll(text.toCharArray(), false));
+        assertEquals(2, CharWildcardPattern.compile("??").count("abcd".toCharArray(), false));
+        assertEquals(3, CharWildcardPattern.compile("??").count("abcd".toCharArray(), true));
+        for (String invalid : new String[]{"[abc", "[z-a]", "abc\\", "[^\u0000-￿]"}) {
+            try {
+                CharWildcardPattern.compile(invalid);
+                fail(invalid);
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    /**
+     * 测试超过64个位置的字符模式
+     */
+    @Test
+    public void test_CharWildcardPattern_Long() {
+        StringBuilder text = new StringBuilder(), glob = new StringBuilder();
+        for (int i = 0; i < 300; i++) text.append((char) ('a' + i % 7));
+        for (int i = 100; i < 200; i++) glob.append(i % 5 == 0 ? "?" : i % 11 == 0 ? "[a-g]" : String.valueOf(text.charAt(i)));
+        CharWildcardPattern pattern = CharWildcardPattern.compile(glob.toString());
+        assertEquals(100, pattern.length());
+        assertEquals(2, pattern.indexOf(text));
+        assertEquals(198, pattern.lastIndexOf(text.toString().toCharArray()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.zhitron.algorithm;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 工作数组和线程缓冲区的测试类
+ */
+public class WorkspaceTest {
+
+    /**
+     * 生成随机的装箱数组，alphabet越小匹配越多
+     */
+    private static Integer[] random(Random random, int length, int alphabet) {
+        Integer[] values = new Integer[length];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt(alphabet);
+        return values;
+    }
+
+    /**
+     * 测试生成next数组的工作数组重载与分配新数组的结果一致
+     */
+    @Test
+    public void test_GenerateNext() {
+        Random random = new Random(20);
+        int[] workspace = new int[64];
+        for (int round = 0; round < 500; round++) {
+            Integer[] target = random(random, 1 + random.nextInt(40), 3);
+            int length = target.length;
+            Arrays.fill(workspace, 99);
+            int[] next = KMP.generateNext(length + 1, (i, j) -> target[i].equals(target[j]));
+            assertSame(workspace, KMP.generateNext(length + 1, (i, j) -> target[i].equals(target[j]), workspace));
+            assertArrayEquals(next, Arrays.copyOf(workspace, length + 1));
+            int[] optimized = KMP.generateOptimizedNext(length, (i, j) -> target[i].equals(target[j]));
+            assertSame(workspace, KMP.generateOptimizedNext(length, (i, j) -> target[i].equals(target[j]), workspace));
+            assertArrayEquals(optimized, Arrays.copyOf(workspace, length + 1));
+        }
+    }
+
+    /**
+     * 测试使用工作数组和线程缓冲区的查找与默认查找的结果一致，工作数组不足时临时分配
+     */
+    @Test
+    public void test_Search() {
+        Random random = new Random(21);
+        int[] workspace = new int[8];
+        for (int round = 0; round < 1000; round++) {
+            Integer[] input = random(random, random.nextInt(100), 3);
+            Integer[] target = random(random, 1 + random.nextInt(12), 3);
+            int start = random.nextInt(20) - 5;
+            int end = input.length - random.nextInt(20) + 5;
+            boolean optimized = random.nextBoolean();
+            KMP<Integer> plain = KMP.of(input, target).setOptimizedNext(optimized);
+            KMP<Integer> pooled = KMP.of(input, target).setOptimizedNext(optimized).setThreadLocalWorkspace(true);
+            int index = plain.indexOf(start, end);
+            int lastIndex = plain.lastIndexOf(start, end);
+            assertEquals(index, plain.indexOf(start, end, workspace));
+            assertEquals(lastIndex, plain.lastIndexOf(start, end, workspace));
+            assertEquals(index, pooled.indexOf(start, end));
+            assertEquals(lastIndex, pooled.lastIndexOf(start, end));
+            assertEquals(index, pooled.indexOf(start, end, workspace));
+            assertArrayEquals(plain.findAll(start, end, true), pooled.findAll(start, end, true));
+            assertEquals(plain.count(start, end, false), pooled.count(start, end, false));
+        }
+    }
+
+    /**
+     * 测试比较器中嵌套的查找不会覆盖外层查找正在使用的线程缓冲区
+     */
+    @Test
+    public void test_Reentrant() {
+        Integer[] inner = {1, 1, 2, 1, 1, 1, 2};
+        Integer[] innerTarget = {1, 1, 1, 2};
+        KMP<Integer> nested = KMP.of(inner, innerTarget).setThreadLocalWorkspace(true);
+        Integer[] input = {0, 0, 0, 1, 0, 0, 0, 0, 1};
+        Integer[] target = {0, 0, 0, 0, 1};
+        KMP<Integer> outer = KMP.of(input, target)
+                .setThreadLocalWorkspace(true)
+                .setCompare((a, b) -> nested.indexOf(0) == 3 && a.equals(b));
+        assertEquals(4, outer.indexOf(0));
+        assertEquals(4, outer.lastIndexOf(input.length));
+        assertArrayEquals(new int[]{4}, outer.findAll(true));
+    }
+
+    /**
+     * 测试线程缓冲区预热之后，通用查找路径不再为每次查找分配next数组
+     */
+    @Test
+    public void test_NoTableAllocation() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        // 模式很长时next数组占用16KB，与比较器等少量临时对象的分配明显区分
+        Integer[] target = new Integer[4096];
+        for (int i = 0; i < target.length; i++) target[i] = i % 7;
+        Integer[] input = new Integer[target.length * 2];
+        for (int i = 0; i < input.length; i++) input[i] = i % 7;
+        int[] workspace = new int[target.length + 1];
+        KMP<Integer> plain = KMP.of(input, target);
+        KMP<Integer> pooled = KMP.of(input, target).setThreadLocalWorkspace(true);
+
+        int rounds = 200;
+        long tableBytes = 4L * target.length;
+        long id = Thread.currentThread().getId();
+        for (int round = 0; round < rounds; round++) {
+            pooled.indexOf(0);
+            plain.indexOf(0, input.length, workspace);
+        }
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int round = 0; round < rounds; round++) assertEquals(0, pooled.indexOf(0));
+        long pooledBytes = threads.getThreadAllocatedBytes(id) - before;
+        before = threads.getThreadAllocatedBytes(id);
+        for (int round = 0; round < rounds; round++) assertEquals(0, plain.indexOf(0, input.length, workspace));
+        long workspaceBytes = threads.getThreadAllocatedBytes(id) - before;
+        before = threads.getThreadAllocatedBytes(id);
+        for (int round = 0; round < rounds; round++) assertEquals(0, plain.indexOf(0));
+        long plainBytes = threads.getThreadAllocatedBytes(id) - before;
+
+        assertTrue("plain: " + plainBytes, plainBytes >= rounds * tableBytes);
+        assertTrue("pooled: " + pooledBytes, pooledBytes < rounds * tableBytes / 16);
+        assertTrue("workspace: " + workspaceBytes, workspaceBytes < rounds * tableBytes / 16);
+    }
+
+    /**
+     * 测试传入较小的数组时抛出异常
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void test_OptimizedNextTooSmall() {
+        KMP.generateOptimizedNext(4, (i, j) -> true, new int[4]);
+    }
+}